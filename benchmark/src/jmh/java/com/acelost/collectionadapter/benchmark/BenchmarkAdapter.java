@@ -0,0 +1,50 @@
+package com.acelost.collectionadapter.benchmark;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import com.acelost.collectionadapter.AbstractCollectionAdapter;
+import com.acelost.collectionadapter.ChildViewHolder;
+import com.acelost.collectionadapter.CollectionParent;
+
+/**
+ * Адаптер для бенчмарков: создает вью-заглушки и привязывает к ним текст элемента.
+ */
+final class BenchmarkAdapter extends AbstractCollectionAdapter<BenchmarkItem, BenchmarkAdapter.Holder> {
+
+    static final class Holder extends ChildViewHolder {
+
+        CharSequence text;
+
+        Holder(@NonNull final View view) {
+            super(view);
+        }
+    }
+
+    @Override
+    protected int getItemViewType(final int position) {
+        return getItem(position).viewType;
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        return getItem(position).id;
+    }
+
+    @Override
+    protected boolean areItemsTheSame(@NonNull final BenchmarkItem oldItem, @NonNull final BenchmarkItem newItem) {
+        return oldItem.id == newItem.id;
+    }
+
+    @NonNull
+    @Override
+    protected Holder onCreateViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+        return new Holder(new View(parent.getContext()));
+    }
+
+    @Override
+    protected void onBindViewHolder(@NonNull final Holder holder, @NonNull final BenchmarkItem item, final int position) {
+        holder.text = item.text;
+    }
+}
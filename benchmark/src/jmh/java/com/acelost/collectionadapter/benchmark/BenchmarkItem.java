@@ -0,0 +1,58 @@
+package com.acelost.collectionadapter.benchmark;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Элемент коллекции для бенчмарков.
+ */
+final class BenchmarkItem {
+
+    final long id;
+
+    final int viewType;
+
+    @NonNull
+    final String text;
+
+    BenchmarkItem(final long id, final int viewType, @NonNull final String text) {
+        this.id = id;
+        this.viewType = viewType;
+        this.text = text;
+    }
+
+    /**
+     * Создать перечень элементов с идентификаторами [0, count) и типами вью,
+     * циклически сдвинутыми на typeShift.
+     */
+    @NonNull
+    static List<BenchmarkItem> createList(final int count, final int typeCount, final int typeShift) {
+        final List<BenchmarkItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            items.add(new BenchmarkItem(i, (i + typeShift) % typeCount, "Item " + i));
+        }
+        return items;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final BenchmarkItem that = (BenchmarkItem) o;
+        return id == that.id && viewType == that.viewType && text.equals(that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (id ^ (id >>> 32));
+        result = 31 * result + viewType;
+        result = 31 * result + text.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.acelost.collectionadapter.benchmark;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+
+import com.acelost.collectionadapter.CollectionParent;
+
+/**
+ * Родительская вью в памяти для бенчмарков: хранит дочерние вью-заглушки без измерения и отрисовки.
+ */
+final class FakeCollectionParent extends ViewGroup implements CollectionParent {
+
+    private int mLayoutRequests;
+
+    FakeCollectionParent() {
+        super(new Context());
+    }
+
+    @NonNull
+    @Override
+    public ViewGroup getView() {
+        return this;
+    }
+
+    @Override
+    public void addItemInLayout(@NonNull final View view, final int position) {
+        addViewInLayout(view, position, null, true);
+    }
+
+    @Override
+    public void requestLayout() {
+        ++mLayoutRequests;
+    }
+
+    int getLayoutRequests() {
+        return mLayoutRequests;
+    }
+}
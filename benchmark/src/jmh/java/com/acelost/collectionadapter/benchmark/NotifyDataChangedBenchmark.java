@@ -0,0 +1,52 @@
+package com.acelost.collectionadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость полной перепривязки {@link com.acelost.collectionadapter.CollectionAdapter#notifyDataChanged()}
+ * в зависимости от количества элементов.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotifyDataChangedBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int itemCount;
+
+    @Param({"1", "4"})
+    public int typeCount;
+
+    @Param({"false", "true"})
+    public boolean stableIds;
+
+    private BenchmarkAdapter mAdapter;
+
+    @Setup
+    public void setUp() {
+        mAdapter = new BenchmarkAdapter();
+        mAdapter.setHasStableIds(stableIds);
+        mAdapter.set(BenchmarkItem.createList(itemCount, typeCount, 0));
+        mAdapter.attachToParent(new FakeCollectionParent());
+    }
+
+    @Benchmark
+    public void notifyDataChanged() {
+        mAdapter.notifyDataChanged();
+    }
+}
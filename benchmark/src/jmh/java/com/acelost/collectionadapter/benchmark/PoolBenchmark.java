@@ -0,0 +1,84 @@
+package com.acelost.collectionadapter.benchmark;
+
+import com.acelost.collectionadapter.ChildViewHolder;
+import com.acelost.collectionadapter.CollectionViewHolderPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность {@link CollectionViewHolderPool}: помещение вью-холдеров
+ * в пул и получение их обратно.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark {
+
+    private static final int HOLDER_COUNT = 64;
+
+    @Param({"1", "4", "16"})
+    public int typeCount;
+
+    @Param({"0", "32"})
+    public int capacity;
+
+    private CollectionViewHolderPool mPool;
+
+    private ChildViewHolder[] mHolders;
+
+    @Setup
+    public void setUp() {
+        mPool = new CollectionViewHolderPool();
+        for (int type = 0; type < typeCount; ++type) {
+            mPool.setMaxRecycledViews(type, HOLDER_COUNT);
+        }
+        // Вью-холдеры нужных типов создает адаптер и отдает в пул при отсоединении
+        final BenchmarkAdapter adapter = new BenchmarkAdapter();
+        adapter.setRecycledViewPool(mPool);
+        adapter.set(BenchmarkItem.createList(HOLDER_COUNT, typeCount, 0));
+        adapter.attachToParent(new FakeCollectionParent());
+        adapter.detachFromParent();
+        mHolders = new ChildViewHolder[HOLDER_COUNT];
+        int count = 0;
+        for (int type = 0; type < typeCount; ++type) {
+            ChildViewHolder holder;
+            while ((holder = mPool.getRecycledView(type)) != null) {
+                mHolders[count++] = holder;
+            }
+        }
+        if (count != HOLDER_COUNT) {
+            throw new IllegalStateException("Expected " + HOLDER_COUNT + " holders, got " + count + ".");
+        }
+        mPool.setCapacity(capacity);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOLDER_COUNT * 2)
+    public void putAndGet(final Blackhole blackhole) {
+        for (int i = 0; i < HOLDER_COUNT; ++i) {
+            mPool.putRecycledView(mHolders[i]);
+        }
+        for (int i = 0; i < HOLDER_COUNT; ++i) {
+            final ChildViewHolder holder = mPool.getRecycledView(mHolders[i].getViewType());
+            blackhole.consume(holder);
+        }
+        mPool.clear();
+    }
+}
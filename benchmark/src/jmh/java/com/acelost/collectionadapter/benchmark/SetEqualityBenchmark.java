@@ -0,0 +1,67 @@
+package com.acelost.collectionadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость {@link com.acelost.collectionadapter.AbstractCollectionAdapter#set(List)} для
+ * перечня, равного текущему, и для перечня, отличающегося только последним элементом.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetEqualityBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int itemCount;
+
+    private BenchmarkAdapter mAdapter;
+
+    private List<BenchmarkItem> mItems;
+
+    private List<BenchmarkItem> mEqualItems;
+
+    private List<BenchmarkItem> mLastChangedItems;
+
+    private boolean mAlternateSet;
+
+    @Setup
+    public void setUp() {
+        mItems = BenchmarkItem.createList(itemCount, 1, 0);
+        mEqualItems = BenchmarkItem.createList(itemCount, 1, 0);
+        mLastChangedItems = new ArrayList<>(mEqualItems);
+        final BenchmarkItem last = mLastChangedItems.get(itemCount - 1);
+        mLastChangedItems.set(itemCount - 1, new BenchmarkItem(last.id, last.viewType, last.text + "*"));
+        mAdapter = new BenchmarkAdapter();
+        mAdapter.set(mItems);
+        mAdapter.attachToParent(new FakeCollectionParent());
+    }
+
+    @Benchmark
+    public void setEqual() {
+        mAlternateSet = !mAlternateSet;
+        mAdapter.set(mAlternateSet ? mEqualItems : mItems);
+    }
+
+    @Benchmark
+    public void setLastChanged() {
+        mAlternateSet = !mAlternateSet;
+        mAdapter.set(mAlternateSet ? mLastChangedItems : mItems);
+    }
+}
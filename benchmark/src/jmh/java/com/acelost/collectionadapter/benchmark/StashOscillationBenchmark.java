@@ -0,0 +1,66 @@
+package com.acelost.collectionadapter.benchmark;
+
+import com.acelost.collectionadapter.CollectionStashPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость колебания размера коллекции на delta элементов в конце: при колебании
+ * в пределах стеша вью-холдеры прячутся и показываются без удаления и добавления вью.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StashOscillationBenchmark {
+
+    @Param({"10", "100"})
+    public int itemCount;
+
+    @Param({"1", "3", "8"})
+    public int delta;
+
+    @Param({"false", "true"})
+    public boolean adaptiveStash;
+
+    private BenchmarkAdapter mAdapter;
+
+    private List<BenchmarkItem> mFull;
+
+    private List<BenchmarkItem> mTruncated;
+
+    private boolean mTruncatedSet;
+
+    @Setup
+    public void setUp() {
+        mFull = BenchmarkItem.createList(itemCount, 2, 0);
+        mTruncated = mFull.subList(0, itemCount - delta);
+        mAdapter = new BenchmarkAdapter();
+        if (adaptiveStash) {
+            mAdapter.setStashPolicy(new CollectionStashPolicy());
+        }
+        mAdapter.set(mFull);
+        mAdapter.attachToParent(new FakeCollectionParent());
+    }
+
+    @Benchmark
+    public void oscillate() {
+        mTruncatedSet = !mTruncatedSet;
+        mAdapter.set(mTruncatedSet ? mTruncated : mFull);
+    }
+}
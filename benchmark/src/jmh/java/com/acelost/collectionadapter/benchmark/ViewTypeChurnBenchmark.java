@@ -0,0 +1,58 @@
+package com.acelost.collectionadapter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость смены перечня элементов, при которой у каждой позиции меняется тип вью:
+ * вью-холдеры на позициях не подходят по типу и заменяются.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewTypeChurnBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int itemCount;
+
+    @Param({"2", "4"})
+    public int typeCount;
+
+    private BenchmarkAdapter mAdapter;
+
+    private List<BenchmarkItem> mOriginal;
+
+    private List<BenchmarkItem> mShifted;
+
+    private boolean mShiftedSet;
+
+    @Setup
+    public void setUp() {
+        mOriginal = BenchmarkItem.createList(itemCount, typeCount, 0);
+        mShifted = BenchmarkItem.createList(itemCount, typeCount, 1);
+        mAdapter = new BenchmarkAdapter();
+        mAdapter.set(mOriginal);
+        mAdapter.attachToParent(new FakeCollectionParent());
+    }
+
+    @Benchmark
+    public void swapViewTypes() {
+        mShiftedSet = !mShiftedSet;
+        mAdapter.set(mShiftedSet ? mShifted : mOriginal);
+    }
+}
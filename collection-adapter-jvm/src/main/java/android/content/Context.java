@@ -0,0 +1,7 @@
+package android.content;
+
+/**
+ * Заглушка контекста для запуска библиотеки на JVM.
+ */
+public class Context {
+}
@@ -0,0 +1,7 @@
+package android.content.res;
+
+/**
+ * Заглушка конфигурации для запуска библиотеки на JVM.
+ */
+public class Configuration {
+}
@@ -0,0 +1,60 @@
+package android.graphics;
+
+/**
+ * Заглушка {@code android.graphics.Rect} с той же семантикой границ: [left, right) x [top, bottom).
+ */
+public final class Rect {
+
+    public int left;
+
+    public int top;
+
+    public int right;
+
+    public int bottom;
+
+    public Rect() {
+    }
+
+    public Rect(int left, int top, int right, int bottom) {
+        set(left, top, right, bottom);
+    }
+
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    public void offset(int dx, int dy) {
+        left += dx;
+        right += dx;
+        top += dy;
+        bottom += dy;
+    }
+
+    public boolean intersects(int left, int top, int right, int bottom) {
+        return this.left < right && left < this.right && this.top < bottom && top < this.bottom;
+    }
+
+    public boolean intersect(int left, int top, int right, int bottom) {
+        if (!intersects(left, top, right, bottom)) {
+            return false;
+        }
+        this.left = Math.max(this.left, left);
+        this.top = Math.max(this.top, top);
+        this.right = Math.min(this.right, right);
+        this.bottom = Math.min(this.bottom, bottom);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Rect(" + left + ", " + top + " - " + right + ", " + bottom + ")";
+    }
+}
@@ -0,0 +1,46 @@
+package android.os;
+
+import java.util.ArrayList;
+
+/**
+ * Заглушка {@code android.os.Handler}. Сообщения накапливаются в общей очереди
+ * и выполняются явно методом {@link #runPending()}.
+ */
+public class Handler {
+
+    private static final ArrayList<Runnable> sQueue = new ArrayList<>();
+
+    public Handler(Looper looper) {
+    }
+
+    public final boolean post(Runnable r) {
+        synchronized (sQueue) {
+            sQueue.add(r);
+        }
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        synchronized (sQueue) {
+            while (sQueue.remove(r)) {
+                // remove all
+            }
+        }
+    }
+
+    /**
+     * Выполнить все накопленные сообщения.
+     */
+    public static void runPending() {
+        while (true) {
+            final Runnable r;
+            synchronized (sQueue) {
+                if (sQueue.isEmpty()) {
+                    return;
+                }
+                r = sQueue.remove(0);
+            }
+            r.run();
+        }
+    }
+}
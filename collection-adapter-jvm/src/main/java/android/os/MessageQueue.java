@@ -0,0 +1,40 @@
+package android.os;
+
+import java.util.ArrayList;
+
+/**
+ * Заглушка {@code android.os.MessageQueue}. Обработчики простаивания
+ * вызываются явно методом {@link #runIdleHandlers()}.
+ */
+public final class MessageQueue {
+
+    public interface IdleHandler {
+
+        boolean queueIdle();
+    }
+
+    private final ArrayList<IdleHandler> mIdleHandlers = new ArrayList<>();
+
+    MessageQueue() {
+    }
+
+    public void addIdleHandler(IdleHandler handler) {
+        mIdleHandlers.add(handler);
+    }
+
+    public void removeIdleHandler(IdleHandler handler) {
+        mIdleHandlers.remove(handler);
+    }
+
+    /**
+     * Вызвать обработчики простаивания так, как это сделал бы Looper при опустевшей очереди.
+     */
+    public void runIdleHandlers() {
+        final IdleHandler[] handlers = mIdleHandlers.toArray(new IdleHandler[0]);
+        for (IdleHandler handler : handlers) {
+            if (!handler.queueIdle()) {
+                mIdleHandlers.remove(handler);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package android.os;
+
+/**
+ * Заглушка {@code android.os.Trace}: на JVM секции трассировки не записываются.
+ */
+public final class Trace {
+
+    private Trace() {
+    }
+
+    public static void beginSection(String sectionName) {
+        // do nothing
+    }
+
+    public static void endSection() {
+        // do nothing
+    }
+}
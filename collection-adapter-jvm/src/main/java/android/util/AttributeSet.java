@@ -0,0 +1,7 @@
+package android.util;
+
+/**
+ * Заглушка {@code android.util.AttributeSet}.
+ */
+public interface AttributeSet {
+}
@@ -0,0 +1,15 @@
+package android.util;
+
+/**
+ * Заглушка {@code android.util.Log}, пишущая в стандартный вывод.
+ */
+public final class Log {
+
+    private Log() {
+    }
+
+    public static int i(String tag, String msg) {
+        System.out.println(tag + ": " + msg);
+        return 0;
+    }
+}
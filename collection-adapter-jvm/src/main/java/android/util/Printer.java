@@ -0,0 +1,9 @@
+package android.util;
+
+/**
+ * Заглушка {@code android.util.Printer}.
+ */
+public interface Printer {
+
+    void println(String x);
+}
@@ -0,0 +1,47 @@
+package android.view;
+
+import java.util.ArrayList;
+
+/**
+ * Заглушка {@code android.view.Choreographer}. Кадр выполняется явно методом {@link #doFrame()}.
+ */
+public final class Choreographer {
+
+    public interface FrameCallback {
+
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final Choreographer sInstance = new Choreographer();
+
+    private final ArrayList<FrameCallback> mCallbacks = new ArrayList<>();
+
+    private Choreographer() {
+    }
+
+    public static Choreographer getInstance() {
+        return sInstance;
+    }
+
+    public void postFrameCallback(FrameCallback callback) {
+        mCallbacks.add(callback);
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        while (mCallbacks.remove(callback)) {
+            // remove all
+        }
+    }
+
+    /**
+     * Выполнить обработчики, запланированные на следующий кадр.
+     */
+    public void doFrame() {
+        final FrameCallback[] callbacks = mCallbacks.toArray(new FrameCallback[0]);
+        mCallbacks.clear();
+        final long frameTimeNanos = System.nanoTime();
+        for (FrameCallback callback : callbacks) {
+            callback.doFrame(frameTimeNanos);
+        }
+    }
+}
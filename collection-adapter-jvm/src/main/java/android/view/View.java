@@ -0,0 +1,313 @@
+package android.view;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+
+/**
+ * Легковесная заглушка {@code android.view.View}: хранит контекст, видимость, родителя,
+ * параметры макета, размеры и прокрутку, без отрисовки. Присоединение к окну моделируется
+ * методами {@link #dispatchAttachedToWindow()} и {@link #dispatchDetachedFromWindow()}.
+ */
+public class View {
+
+    public static final int VISIBLE = 0x00000000;
+
+    public static final int INVISIBLE = 0x00000004;
+
+    public static final int GONE = 0x00000008;
+
+    public static class MeasureSpec {
+
+        private static final int MODE_SHIFT = 30;
+
+        private static final int MODE_MASK = 0x3 << MODE_SHIFT;
+
+        public static final int UNSPECIFIED = 0;
+
+        public static final int EXACTLY = 1 << MODE_SHIFT;
+
+        public static final int AT_MOST = 2 << MODE_SHIFT;
+
+        public static int makeMeasureSpec(int size, int mode) {
+            return (size & ~MODE_MASK) | (mode & MODE_MASK);
+        }
+
+        public static int getMode(int measureSpec) {
+            return measureSpec & MODE_MASK;
+        }
+
+        public static int getSize(int measureSpec) {
+            return measureSpec & ~MODE_MASK;
+        }
+    }
+
+    private final Context mContext;
+
+    private int mVisibility = VISIBLE;
+
+    ViewParent mParent;
+
+    private ViewGroup.LayoutParams mLayoutParams;
+
+    private int mMeasuredWidth;
+
+    private int mMeasuredHeight;
+
+    private int mLeft;
+
+    private int mTop;
+
+    private int mRight;
+
+    private int mBottom;
+
+    private boolean mLayoutRequested = true;
+
+    private int mPaddingLeft;
+
+    private int mPaddingTop;
+
+    private int mPaddingRight;
+
+    private int mPaddingBottom;
+
+    private int mScrollX;
+
+    private int mScrollY;
+
+    private boolean mAttachedToWindow;
+
+    /**
+     * Наблюдатель корня иерархии; создается лениво.
+     */
+    private ViewTreeObserver mTreeObserver;
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public View(Context context, AttributeSet attrs) {
+        this(context);
+    }
+
+    public View(Context context, AttributeSet attrs, int defStyleAttr) {
+        this(context);
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public int getVisibility() {
+        return mVisibility;
+    }
+
+    public void setVisibility(int visibility) {
+        mVisibility = visibility;
+    }
+
+    public final ViewParent getParent() {
+        return mParent;
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return mLayoutParams;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        mLayoutParams = params;
+        requestLayout();
+    }
+
+    void assignLayoutParams(ViewGroup.LayoutParams params) {
+        mLayoutParams = params;
+    }
+
+    public void requestLayout() {
+        mLayoutRequested = true;
+        if (mParent instanceof View) {
+            ((View) mParent).requestLayout();
+        }
+    }
+
+    public void forceLayout() {
+        mLayoutRequested = true;
+    }
+
+    public boolean isLayoutRequested() {
+        return mLayoutRequested;
+    }
+
+    public final void measure(int widthMeasureSpec, int heightMeasureSpec) {
+        onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(getDefaultSize(0, widthMeasureSpec), getDefaultSize(0, heightMeasureSpec));
+    }
+
+    protected final void setMeasuredDimension(int measuredWidth, int measuredHeight) {
+        mMeasuredWidth = measuredWidth;
+        mMeasuredHeight = measuredHeight;
+    }
+
+    public final int getMeasuredWidth() {
+        return mMeasuredWidth;
+    }
+
+    public final int getMeasuredHeight() {
+        return mMeasuredHeight;
+    }
+
+    public void layout(int l, int t, int r, int b) {
+        mLeft = l;
+        mTop = t;
+        mRight = r;
+        mBottom = b;
+        mLayoutRequested = false;
+        onLayout(true, l, t, r, b);
+    }
+
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        // do nothing
+    }
+
+    public final int getLeft() {
+        return mLeft;
+    }
+
+    public final int getTop() {
+        return mTop;
+    }
+
+    public final int getWidth() {
+        return mRight - mLeft;
+    }
+
+    public final int getHeight() {
+        return mBottom - mTop;
+    }
+
+    public void setPadding(int left, int top, int right, int bottom) {
+        mPaddingLeft = left;
+        mPaddingTop = top;
+        mPaddingRight = right;
+        mPaddingBottom = bottom;
+        requestLayout();
+    }
+
+    public int getPaddingLeft() {
+        return mPaddingLeft;
+    }
+
+    public int getPaddingTop() {
+        return mPaddingTop;
+    }
+
+    public int getPaddingRight() {
+        return mPaddingRight;
+    }
+
+    public int getPaddingBottom() {
+        return mPaddingBottom;
+    }
+
+    public static int getDefaultSize(int size, int measureSpec) {
+        final int specMode = MeasureSpec.getMode(measureSpec);
+        return specMode == MeasureSpec.EXACTLY || specMode == MeasureSpec.AT_MOST
+                ? MeasureSpec.getSize(measureSpec) : size;
+    }
+
+    public static int resolveSize(int size, int measureSpec) {
+        final int specMode = MeasureSpec.getMode(measureSpec);
+        final int specSize = MeasureSpec.getSize(measureSpec);
+        if (specMode == MeasureSpec.EXACTLY) {
+            return specSize;
+        }
+        if (specMode == MeasureSpec.AT_MOST) {
+            return Math.min(size, specSize);
+        }
+        return size;
+    }
+
+    public final int getScrollX() {
+        return mScrollX;
+    }
+
+    public final int getScrollY() {
+        return mScrollY;
+    }
+
+    public void scrollTo(int x, int y) {
+        if (mScrollX != x || mScrollY != y) {
+            mScrollX = x;
+            mScrollY = y;
+            getViewTreeObserver().dispatchOnScrollChanged();
+        }
+    }
+
+    public ViewTreeObserver getViewTreeObserver() {
+        View root = this;
+        while (root.mParent instanceof View) {
+            root = (View) root.mParent;
+        }
+        if (root.mTreeObserver == null) {
+            root.mTreeObserver = new ViewTreeObserver();
+        }
+        return root.mTreeObserver;
+    }
+
+    public boolean isAttachedToWindow() {
+        return mAttachedToWindow;
+    }
+
+    /**
+     * Присоединить вью к окну. Для корня иерархии вызывается явно.
+     */
+    public void dispatchAttachedToWindow() {
+        mAttachedToWindow = true;
+        onAttachedToWindow();
+    }
+
+    /**
+     * Отсоединить вью от окна. Для корня иерархии вызывается явно.
+     */
+    public void dispatchDetachedFromWindow() {
+        onDetachedFromWindow();
+        mAttachedToWindow = false;
+    }
+
+    protected void onAttachedToWindow() {
+        // do nothing
+    }
+
+    protected void onDetachedFromWindow() {
+        // do nothing
+    }
+
+    /**
+     * Та же логика, что и в платформенной реализации, без учета матриц преобразования:
+     * границы вью последовательно отсекаются границами родительских вью с учетом их прокрутки.
+     */
+    public boolean getLocalVisibleRect(Rect r) {
+        r.set(0, 0, getWidth(), getHeight());
+        int offsetX = 0;
+        int offsetY = 0;
+        View view = this;
+        while (view.mParent instanceof View) {
+            final View parent = (View) view.mParent;
+            final int dx = view.mLeft - parent.mScrollX;
+            final int dy = view.mTop - parent.mScrollY;
+            r.offset(dx, dy);
+            offsetX += dx;
+            offsetY += dy;
+            if (!r.intersect(0, 0, parent.getWidth(), parent.getHeight())) {
+                return false;
+            }
+            view = parent;
+        }
+        r.offset(-offsetX, -offsetY);
+        return !r.isEmpty();
+    }
+}
@@ -0,0 +1,196 @@
+package android.view;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import java.util.Arrays;
+
+/**
+ * Легковесная заглушка {@code android.view.ViewGroup}: хранит дочерние вью в массиве
+ * так же, как платформенная реализация, без измерения и отрисовки.
+ */
+public class ViewGroup extends View implements ViewParent {
+
+    public static class LayoutParams {
+
+        public static final int MATCH_PARENT = -1;
+
+        public static final int WRAP_CONTENT = -2;
+
+        public int width;
+
+        public int height;
+
+        public LayoutParams(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public LayoutParams(Context context, AttributeSet attrs) {
+            this(WRAP_CONTENT, WRAP_CONTENT);
+        }
+
+        public LayoutParams(LayoutParams source) {
+            this(source.width, source.height);
+        }
+    }
+
+    public static class MarginLayoutParams extends LayoutParams {
+
+        public int leftMargin;
+
+        public int topMargin;
+
+        public int rightMargin;
+
+        public int bottomMargin;
+
+        public MarginLayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public MarginLayoutParams(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        public MarginLayoutParams(MarginLayoutParams source) {
+            super(source);
+            leftMargin = source.leftMargin;
+            topMargin = source.topMargin;
+            rightMargin = source.rightMargin;
+            bottomMargin = source.bottomMargin;
+        }
+
+        public MarginLayoutParams(LayoutParams source) {
+            super(source);
+        }
+    }
+
+    private View[] mChildren = new View[12];
+
+    private int mChildrenCount;
+
+    public ViewGroup(Context context) {
+        super(context);
+    }
+
+    public ViewGroup(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public ViewGroup(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    protected LayoutParams generateLayoutParams(LayoutParams params) {
+        return params;
+    }
+
+    protected boolean checkLayoutParams(LayoutParams params) {
+        return params != null;
+    }
+
+    /**
+     * Та же логика, что и в платформенной реализации.
+     */
+    public static int getChildMeasureSpec(int spec, int padding, int childDimension) {
+        final int specMode = MeasureSpec.getMode(spec);
+        final int size = Math.max(0, MeasureSpec.getSize(spec) - padding);
+        int resultSize = 0;
+        int resultMode = 0;
+        if (childDimension >= 0) {
+            resultSize = childDimension;
+            resultMode = MeasureSpec.EXACTLY;
+        } else if (specMode == MeasureSpec.EXACTLY) {
+            resultSize = size;
+            resultMode = childDimension == LayoutParams.MATCH_PARENT ? MeasureSpec.EXACTLY : MeasureSpec.AT_MOST;
+        } else if (specMode == MeasureSpec.AT_MOST) {
+            resultSize = size;
+            resultMode = MeasureSpec.AT_MOST;
+        }
+        return MeasureSpec.makeMeasureSpec(resultSize, resultMode);
+    }
+
+    public int getChildCount() {
+        return mChildrenCount;
+    }
+
+    public View getChildAt(int index) {
+        return index < 0 || index >= mChildrenCount ? null : mChildren[index];
+    }
+
+    public int indexOfChild(View child) {
+        for (int i = 0; i < mChildrenCount; ++i) {
+            if (mChildren[i] == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    protected boolean addViewInLayout(View child, int index, LayoutParams params, boolean preventRequestLayout) {
+        if (child.mParent != null) {
+            throw new IllegalStateException("The specified child already has a parent.");
+        }
+        if (index < 0) {
+            index = mChildrenCount;
+        }
+        if (mChildrenCount == mChildren.length) {
+            mChildren = Arrays.copyOf(mChildren, mChildrenCount * 2);
+        }
+        System.arraycopy(mChildren, index, mChildren, index + 1, mChildrenCount - index);
+        mChildren[index] = child;
+        ++mChildrenCount;
+        child.mParent = this;
+        if (params != null) {
+            child.assignLayoutParams(params);
+        }
+        if (isAttachedToWindow()) {
+            child.dispatchAttachedToWindow();
+        }
+        return true;
+    }
+
+    public void removeViewInLayout(View view) {
+        final int index = indexOfChild(view);
+        if (index >= 0) {
+            removeViewsInLayout(index, 1);
+        }
+    }
+
+    public void removeViewsInLayout(int start, int count) {
+        for (int i = start; i < start + count; ++i) {
+            if (mChildren[i].isAttachedToWindow()) {
+                mChildren[i].dispatchDetachedFromWindow();
+            }
+            mChildren[i].mParent = null;
+        }
+        System.arraycopy(mChildren, start + count, mChildren, start, mChildrenCount - start - count);
+        Arrays.fill(mChildren, mChildrenCount - count, mChildrenCount, null);
+        mChildrenCount -= count;
+    }
+
+    @Override
+    public void dispatchAttachedToWindow() {
+        super.dispatchAttachedToWindow();
+        for (int i = 0; i < mChildrenCount; ++i) {
+            mChildren[i].dispatchAttachedToWindow();
+        }
+    }
+
+    @Override
+    public void dispatchDetachedFromWindow() {
+        for (int i = 0; i < mChildrenCount; ++i) {
+            mChildren[i].dispatchDetachedFromWindow();
+        }
+        super.dispatchDetachedFromWindow();
+    }
+}
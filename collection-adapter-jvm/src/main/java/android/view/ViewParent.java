@@ -0,0 +1,7 @@
+package android.view;
+
+/**
+ * Заглушка {@code android.view.ViewParent}.
+ */
+public interface ViewParent {
+}
@@ -0,0 +1,60 @@
+package android.view;
+
+import java.util.ArrayList;
+
+/**
+ * Заглушка {@code android.view.ViewTreeObserver}. Один наблюдатель на корень иерархии,
+ * события рассылаются явно методами {@link #dispatchOnGlobalLayout()} и
+ * {@link #dispatchOnScrollChanged()} (последний также вызывается из {@link View#scrollTo(int, int)}).
+ */
+public final class ViewTreeObserver {
+
+    public interface OnGlobalLayoutListener {
+
+        void onGlobalLayout();
+    }
+
+    public interface OnScrollChangedListener {
+
+        void onScrollChanged();
+    }
+
+    private final ArrayList<OnGlobalLayoutListener> mGlobalLayoutListeners = new ArrayList<>();
+
+    private final ArrayList<OnScrollChangedListener> mScrollChangedListeners = new ArrayList<>();
+
+    ViewTreeObserver() {
+    }
+
+    public boolean isAlive() {
+        return true;
+    }
+
+    public void addOnGlobalLayoutListener(OnGlobalLayoutListener listener) {
+        mGlobalLayoutListeners.add(listener);
+    }
+
+    public void removeOnGlobalLayoutListener(OnGlobalLayoutListener listener) {
+        mGlobalLayoutListeners.remove(listener);
+    }
+
+    public void addOnScrollChangedListener(OnScrollChangedListener listener) {
+        mScrollChangedListeners.add(listener);
+    }
+
+    public void removeOnScrollChangedListener(OnScrollChangedListener listener) {
+        mScrollChangedListeners.remove(listener);
+    }
+
+    public void dispatchOnGlobalLayout() {
+        for (OnGlobalLayoutListener listener : new ArrayList<>(mGlobalLayoutListeners)) {
+            listener.onGlobalLayout();
+        }
+    }
+
+    public void dispatchOnScrollChanged() {
+        for (OnScrollChangedListener listener : new ArrayList<>(mScrollChangedListeners)) {
+            listener.onScrollChanged();
+        }
+    }
+}
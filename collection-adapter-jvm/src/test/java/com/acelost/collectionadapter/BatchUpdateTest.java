@@ -0,0 +1,118 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Пакетные обновления: явные {@link CollectionAdapter#beginBatch()}/{@link CollectionAdapter#endBatch()}
+ * и автоматический режим, объединяющий изменения до следующего кадра.
+ */
+public class BatchUpdateTest {
+
+    private TestAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mParent = new TestCollectionParent();
+        mAdapter.set(TestItem.createList(2));
+        mAdapter.attachToParent(mParent);
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void explicitBatchReconcilesOnceAtEnd() {
+        final TestAdapter.Holder first = mAdapter.getViewHolder(0);
+        final int layoutRequests = mParent.layoutRequests;
+
+        mAdapter.beginBatch();
+        mAdapter.set(TestItem.createList(4));
+        mAdapter.notifyDataChanged();
+        mAdapter.set(Arrays.asList(new TestItem(0, 0), new TestItem(1, 0), new TestItem(2, 0)));
+        assertEquals(2, mParent.getChildCount());
+        assertEquals(layoutRequests, mParent.layoutRequests);
+
+        mAdapter.endBatch();
+        assertEquals(3, mParent.getChildCount());
+        assertSame(first, mAdapter.getViewHolder(0));
+        assertEquals(new TestItem(2, 0), mAdapter.getViewHolder(2).item);
+        assertEquals(layoutRequests + 1, mParent.layoutRequests);
+    }
+
+    @Test
+    public void nestedBatchIsFlushedByOuterEnd() {
+        mAdapter.beginBatch();
+        mAdapter.beginBatch();
+        mAdapter.set(TestItem.createList(3));
+        mAdapter.endBatch();
+        assertEquals(2, mParent.getChildCount());
+
+        mAdapter.endBatch();
+        assertEquals(3, mParent.getChildCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unpairedEndBatchThrows() {
+        mAdapter.endBatch();
+    }
+
+    @Test
+    public void autoBatchAppliesChangesOnNextFrame() {
+        final int layoutRequests = mParent.layoutRequests;
+        mAdapter.setAutoBatchEnabled(true);
+        assertTrue(mAdapter.isAutoBatchEnabled());
+
+        mAdapter.set(TestItem.createList(3));
+        mAdapter.notifyDataChanged();
+        mAdapter.set(TestItem.createList(4));
+        assertEquals(2, mParent.getChildCount());
+        assertEquals(layoutRequests, mParent.layoutRequests);
+
+        Choreographer.getInstance().doFrame();
+        assertEquals(4, mParent.getChildCount());
+        assertEquals(new TestItem(3, 0), mAdapter.getViewHolder(3).item);
+        assertEquals(layoutRequests + 1, mParent.layoutRequests);
+    }
+
+    @Test
+    public void disablingAutoBatchFlushesPendingChanges() {
+        mAdapter.setAutoBatchEnabled(true);
+        mAdapter.set(TestItem.createList(3));
+
+        mAdapter.setAutoBatchEnabled(false);
+        assertFalse(mAdapter.isAutoBatchEnabled());
+        assertEquals(3, mParent.getChildCount());
+    }
+
+    @Test
+    public void detachDropsPendingAutoBatch() {
+        mAdapter.setAutoBatchEnabled(true);
+        mAdapter.set(TestItem.createList(3));
+        mAdapter.detachFromParent();
+        Choreographer.getInstance().doFrame();
+
+        // Перечень задан, а согласование выполняется при следующем присоединении
+        assertEquals(3, mAdapter.getItemCount());
+        mAdapter.setAutoBatchEnabled(false);
+        final TestCollectionParent parent = new TestCollectionParent();
+        mAdapter.attachToParent(parent);
+        assertEquals(3, parent.getChildCount());
+    }
+}
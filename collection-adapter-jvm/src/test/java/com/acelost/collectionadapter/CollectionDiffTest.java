@@ -0,0 +1,276 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Вычисление разницы коллекций {@link CollectionDiff} и передача операций обновления.
+ */
+public class CollectionDiffTest {
+
+    @Test
+    public void equalListsProduceEmptyResult() {
+        final List<TestItem> items = TestItem.createList(5);
+        final CollectionDiff.Result result = calculate(items, new ArrayList<>(items), true);
+
+        assertTrue(result.isEmpty());
+        assertEquals(5, result.getUnchangedCount());
+    }
+
+    @Test
+    public void changedItemIsReportedWithPayload() {
+        final List<TestItem> oldItems = TestItem.createList(3);
+        final List<TestItem> newItems = new ArrayList<>(oldItems);
+        newItems.set(1, new TestItem(1, 1));
+        final RecordingCallback callback = new RecordingCallback();
+
+        calculate(oldItems, newItems, true).dispatchUpdatesTo(callback);
+
+        assertEquals(Collections.singletonList("changed 1 1 payload"), callback.operations);
+    }
+
+    @Test
+    public void oldPositionsOfInsertedItemsAreUnknown() {
+        final List<TestItem> oldItems = Arrays.asList(new TestItem(1, 0), new TestItem(2, 0));
+        final List<TestItem> newItems = Arrays.asList(new TestItem(1, 0), new TestItem(3, 0), new TestItem(2, 0));
+        final CollectionDiff.Result result = calculate(oldItems, newItems, true);
+
+        assertEquals(0, result.getOldPosition(0));
+        assertEquals(CollectionParent.NO_POSITION, result.getOldPosition(1));
+        assertEquals(1, result.getOldPosition(2));
+        assertFalse(result.isEmpty());
+    }
+
+    @Test
+    public void moveIsDispatchedAsSingleOperation() {
+        final List<TestItem> oldItems = TestItem.createList(4);
+        final List<TestItem> newItems = Arrays.asList(oldItems.get(3), oldItems.get(0), oldItems.get(1), oldItems.get(2));
+        final RecordingCallback callback = new RecordingCallback();
+
+        calculate(oldItems, newItems, true).dispatchUpdatesTo(callback);
+
+        assertEquals(Collections.singletonList("moved 3 0"), callback.operations);
+    }
+
+    @Test
+    public void randomListsAreTransformedIntoNewList() {
+        final Random random = new Random(1);
+        for (int run = 0; run < 500; ++run) {
+            final List<TestItem> oldItems = randomList(random);
+            final List<TestItem> newItems = randomList(random);
+            final boolean detectMoves = random.nextBoolean();
+            final ApplyingCallback callback = new ApplyingCallback(oldItems, newItems);
+
+            calculate(oldItems, newItems, detectMoves).dispatchUpdatesTo(callback);
+
+            assertEquals(oldItems + " -> " + newItems, newItems, callback.items);
+        }
+    }
+
+    @Test
+    public void unrelatedListsSkipMoveDetection() {
+        final List<TestItem> oldItems = createList(0, 200);
+        final List<TestItem> newItems = createList(1000, 200);
+        final ItemsCallback withMoves = new ItemsCallback(oldItems, newItems);
+        final ItemsCallback withoutMoves = new ItemsCallback(oldItems, newItems);
+
+        CollectionDiff.calculate(withMoves, true);
+        CollectionDiff.calculate(withoutMoves, false);
+
+        assertEquals(withoutMoves.comparisons, withMoves.comparisons);
+    }
+
+    @Test
+    public void movesAreNotDetectedAmongTooManyPairs() {
+        final List<TestItem> oldItems = createList(0, 300);
+        final List<TestItem> newItems = new ArrayList<>(oldItems);
+        Collections.reverse(newItems);
+        final ItemsCallback callback = new ItemsCallback(oldItems, newItems);
+
+        final CollectionDiff.Result result = CollectionDiff.calculate(callback, true);
+
+        assertTrue(299L * 299L > CollectionDiff.MAX_MOVE_DETECTION_PAIRS);
+        assertEquals(1, result.getUnchangedCount());
+        final ApplyingCallback applying = new ApplyingCallback(oldItems, newItems);
+        result.dispatchUpdatesTo(applying);
+        assertEquals(newItems, applying.items);
+    }
+
+    @Test
+    public void editDistanceLimitStopsComparison() {
+        final List<TestItem> oldItems = createList(0, 500);
+        final ItemsCallback unrelated = new ItemsCallback(oldItems, createList(1000, 500));
+
+        assertNull(CollectionDiff.calculate(unrelated, true, 20));
+        assertTrue(String.valueOf(unrelated.comparisons), unrelated.comparisons < 1000 * 20);
+
+        final List<TestItem> newItems = new ArrayList<>(oldItems);
+        newItems.subList(100, 105).clear();
+        newItems.add(300, new TestItem(2000, 0));
+        assertNotNull(CollectionDiff.calculate(new ItemsCallback(oldItems, newItems), true, 20));
+    }
+
+    @NonNull
+    private static CollectionDiff.Result calculate(@NonNull final List<TestItem> oldItems,
+                                                   @NonNull final List<TestItem> newItems,
+                                                   final boolean detectMoves) {
+        return CollectionDiff.calculate(new ItemsCallback(oldItems, newItems), detectMoves);
+    }
+
+    /**
+     * Перечень элементов с идентификаторами [start, start + count).
+     */
+    @NonNull
+    private static List<TestItem> createList(final long start, final int count) {
+        final List<TestItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            items.add(new TestItem(start + i, 0));
+        }
+        return items;
+    }
+
+    /**
+     * Случайный перечень элементов с уникальными идентификаторами из небольшого диапазона.
+     */
+    @NonNull
+    private static List<TestItem> randomList(@NonNull final Random random) {
+        final List<Long> ids = new ArrayList<>();
+        for (long id = 0; id < 12; ++id) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, random);
+        final int size = random.nextInt(ids.size());
+        final List<TestItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            items.add(new TestItem(ids.get(i), random.nextInt(2)));
+        }
+        return items;
+    }
+
+    /**
+     * Сравнивает элементы по идентификаторам и считает сравнения.
+     */
+    private static final class ItemsCallback extends CollectionDiff.Callback {
+
+        @NonNull
+        private final List<TestItem> mOldItems;
+
+        @NonNull
+        private final List<TestItem> mNewItems;
+
+        int comparisons;
+
+        ItemsCallback(@NonNull final List<TestItem> oldItems, @NonNull final List<TestItem> newItems) {
+            mOldItems = oldItems;
+            mNewItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(final int oldPosition, final int newPosition) {
+            ++comparisons;
+            return mOldItems.get(oldPosition).id == mNewItems.get(newPosition).id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(final int oldPosition, final int newPosition) {
+            return mOldItems.get(oldPosition).equals(mNewItems.get(newPosition));
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(final int oldPosition, final int newPosition) {
+            return "payload";
+        }
+    }
+
+    /**
+     * Записывает операции обновления в виде строк.
+     */
+    private static final class RecordingCallback implements CollectionUpdateCallback {
+
+        final List<String> operations = new ArrayList<>();
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            operations.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            operations.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            operations.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            operations.add("changed " + position + " " + count + " " + payload);
+        }
+    }
+
+    /**
+     * Применяет операции обновления к копии старого перечня. Вставленные и измененные
+     * элементы берутся из нового перечня, поэтому после всех операций копия должна совпасть с ним.
+     */
+    private static final class ApplyingCallback implements CollectionUpdateCallback {
+
+        final List<TestItem> items;
+
+        @NonNull
+        private final List<TestItem> mNewItems;
+
+        ApplyingCallback(@NonNull final List<TestItem> oldItems, @NonNull final List<TestItem> newItems) {
+            items = new ArrayList<>(oldItems);
+            mNewItems = newItems;
+        }
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            items.addAll(position, mNewItems.subList(position, position + count));
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            items.subList(position, position + count).clear();
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            items.add(toPosition, items.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            for (int i = position; i < position + count; ++i) {
+                items.set(i, mNewItems.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.acelost.collectionadapter;
+
+import android.util.Printer;
+import android.view.Choreographer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Журнал событий {@link CollectionEventLog} и его включение через {@link CollectionAdapterEnvironment}.
+ */
+public class CollectionEventLogTest {
+
+    @After
+    public void tearDown() {
+        CollectionAdapterEnvironment.EVENT_LOG_ENABLED = false;
+        CollectionAdapterEnvironment.getEventLog().clear();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void oldestEventsAreEvictedWhenLogIsFull() {
+        final CollectionEventLog log = new CollectionEventLog(2);
+        final Object source = new Object();
+
+        log.record(CollectionEventLog.EVENT_VIEW_HOLDER_CREATED, 1, source);
+        log.record(CollectionEventLog.EVENT_POOL_HIT, 2, source);
+        log.record(CollectionEventLog.EVENT_POOL_OVERFLOW, 3, source);
+
+        final List<String> lines = dump(log);
+        assertEquals(2, log.size());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0), lines.get(0).contains("pool_hit type=2"));
+        assertTrue(lines.get(1), lines.get(1).contains("pool_overflow type=3"));
+    }
+
+    @Test
+    public void eventsAreRecordedOnlyWhenEventLogIsEnabled() {
+        final TestAdapter adapter = new TestAdapter();
+        adapter.set(TestItem.createList(2));
+        adapter.attachToParent(new TestCollectionParent());
+        assertEquals(0, CollectionAdapterEnvironment.getEventLog().size());
+        adapter.detachFromParent();
+
+        CollectionAdapterEnvironment.EVENT_LOG_ENABLED = true;
+        adapter.attachToParent(new TestCollectionParent());
+        adapter.detachFromParent();
+
+        assertEquals(2, CollectionAdapterEnvironment.getEventLog().size());
+    }
+
+    private static List<String> dump(final CollectionEventLog log) {
+        final List<String> lines = new ArrayList<>();
+        log.dump(new Printer() {
+            @Override
+            public void println(final String x) {
+                lines.add(x);
+            }
+        });
+        return lines;
+    }
+}
@@ -0,0 +1,116 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Изменение {@link CollectionSnapshot} и объединение измененных участков цепочки снимков.
+ */
+public class CollectionSnapshotTest {
+
+    @Test
+    public void ofReturnsSnapshotAsIs() {
+        final CollectionSnapshot<TestItem> snapshot = CollectionSnapshot.of(TestItem.createList(3));
+
+        assertSame(snapshot, CollectionSnapshot.of(snapshot));
+        assertEquals(CollectionSnapshot.NO_VERSION, snapshot.getBaseVersion());
+    }
+
+    @Test
+    public void changedRangeOfSingleEdit() {
+        final CollectionSnapshot<TestItem> base = CollectionSnapshot.of(TestItem.createList(100));
+        final CollectionSnapshot<TestItem> snapshot = base.withReplaced(40, 42,
+                Arrays.asList(new TestItem(200, 0), new TestItem(201, 0), new TestItem(202, 0)));
+        final int[] range = new int[3];
+
+        assertEquals(base.getVersion(), snapshot.getBaseVersion());
+        assertTrue(snapshot.getChangedRange(base.getVersion(), range));
+        assertEquals(Arrays.asList(40, 42, 43), Arrays.asList(range[0], range[1], range[2]));
+        assertFalse(base.getChangedRange(snapshot.getVersion(), range));
+    }
+
+    @Test
+    public void randomEditChainsKeepItemsAndRanges() {
+        final Random random = new Random(3);
+        for (int run = 0; run < 50; ++run) {
+            final List<CollectionSnapshot<TestItem>> chain = new ArrayList<>();
+            final List<List<TestItem>> expected = new ArrayList<>();
+            List<TestItem> items = TestItem.createList(random.nextInt(150));
+            chain.add(CollectionSnapshot.of(items));
+            expected.add(items);
+            long nextId = 1000;
+            for (int step = 0; step < 20; ++step) {
+                final CollectionSnapshot<TestItem> last = chain.get(chain.size() - 1);
+                items = new ArrayList<>(items);
+                final int start = random.nextInt(items.size() + 1);
+                final int end = start + random.nextInt(Math.min(items.size() - start, 40) + 1);
+                final List<TestItem> inserted = new ArrayList<>();
+                for (int i = random.nextInt(40); i > 0; --i) {
+                    inserted.add(new TestItem(nextId++, 0));
+                }
+                items.subList(start, end).clear();
+                items.addAll(start, inserted);
+                chain.add(last.withReplaced(start, end, inserted));
+                expected.add(items);
+            }
+            final int[] range = new int[3];
+            final CollectionSnapshot<TestItem> last = chain.get(chain.size() - 1);
+            assertEquals(items, last);
+            for (int i = 0; i < chain.size() - 1; ++i) {
+                final boolean known = last.getChangedRange(chain.get(i).getVersion(), range);
+                // Участки известны относительно восьми предыдущих снимков цепочки
+                assertEquals(i >= chain.size() - 9, known);
+                if (known) {
+                    assertRangeCoversChanges(expected.get(i), last, range);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void adapterAppliesSnapshotEdits() {
+        final TestAdapter adapter = new TestAdapter();
+        CollectionSnapshot<TestItem> snapshot = CollectionSnapshot.of(TestItem.createList(50));
+        adapter.set(snapshot);
+        adapter.attachToParent(new TestCollectionParent());
+        final TestAdapter.Holder unchanged = adapter.getViewHolder(45);
+
+        snapshot = snapshot.withRemoved(3).withInserted(10, new TestItem(100, 0)).with(20, new TestItem(21, 1));
+        adapter.set(snapshot);
+        Choreographer.getInstance().doFrame();
+
+        assertSame(unchanged, adapter.getViewHolder(45));
+        assertEquals(1, unchanged.fullBinds);
+        for (int i = 0; i < snapshot.size(); ++i) {
+            assertEquals(snapshot.get(i), adapter.getViewHolder(i).item);
+        }
+        adapter.detachFromParent();
+    }
+
+    /**
+     * Проверить, что элементы до участка и после него совпадают в обоих перечнях.
+     */
+    private static void assertRangeCoversChanges(@NonNull final List<TestItem> oldItems,
+                                                 @NonNull final List<TestItem> newItems,
+                                                 @NonNull final int[] range) {
+        final int start = range[0];
+        final int oldEnd = range[1];
+        final int newEnd = range[2];
+        assertEquals(oldItems.size() - oldEnd, newItems.size() - newEnd);
+        assertEquals(oldItems.subList(0, start), newItems.subList(0, start));
+        assertEquals(oldItems.subList(oldEnd, oldItems.size()), newItems.subList(newEnd, newItems.size()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.acelost.collectionadapter;
+
+import android.util.SparseIntArray;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Размер стеша по истории размера коллекции и количества элементов по типам вью.
+ */
+public class CollectionStashPolicyTest {
+
+    @After
+    public void tearDown() {
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void stashCoversRecentItemCountOscillation() {
+        final CollectionStashPolicy policy = new CollectionStashPolicy(8, 0, 16);
+        policy.onItemCountChanged(20);
+        policy.onItemCountChanged(4);
+
+        assertEquals(16, policy.getStashSize(4));
+        assertEquals(6, policy.getStashSize(14));
+    }
+
+    @Test
+    public void stashCoversViewTypeOscillationOfSameSizedCollection() {
+        final CollectionStashPolicy policy = new CollectionStashPolicy(8, 0, 16);
+        policy.onItemCountChanged(10);
+        policy.onViewTypeCountsChanged(counts(1, 6, 2, 4));
+        policy.onViewTypeCountsChanged(counts(1, 1, 3, 9));
+
+        // Размер не изменился, но стеш вмещает 5 вью-холдеров типа 1 и 4 вью-холдера типа 2
+        assertEquals(9, policy.getStashSize(10));
+    }
+
+    @Test
+    public void oldValuesLeaveHistory() {
+        final CollectionStashPolicy policy = new CollectionStashPolicy(2, 1, 16);
+        policy.onViewTypeCountsChanged(counts(1, 8));
+        policy.onViewTypeCountsChanged(counts(1, 2));
+        policy.onViewTypeCountsChanged(counts(1, 3));
+
+        assertEquals(1, policy.getStashSize(3));
+    }
+
+    @Test
+    public void adapterReportsViewTypeCounts() {
+        final RecordingPolicy policy = new RecordingPolicy();
+        final TestAdapter adapter = new TestAdapter();
+        adapter.setStashPolicy(policy);
+        adapter.set(Arrays.asList(
+                new TestItem(0, 0, 1, 10),
+                new TestItem(1, 0, 2, 10),
+                new TestItem(2, 0, 2, 10)));
+        adapter.attachToParent(new TestCollectionParent());
+
+        adapter.set(Arrays.asList(new TestItem(0, 0, 1, 10), new TestItem(3, 0, 1, 10)));
+
+        assertEquals(1, policy.lastCounts.size());
+        assertEquals(2, policy.lastCounts.get(1));
+        assertEquals(0, policy.lastCounts.get(2, 0));
+        adapter.detachFromParent();
+    }
+
+    @NonNull
+    private static SparseIntArray counts(final int... typesAndCounts) {
+        final SparseIntArray counts = new SparseIntArray();
+        for (int i = 0; i < typesAndCounts.length; i += 2) {
+            counts.put(typesAndCounts[i], typesAndCounts[i + 1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Запоминает копию последнего переданного количества элементов по типам вью.
+     */
+    private static final class RecordingPolicy extends CollectionStashPolicy {
+
+        @NonNull
+        final SparseIntArray lastCounts = new SparseIntArray();
+
+        @Override
+        void onViewTypeCountsChanged(@NonNull final SparseIntArray counts) {
+            super.onViewTypeCountsChanged(counts);
+            lastCounts.clear();
+            for (int i = 0; i < counts.size(); ++i) {
+                lastCounts.put(counts.keyAt(i), counts.valueAt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.acelost.collectionadapter;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Вместимость, вытеснение и изоляция типов в {@link CollectionViewHolderPool}.
+ */
+public class CollectionViewHolderPoolTest {
+
+    private CollectionViewHolderPool mPool;
+
+    @Before
+    public void setUp() {
+        mPool = new CollectionViewHolderPool();
+    }
+
+    @Test
+    public void maxRecycledViewsLimitsType() {
+        mPool.setMaxRecycledViews(1, 2);
+        for (int i = 0; i < 4; ++i) {
+            mPool.putRecycledView(createHolder(1));
+        }
+
+        assertEquals(2, mPool.getRecycledViewCount(1));
+        assertEquals(2, mPool.getRecycledViewCount());
+    }
+
+    @Test
+    public void capacityEvictsLeastRecentlyUsedType() {
+        mPool.setCapacity(4);
+        final TestAdapter.Holder first = createHolder(1);
+        mPool.putRecycledView(first);
+        mPool.putRecycledView(createHolder(1));
+        mPool.putRecycledView(createHolder(2));
+        mPool.putRecycledView(createHolder(2));
+        // Обращение к типу 1 делает тип 2 наиболее давно использовавшимся
+        final ChildViewHolder taken = mPool.getRecycledView(1);
+        mPool.putRecycledView(taken);
+        mPool.putRecycledView(createHolder(3));
+        mPool.putRecycledView(createHolder(3));
+
+        assertEquals(4, mPool.getRecycledViewCount());
+        assertEquals(0, mPool.getRecycledViewCount(2));
+        assertEquals(2, mPool.getRecycledViewCount(1));
+        assertEquals(2, mPool.getRecycledViewCount(3));
+    }
+
+    @Test
+    public void evictionRemovesOldestHolderOfType() {
+        final TestAdapter.Holder oldest = createHolder(1);
+        final TestAdapter.Holder newest = createHolder(1);
+        mPool.putRecycledView(oldest);
+        mPool.putRecycledView(newest);
+
+        mPool.trimToSize(1);
+
+        assertSame(newest, mPool.getRecycledView(1));
+        assertNull(mPool.getRecycledView(1));
+    }
+
+    @Test
+    public void shrinkingCapacityTrimsPool() {
+        for (int i = 0; i < 3; ++i) {
+            mPool.putRecycledView(createHolder(1));
+            mPool.putRecycledView(createHolder(2));
+        }
+
+        mPool.setCapacity(2);
+
+        assertEquals(2, mPool.getRecycledViewCount());
+        assertEquals(2, mPool.getRecycledViewCount(2));
+    }
+
+    @Test
+    public void trimMemoryReleasesHolders() {
+        for (int i = 0; i < 4; ++i) {
+            mPool.putRecycledView(createHolder(i));
+        }
+
+        mPool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(4, mPool.getRecycledViewCount());
+        mPool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(2, mPool.getRecycledViewCount());
+        assertEquals(0, mPool.getRecycledViewCount(0));
+        mPool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        assertEquals(0, mPool.getRecycledViewCount());
+    }
+
+    @Test
+    public void trimMemoryCancelsPrewarm() {
+        mPool.prewarm(1, 3, new CollectionViewHolderPool.ViewHolderFactory() {
+            @NonNull
+            @Override
+            public ChildViewHolder createViewHolder(final int viewType) {
+                return createHolder(viewType);
+            }
+        });
+
+        mPool.onLowMemory();
+        Looper.myQueue().runIdleHandlers();
+
+        assertEquals(0, mPool.getRecycledViewCount());
+    }
+
+    @Test
+    public void prewarmRespectsTypeLimit() {
+        mPool.setMaxRecycledViews(1, 2);
+        mPool.prewarm(1, 5, new CollectionViewHolderPool.ViewHolderFactory() {
+            @NonNull
+            @Override
+            public ChildViewHolder createViewHolder(final int viewType) {
+                return createHolder(viewType);
+            }
+        });
+
+        Looper.myQueue().runIdleHandlers();
+        Looper.myQueue().runIdleHandlers();
+
+        assertEquals(2, mPool.getRecycledViewCount(1));
+    }
+
+    @Test
+    public void isolatedViewTypesDependOnNamespace() {
+        final Object first = new Object();
+        final Object second = new Object();
+
+        final int firstType = mPool.obtainIsolatedViewType(first, 0);
+
+        assertEquals(firstType, mPool.obtainIsolatedViewType(first, 0));
+        assertNotEquals(firstType, mPool.obtainIsolatedViewType(second, 0));
+        assertNotEquals(firstType, mPool.obtainIsolatedViewType(first, 1));
+    }
+
+    @NonNull
+    private static TestAdapter.Holder createHolder(final int viewType) {
+        final TestAdapter.Holder holder = new TestAdapter.Holder(new TestAdapter.ItemView(new Context()));
+        holder.setViewType(viewType);
+        return holder;
+    }
+}
@@ -0,0 +1,148 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Размещение секций {@link ConcatCollectionAdapter} и изоляция их типов вью в общем пуле.
+ */
+public class ConcatCollectionAdapterTest {
+
+    /**
+     * Адаптер, вью которого зависят от параметра конструктора.
+     */
+    private static final class LayoutAdapter extends TestAdapter {
+
+        private final int mLayout;
+
+        LayoutAdapter(final int layout) {
+            mLayout = layout;
+        }
+
+        @NonNull
+        @Override
+        protected Object getViewTypeNamespace() {
+            return mLayout;
+        }
+    }
+
+    private ConcatCollectionAdapter mConcat;
+
+    private TestCollectionParent mParent;
+
+    private final List<TestAdapter> mSections = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mConcat = new ConcatCollectionAdapter();
+        mParent = new TestCollectionParent();
+    }
+
+    @After
+    public void tearDown() {
+        mConcat.detachFromParent();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void sectionsAreLaidOutInOrder() {
+        addSection(2);
+        addSection(3);
+        addSection(1);
+        mConcat.attachToParent(mParent);
+
+        assertEquals(6, mParent.getChildCount());
+        assertSectionsLaidOut();
+        assertNull(mConcat.findAdapterForChild(6));
+    }
+
+    @Test
+    public void sectionChangeShiftsFollowingSections() {
+        addSection(2);
+        addSection(3);
+        addSection(1);
+        mConcat.attachToParent(mParent);
+
+        mSections.get(0).set(TestItem.createList(5));
+
+        assertSectionsLaidOut();
+    }
+
+    @Test
+    public void randomSectionChangesKeepOffsets() {
+        final Random random = new Random(7);
+        for (int i = 0; i < 5; ++i) {
+            addSection(random.nextInt(4));
+        }
+        mConcat.attachToParent(mParent);
+        for (int step = 0; step < 300; ++step) {
+            mSections.get(random.nextInt(mSections.size())).set(TestItem.createList(random.nextInt(8)));
+            assertSectionsLaidOut();
+        }
+    }
+
+    @Test
+    public void sectionsOfOneClassShareViewTypes() {
+        addSection(1);
+        addSection(1);
+        mConcat.attachToParent(mParent);
+
+        assertEquals(mSections.get(0).getViewHolder(0).getViewType(),
+                mSections.get(1).getViewHolder(0).getViewType());
+    }
+
+    @Test
+    public void sectionsWithDifferentNamespacesAreIsolated() {
+        addSection(new LayoutAdapter(1), 1);
+        addSection(new LayoutAdapter(2), 1);
+        mConcat.attachToParent(mParent);
+
+        assertNotEquals(mSections.get(0).getViewHolder(0).getViewType(),
+                mSections.get(1).getViewHolder(0).getViewType());
+    }
+
+    private void addSection(final int itemCount) {
+        addSection(new TestAdapter(), itemCount);
+    }
+
+    private void addSection(@NonNull final TestAdapter adapter, final int itemCount) {
+        adapter.set(TestItem.createList(itemCount));
+        mConcat.addAdapter(adapter);
+        mSections.add(adapter);
+    }
+
+    /**
+     * Проверить, что дочерние вью каждой секции идут подряд с вычисленного смещения секции.
+     */
+    private void assertSectionsLaidOut() {
+        final int childCount = mParent.getChildCount();
+        for (int s = 0; s < mSections.size(); ++s) {
+            final TestAdapter section = mSections.get(s);
+            final int start = mConcat.getSectionStart(s);
+            final int end = mConcat.getSectionEnd(s);
+            for (int i = 0; i < section.getItemCount(); ++i) {
+                assertSame(section.getViewHolder(i).view, mParent.getChildAt(start + i));
+                assertSame(section, mConcat.findAdapterForChild(start + i));
+            }
+            if (s + 1 < mSections.size()) {
+                assertEquals(childCount - end, mConcat.getSectionStart(s + 1));
+            } else {
+                assertEquals(0, end);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.acelost.collectionadapter;
+
+import android.os.Looper;
+import android.view.Choreographer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Отложенная привязка: данные сразу привязываются только к видимому диапазону,
+ * остальные вью-холдеры привязываются при простаивании главного потока или по требованию.
+ */
+public class DeferredBindTest {
+
+    private TestAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mAdapter.setPrefetchMargin(1);
+        mAdapter.setVisibleRange(0, 1);
+        mAdapter.setDeferredBindingEnabled(true);
+        // Одна привязка за простаивание
+        mAdapter.setDeferredBindBudget(0);
+        mAdapter.set(TestItem.createList(6));
+        mParent = new TestCollectionParent();
+        mAdapter.attachToParent(mParent);
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        Looper.myQueue().runIdleHandlers();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void onlyVisibleRangeIsBoundOnAttach() {
+        assertEquals(6, mParent.getChildCount());
+        assertBound(0, 1, 2);
+        assertUnbound(3, 4, 5);
+        assertEquals(0, mAdapter.getViewHolder(3).fullBinds);
+    }
+
+    @Test
+    public void idleMainThreadBindsDeferredHolders() {
+        Looper.myQueue().runIdleHandlers();
+        assertBound(3);
+        assertUnbound(4, 5);
+
+        Looper.myQueue().runIdleHandlers();
+        Looper.myQueue().runIdleHandlers();
+        assertBound(4, 5);
+        assertEquals(new TestItem(5, 0), mAdapter.getViewHolder(5).item);
+    }
+
+    @Test
+    public void visibleRangeShiftBindsImmediately() {
+        mAdapter.setVisibleRange(4, 4);
+
+        assertBound(3, 4, 5);
+        assertEquals(1, mAdapter.getViewHolder(4).fullBinds);
+    }
+
+    @Test
+    public void holderIsBoundOnDemand() {
+        mAdapter.ensureViewHolderBound(5);
+        assertBound(5);
+        assertUnbound(3, 4);
+
+        // Привязанный по требованию вью-холдер не привязывается повторно при простаивании
+        Looper.myQueue().runIdleHandlers();
+        Looper.myQueue().runIdleHandlers();
+        Looper.myQueue().runIdleHandlers();
+        assertEquals(1, mAdapter.getViewHolder(5).fullBinds);
+    }
+
+    @Test
+    public void disablingBindsAllDeferredHolders() {
+        mAdapter.setDeferredBindingEnabled(false);
+
+        assertFalse(mAdapter.isDeferredBindingEnabled());
+        assertBound(3, 4, 5);
+    }
+
+    private void assertBound(final int... positions) {
+        for (int position : positions) {
+            assertTrue("position " + position, mAdapter.getViewHolder(position).isBound());
+        }
+    }
+
+    private void assertUnbound(final int... positions) {
+        for (int position : positions) {
+            assertFalse("position " + position, mAdapter.getViewHolder(position).isBound());
+        }
+    }
+}
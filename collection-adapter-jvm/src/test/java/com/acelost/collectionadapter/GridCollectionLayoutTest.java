@@ -0,0 +1,65 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Измерение {@link GridCollectionLayout} с пропуском измерения не изменившихся дочерних вью.
+ */
+public class GridCollectionLayoutTest {
+
+    private static final int UNSPECIFIED = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+    private GridCollectionLayout mLayout;
+
+    private TestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mLayout = new GridCollectionLayout(new Context());
+        mLayout.setSpanCount(2);
+        mAdapter = new TestAdapter();
+        mAdapter.set(Arrays.asList(new TestItem(1, 0, 0, 30), new TestItem(2, 0, 0, 50)));
+        mAdapter.attachToParent(mLayout);
+    }
+
+    @Test
+    public void unspecifiedWidthUsesWidestChild() {
+        measureAndLayout(UNSPECIFIED);
+
+        assertEquals(100, mLayout.getMeasuredWidth());
+    }
+
+    @Test
+    public void unspecifiedWidthAfterExactWidthUsesWidestChild() {
+        measureAndLayout(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY));
+        measureAndLayout(UNSPECIFIED);
+
+        assertEquals(100, mLayout.getMeasuredWidth());
+        assertEquals(50, mLayout.getChildAt(1).getMeasuredWidth());
+    }
+
+    @Test
+    public void unchangedChildrenAreNotMeasuredAgain() {
+        measureAndLayout(UNSPECIFIED);
+        final TestAdapter.ItemView child = (TestAdapter.ItemView) mLayout.getChildAt(0);
+        final int measureCount = child.measureCount;
+
+        measureAndLayout(UNSPECIFIED);
+
+        assertEquals(measureCount, child.measureCount);
+        assertEquals(100, mLayout.getMeasuredWidth());
+    }
+
+    private void measureAndLayout(final int widthMeasureSpec) {
+        mLayout.measure(widthMeasureSpec, UNSPECIFIED);
+        mLayout.layout(0, 0, mLayout.getMeasuredWidth(), mLayout.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,131 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Постепенное обновление: полная перепривязка распределяется по кадрам,
+ * видимый диапазон согласуется в первую очередь.
+ */
+public class IncrementalUpdateTest {
+
+    private TestAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mAdapter.setPrefetchMargin(0);
+        mAdapter.setVisibleRange(3, 3);
+        mAdapter.set(TestItem.createList(6));
+        mParent = new TestCollectionParent();
+        mAdapter.attachToParent(mParent);
+        mAdapter.setIncrementalUpdatesEnabled(true);
+        // Одна позиция за кадр
+        mAdapter.setIncrementalFrameBudget(0);
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void visibleRangeIsReconciledFirst() {
+        // Ни один элемент не остался прежним, поэтому коллекция перепривязывается полностью
+        mAdapter.set(createList(100, 6));
+
+        assertTrue(mAdapter.isIncrementalUpdateRunning());
+        assertEquals(new TestItem(103, 0), mAdapter.getViewHolder(3).item);
+        assertEquals(new TestItem(0, 0), mAdapter.getViewHolder(0).item);
+
+        Choreographer.getInstance().doFrame();
+        assertEquals(new TestItem(100, 0), mAdapter.getViewHolder(0).item);
+        assertEquals(new TestItem(1, 0), mAdapter.getViewHolder(1).item);
+
+        runUntilComplete();
+        assertBoundTo(100);
+    }
+
+    @Test
+    public void newDataRestartsUpdate() {
+        mAdapter.set(createList(100, 6));
+        Choreographer.getInstance().doFrame();
+
+        mAdapter.set(createList(200, 4));
+        assertTrue(mAdapter.isIncrementalUpdateRunning());
+        runUntilComplete();
+
+        assertEquals(4, mParent.getChildCount() - countStashed());
+        assertBoundTo(200);
+    }
+
+    @Test
+    public void disablingCompletesUpdate() {
+        mAdapter.set(createList(100, 6));
+
+        mAdapter.setIncrementalUpdatesEnabled(false);
+        assertFalse(mAdapter.isIncrementalUpdateRunning());
+        assertBoundTo(100);
+    }
+
+    @Test
+    public void detachCancelsUpdate() {
+        mAdapter.set(createList(100, 6));
+        mAdapter.detachFromParent();
+        assertFalse(mAdapter.isIncrementalUpdateRunning());
+        Choreographer.getInstance().doFrame();
+
+        mAdapter.setIncrementalUpdatesEnabled(false);
+        mAdapter.attachToParent(mParent);
+        assertBoundTo(100);
+    }
+
+    private void runUntilComplete() {
+        for (int i = 0; i < 10 && mAdapter.isIncrementalUpdateRunning(); ++i) {
+            Choreographer.getInstance().doFrame();
+        }
+        assertFalse(mAdapter.isIncrementalUpdateRunning());
+    }
+
+    private int countStashed() {
+        int count = 0;
+        for (int i = 0; i < mParent.getChildCount(); ++i) {
+            if (mParent.getChildAt(i).getVisibility() != View.VISIBLE) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private void assertBoundTo(final int firstId) {
+        for (int i = 0; i < mAdapter.getItemCount(); ++i) {
+            assertEquals(new TestItem(firstId + i, 0), mAdapter.getViewHolder(i).item);
+            assertTrue(mAdapter.getViewHolder(i).isBound());
+        }
+    }
+
+    @NonNull
+    private static List<TestItem> createList(final int start, final int count) {
+        final List<TestItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            items.add(new TestItem(start + i, 0));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,97 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Измерение дочерних вью адаптера через {@link CollectionMeasureCache}.
+ */
+public class MeasureCacheTest {
+
+    private static final int WIDTH_SPEC = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.AT_MOST);
+
+    private static final int HEIGHT_SPEC = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.AT_MOST);
+
+    private TestAdapter mAdapter;
+
+    private CollectionMeasureCache mCache;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mCache = new CollectionMeasureCache();
+        mAdapter.setMeasureCache(mCache);
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void unchangedItemIsMeasuredFromCache() {
+        mAdapter.set(Collections.singletonList(new TestItem(1, 0, 0, 30)));
+        mAdapter.attachToParent(new TestCollectionParent());
+
+        assertFalse(measure(0));
+        assertTrue(measure(0));
+        assertEquals(30, mAdapter.getViewHolder(0).view.getMeasuredWidth());
+    }
+
+    @Test
+    public void partiallyBoundItemIsMeasuredWithNewContent() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0, 0, 30), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        measure(0);
+
+        mAdapter.set(Arrays.asList(new TestItem(1, 1, 0, 60), new TestItem(2, 0)));
+        Choreographer.getInstance().doFrame();
+
+        assertFalse(measure(0));
+        assertEquals(60, mAdapter.getViewHolder(0).view.getMeasuredWidth());
+    }
+
+    @Test
+    public void pendingPartialBindIsNotCached() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0, 0, 30), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        mAdapter.set(Arrays.asList(new TestItem(1, 1, 0, 60), new TestItem(2, 0)));
+
+        // Вью еще отображает старое содержимое, его размер не должен попасть в кеш под новой версией
+        assertFalse(measure(0));
+        assertEquals(0, mCache.size());
+        Choreographer.getInstance().doFrame();
+
+        assertFalse(measure(0));
+        assertEquals(60, mAdapter.getViewHolder(0).view.getMeasuredWidth());
+    }
+
+    @Test
+    public void changeFoundByDiffInvalidatesItem() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        measure(0);
+        measure(1);
+        assertEquals(2, mCache.size());
+
+        mAdapter.set(Arrays.asList(new TestItem(1, 1), new TestItem(2, 0)));
+
+        assertEquals(1, mCache.size());
+    }
+
+    private boolean measure(final int position) {
+        return mAdapter.measureChild(position, mAdapter.getViewHolder(position).view, WIDTH_SPEC, HEIGHT_SPEC);
+    }
+}
@@ -0,0 +1,249 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Постраничная загрузка {@link PagedCollectionAdapter}: применение страниц, отбрасывание
+ * устаревших загрузок, повтор после ошибки и размещение вью "показать еще".
+ */
+public class PagedCollectionAdapterTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    /**
+     * Источник страниц из перечня заданного размера, который может завершиться ошибкой.
+     */
+    private static final class TestLoader implements PagedCollectionAdapter.PageLoader<TestItem> {
+
+        private final int mTotal;
+
+        int failures;
+
+        TestLoader(final int total) {
+            mTotal = total;
+        }
+
+        @NonNull
+        @Override
+        public List<TestItem> loadPage(final int offset, final int count) throws Exception {
+            if (failures > 0) {
+                --failures;
+                throw new IOException("Network is unreachable.");
+            }
+            final List<TestItem> page = new ArrayList<>();
+            for (int i = offset; i < Math.min(offset + count, mTotal); ++i) {
+                page.add(new TestItem(i, 0));
+            }
+            return page;
+        }
+    }
+
+    private static final class TestPagedAdapter extends PagedCollectionAdapter<TestItem, TestAdapter.Holder> {
+
+        @Nullable
+        View loadMoreView;
+
+        boolean loadMoreBoundLoading;
+
+        @Nullable
+        Throwable lastError;
+
+        TestPagedAdapter(@NonNull final TestLoader loader, @NonNull final Executor executor) {
+            super(loader, executor, PAGE_SIZE);
+        }
+
+        @NonNull
+        @Override
+        protected TestAdapter.Holder onCreateViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+            return new TestAdapter.Holder(new TestAdapter.ItemView(parent.getContext()));
+        }
+
+        @Override
+        protected void onBindViewHolder(@NonNull final TestAdapter.Holder holder, @NonNull final TestItem item,
+                                        final int position) {
+            holder.item = item;
+            ++holder.fullBinds;
+        }
+
+        @Nullable
+        @Override
+        protected View onCreateLoadMoreView(@NonNull final CollectionParent parent) {
+            loadMoreView = new View(parent.getContext());
+            return loadMoreView;
+        }
+
+        @Override
+        protected void onBindLoadMoreView(@NonNull final View view, final boolean loading) {
+            loadMoreBoundLoading = loading;
+        }
+
+        @Override
+        protected void onLoadError(@NonNull final Throwable error) {
+            lastError = error;
+        }
+    }
+
+    private TestExecutor mExecutor;
+
+    private TestLoader mLoader;
+
+    private TestPagedAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mExecutor = new TestExecutor();
+        mLoader = new TestLoader(7);
+        mAdapter = new TestPagedAdapter(mLoader, mExecutor);
+        mParent = new TestCollectionParent();
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        mExecutor.runAll();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void pagesAreAppendedUntilEndIsReached() {
+        mAdapter.attachToParent(mParent);
+        assertTrue(mAdapter.isLoading());
+        assertTrue(mAdapter.loadMoreBoundLoading);
+
+        mExecutor.runAll();
+        assertEquals(3, mAdapter.getItemCount());
+        assertFalse(mAdapter.loadMoreBoundLoading);
+        final TestAdapter.Holder first = mAdapter.getViewHolder(0);
+
+        mAdapter.loadMore();
+        mExecutor.runAll();
+        mAdapter.loadMore();
+        mExecutor.runAll();
+
+        assertEquals(7, mAdapter.getItemCount());
+        assertTrue(mAdapter.isEndReached());
+        assertEquals(7, mParent.getChildCount());
+        assertEquals(new TestItem(6, 0), mAdapter.getViewHolder(6).item);
+        // Загруженные ранее элементы не перепривязываются
+        assertSame(first, mAdapter.getViewHolder(0));
+        assertEquals(1, first.fullBinds);
+    }
+
+    @Test
+    public void refreshDiscardsLoadsStartedBeforeIt() {
+        mAdapter.attachToParent(mParent);
+        mExecutor.runAll();
+        mAdapter.loadMore();
+
+        mAdapter.refresh();
+        assertEquals(0, mAdapter.getItemCount());
+        assertEquals(2, mExecutor.tasks.size());
+        mExecutor.runAll();
+
+        // Вторая страница, загруженная до сброса, не добавлена после первой страницы новой загрузки
+        assertEquals(3, mAdapter.getItemCount());
+        assertEquals(new TestItem(2, 0), mAdapter.getViewHolder(2).item);
+        assertFalse(mAdapter.isLoading());
+    }
+
+    @Test
+    public void failedPageCanBeLoadedAgain() {
+        mLoader.failures = 1;
+        mAdapter.attachToParent(mParent);
+        mExecutor.runAll();
+
+        assertNotNull(mAdapter.lastError);
+        assertFalse(mAdapter.isLoading());
+        assertEquals(0, mAdapter.getItemCount());
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(0));
+
+        mAdapter.loadMore();
+        mExecutor.runAll();
+
+        assertEquals(3, mAdapter.getItemCount());
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(3));
+    }
+
+    @Test
+    public void loadMoreViewStaysAfterItems() {
+        mAdapter.attachToParent(mParent);
+        mExecutor.runAll();
+        assertEquals(4, mParent.getChildCount());
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(3));
+
+        // Полная перепривязка и удаление элементов не принимают вью "показать еще" за дочернюю вью коллекции
+        mAdapter.notifyDataChanged();
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(3));
+        mAdapter.refresh();
+        // Вью удаленных с конца элементов спрятаны в стеш перед вью "показать еще"
+        assertEquals(0, mAdapter.getItemCount());
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(mParent.getChildCount() - 1));
+
+        mExecutor.runAll();
+        assertEquals(4, mParent.getChildCount());
+        assertSame(mAdapter.getViewHolder(2).view, mParent.getChildAt(2));
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(3));
+    }
+
+    @Test
+    public void loadMoreViewIsAccountedInConcatOffsets() {
+        final TestAdapter footer = new TestAdapter();
+        footer.set(TestItem.createList(2));
+        final ConcatCollectionAdapter concat = new ConcatCollectionAdapter();
+        concat.addAdapter(mAdapter);
+        concat.addAdapter(footer);
+        concat.attachToParent(mParent);
+        mExecutor.runAll();
+
+        assertEquals(6, mParent.getChildCount());
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(3));
+        assertSame(footer.getViewHolder(0).view, mParent.getChildAt(4));
+
+        mAdapter.loadMore();
+        mExecutor.runAll();
+        assertSame(mAdapter.getViewHolder(5).view, mParent.getChildAt(5));
+        assertSame(mAdapter.loadMoreView, mParent.getChildAt(6));
+        assertSame(footer.getViewHolder(0).view, mParent.getChildAt(7));
+
+        footer.set(TestItem.createList(1));
+        mAdapter.loadMore();
+        mExecutor.runAll();
+        // Последняя страница загружена: вью "показать еще" удалена, секция после нее сдвинулась
+        assertTrue(mAdapter.isEndReached());
+        assertSame(mAdapter.getViewHolder(6).view, mParent.getChildAt(6));
+        assertSame(footer.getViewHolder(0).view, mParent.getChildAt(7));
+        assertEquals(-1, mParent.indexOfChild(mAdapter.loadMoreView));
+        concat.detachFromParent();
+        assertEquals(0, mParent.getChildCount());
+    }
+
+    @Test
+    public void loadMoreViewIsNotShownWithoutParent() {
+        mAdapter.refresh();
+
+        assertTrue(mExecutor.tasks.isEmpty());
+        assertNull(mAdapter.loadMoreView);
+    }
+}
@@ -0,0 +1,173 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Частичная привязка изменений, найденных сравнением перечней, и пропуск привязки
+ * не изменившихся элементов по стабильным идентификаторам и версиям.
+ */
+public class PartialBindTest {
+
+    private TestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void partialBindIsDispatchedOnNextFrame() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        final TestAdapter.Holder holder = mAdapter.getViewHolder(0);
+
+        mAdapter.set(Arrays.asList(new TestItem(1, 1), new TestItem(2, 0)));
+        assertEquals(0, holder.partialBinds);
+        Choreographer.getInstance().doFrame();
+
+        assertEquals(1, holder.fullBinds);
+        assertEquals(1, holder.partialBinds);
+        assertEquals(new TestItem(1, 1), holder.item);
+    }
+
+    @Test
+    public void payloadsAreAccumulatedUntilNextFrame() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        final TestAdapter.Holder holder = mAdapter.getViewHolder(1);
+
+        mAdapter.notifyItemChanged(1, "first");
+        mAdapter.notifyItemChanged(1, "second");
+        Choreographer.getInstance().doFrame();
+
+        assertEquals(1, holder.partialBinds);
+        assertEquals(Arrays.<Object>asList("first", "second"), holder.lastPayloads);
+    }
+
+    @Test
+    public void fullRebindAfterPartialBindUsesCurrentVersion() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        mAdapter.set(Arrays.asList(new TestItem(1, 1), new TestItem(2, 0)));
+        Choreographer.getInstance().doFrame();
+
+        // Ни один элемент не остался прежним, поэтому коллекция перепривязывается полностью
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 1)));
+        Choreographer.getInstance().doFrame();
+
+        assertBoundToItems();
+    }
+
+    @Test
+    public void unchangedHolderIsNotRebound() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        final TestAdapter.Holder holder = mAdapter.getViewHolder(1);
+
+        mAdapter.notifyDataChanged();
+
+        assertEquals(1, holder.fullBinds);
+        assertEquals(0, holder.partialBinds);
+    }
+
+    @Test
+    public void stableIdsFollowRebindAndSnapshots() {
+        final TestCollectionParent parent = new TestCollectionParent();
+        mAdapter.set(TestItem.createList(3));
+        mAdapter.attachToParent(parent);
+
+        mAdapter.rebind(parent, Arrays.asList(new TestItem(7, 0), new TestItem(8, 0)));
+        assertEquals(7, mAdapter.getItemId(0));
+        final TestAdapter.Holder holder = mAdapter.getViewHolder(1);
+        final int binds = holder.fullBinds;
+
+        mAdapter.set(CollectionSnapshot.of(Arrays.asList(new TestItem(8, 0), new TestItem(9, 0))));
+        Choreographer.getInstance().doFrame();
+
+        assertEquals(8, mAdapter.getItemId(0));
+        assertSame(holder, mAdapter.getViewHolder(0));
+        assertEquals(binds, holder.fullBinds);
+        assertBoundToItems();
+    }
+
+    @Test
+    public void randomUpdatesKeepHoldersBoundToCurrentItems() {
+        final Random random = new Random(42);
+        mAdapter.attachToParent(new TestCollectionParent());
+        List<TestItem> items = Collections.emptyList();
+        for (int step = 0; step < 2000; ++step) {
+            items = mutate(items, random);
+            mAdapter.set(items);
+            if (random.nextBoolean()) {
+                Choreographer.getInstance().doFrame();
+                assertBoundToItems();
+            }
+        }
+        Choreographer.getInstance().doFrame();
+        assertBoundToItems();
+    }
+
+    private void assertBoundToItems() {
+        for (int i = 0; i < mAdapter.getItemCount(); ++i) {
+            final TestAdapter.Holder holder = mAdapter.getViewHolder(i);
+            assertNotNull("Holder at " + i, holder);
+            assertEquals("Holder at " + i, mAdapter.getItem(i), holder.item);
+        }
+    }
+
+    /**
+     * Случайно изменить версии, удалить, вставить или переставить элементы небольшого перечня.
+     */
+    private static List<TestItem> mutate(final List<TestItem> items, final Random random) {
+        final List<TestItem> result = new ArrayList<>(items);
+        for (int i = 0; i < result.size(); ++i) {
+            if (random.nextInt(3) == 0) {
+                final TestItem item = result.get(i);
+                result.set(i, new TestItem(item.id, random.nextInt(2)));
+            }
+        }
+        if (!result.isEmpty() && random.nextInt(4) == 0) {
+            result.remove(random.nextInt(result.size()));
+        }
+        if (result.size() < 5 && random.nextInt(3) == 0) {
+            long id = random.nextInt(8);
+            while (containsId(result, id)) {
+                id = (id + 1) % 8;
+            }
+            result.add(random.nextInt(result.size() + 1), new TestItem(id, random.nextInt(2)));
+        }
+        if (result.size() > 1 && random.nextInt(4) == 0) {
+            Collections.swap(result, random.nextInt(result.size()), random.nextInt(result.size()));
+        }
+        return result;
+    }
+
+    private static boolean containsId(final List<TestItem> items, final long id) {
+        for (TestItem item : items) {
+            if (item.id == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
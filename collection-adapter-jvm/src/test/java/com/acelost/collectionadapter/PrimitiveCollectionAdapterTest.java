@@ -0,0 +1,185 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Сравнение начала и конца перечня в {@link IntCollectionAdapter#set(int[])}
+ * и {@link LongCollectionAdapter#set(long[])}.
+ */
+public class PrimitiveCollectionAdapterTest {
+
+    private static final class Holder extends ChildViewHolder {
+
+        long value;
+
+        int binds;
+
+        Holder(@NonNull final View view) {
+            super(view);
+        }
+    }
+
+    private static final class IntAdapter extends IntCollectionAdapter<Holder> {
+
+        @NonNull
+        @Override
+        protected Holder onCreateViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+            return new Holder(new View(parent.getContext()));
+        }
+
+        @Override
+        protected void onBindViewHolder(@NonNull final Holder holder, final int item, final int position) {
+            holder.value = item;
+            ++holder.binds;
+        }
+    }
+
+    private static final class LongAdapter extends LongCollectionAdapter<Holder> {
+
+        @NonNull
+        @Override
+        protected Holder onCreateViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+            return new Holder(new View(parent.getContext()));
+        }
+
+        @Override
+        protected void onBindViewHolder(@NonNull final Holder holder, final long item, final int position) {
+            holder.value = item;
+            ++holder.binds;
+        }
+    }
+
+    private IntAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAdapter = new IntAdapter();
+        mAdapter.set(new int[]{0, 1, 2, 3, 4, 5, 6, 7});
+        mAdapter.attachToParent(new TestCollectionParent());
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+    }
+
+    @Test
+    public void equalValuesDoNotRebind() {
+        mAdapter.set(new int[]{0, 1, 2, 3, 4, 5, 6, 7});
+        Choreographer.getInstance().doFrame();
+
+        for (int i = 0; i < 8; ++i) {
+            assertEquals(1, mAdapter.getViewHolder(i).binds);
+        }
+    }
+
+    @Test
+    public void changedValuesRebindOnlyChangedPositions() {
+        mAdapter.set(new int[]{0, 1, 20, 3, 40, 5, 6, 7});
+        Choreographer.getInstance().doFrame();
+
+        assertBoundValues(mAdapter, 0, 1, 20, 3, 40, 5, 6, 7);
+        assertEquals(2, mAdapter.getViewHolder(2).binds);
+        assertEquals(1, mAdapter.getViewHolder(3).binds);
+        assertEquals(2, mAdapter.getViewHolder(4).binds);
+        assertEquals(1, mAdapter.getViewHolder(5).binds);
+    }
+
+    @Test
+    public void insertionKeepsSuffixHolders() {
+        final Holder last = mAdapter.getViewHolder(7);
+
+        mAdapter.set(new int[]{0, 1, 2, 10, 11, 3, 4, 5, 6, 7});
+        Choreographer.getInstance().doFrame();
+
+        assertBoundValues(mAdapter, 0, 1, 2, 10, 11, 3, 4, 5, 6, 7);
+        assertSame(last, mAdapter.getViewHolder(9));
+        assertEquals(1, last.binds);
+    }
+
+    @Test
+    public void removalKeepsSuffixHolders() {
+        final Holder last = mAdapter.getViewHolder(7);
+
+        mAdapter.set(new int[]{0, 1, 5, 6, 7});
+        Choreographer.getInstance().doFrame();
+
+        assertBoundValues(mAdapter, 0, 1, 5, 6, 7);
+        assertSame(last, mAdapter.getViewHolder(4));
+        assertEquals(1, last.binds);
+    }
+
+    @Test
+    public void valuesAreCopied() {
+        final int[] values = {9, 8, 7};
+        mAdapter.set(values, 0, 3);
+        values[0] = 100;
+        mAdapter.set(new int[]{5, 9, 8, 7, 5}, 1, 3);
+        Choreographer.getInstance().doFrame();
+
+        assertBoundValues(mAdapter, 9, 8, 7);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rangeOutsideArrayThrows() {
+        mAdapter.set(new int[]{1, 2}, 1, 2);
+    }
+
+    @Test
+    public void randomSetsKeepIntHoldersBound() {
+        final Random random = new Random(5);
+        for (int step = 0; step < 200; ++step) {
+            final int[] values = new int[random.nextInt(30)];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = random.nextInt(4);
+            }
+            mAdapter.set(values);
+            Choreographer.getInstance().doFrame();
+
+            final long[] expected = new long[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                expected[i] = values[i];
+            }
+            assertBoundValues(mAdapter, expected);
+        }
+    }
+
+    @Test
+    public void randomSetsKeepLongHoldersBound() {
+        final LongAdapter adapter = new LongAdapter();
+        adapter.attachToParent(new TestCollectionParent());
+        final Random random = new Random(7);
+        for (int step = 0; step < 200; ++step) {
+            final long[] values = new long[random.nextInt(30)];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = Long.MAX_VALUE - random.nextInt(4);
+            }
+            adapter.set(values);
+            Choreographer.getInstance().doFrame();
+
+            assertBoundValues(adapter, values);
+        }
+        adapter.detachFromParent();
+    }
+
+    private static void assertBoundValues(@NonNull final CollectionAdapter<Holder> adapter, final long... expected) {
+        final long[] actual = new long[adapter.getItemCount()];
+        for (int i = 0; i < actual.length; ++i) {
+            actual[i] = adapter.getViewHolder(i).value;
+        }
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+}
@@ -0,0 +1,77 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Перестановка вью-холдеров при полной перепривязке коллекции.
+ */
+public class ReorderViewHoldersTest {
+
+    private TestAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mAdapter.set(Arrays.asList(
+                new TestItem(1, 0, 0, 10),
+                new TestItem(2, 0, 1, 10),
+                new TestItem(3, 0, 0, 10)));
+        mParent = new TestCollectionParent();
+        mAdapter.attachToParent(mParent);
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void matchingHoldersStayInPlace() {
+        final View[] children = getChildren();
+
+        mAdapter.notifyDataChanged();
+
+        assertEquals(Arrays.asList(children), Arrays.asList(getChildren()));
+    }
+
+    @Test
+    public void holdersFollowTheirItems() {
+        final TestAdapter.Holder first = mAdapter.getViewHolder(0);
+        final TestAdapter.Holder second = mAdapter.getViewHolder(1);
+
+        // Все элементы изменились, поэтому коллекция перепривязывается полностью
+        mAdapter.set(Arrays.asList(
+                new TestItem(2, 1, 1, 10),
+                new TestItem(3, 1, 0, 10),
+                new TestItem(1, 1, 0, 10)));
+
+        assertEquals(3, mParent.getChildCount());
+        assertSame(second, mAdapter.getViewHolder(0));
+        assertSame(first, mAdapter.getViewHolder(2));
+        for (int i = 0; i < 3; ++i) {
+            assertSame(mAdapter.getViewHolder(i).view, mParent.getChildAt(i));
+            assertEquals(mAdapter.getItem(i), mAdapter.getViewHolder(i).item);
+        }
+    }
+
+    private View[] getChildren() {
+        final View[] children = new View[mParent.getChildCount()];
+        for (int i = 0; i < children.length; ++i) {
+            children[i] = mParent.getChildAt(i);
+        }
+        return children;
+    }
+}
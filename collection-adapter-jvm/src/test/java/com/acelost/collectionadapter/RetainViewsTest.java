@@ -0,0 +1,96 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Сохранение дочерних вью при отсоединении ({@link CollectionAdapter#setRetainViewsOnDetach(boolean)}):
+ * повторное присоединение без изменения данных не перепривязывает вью.
+ */
+public class RetainViewsTest {
+
+    private TestAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mAdapter.setRetainViewsOnDetach(true);
+        mAdapter.set(TestItem.createList(3));
+        mParent = new TestCollectionParent();
+        mAdapter.attachToParent(mParent);
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        mAdapter.releaseRetainedViews();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void reattachWithoutChangesKeepsBoundViews() {
+        final TestAdapter.Holder holder = mAdapter.getViewHolder(1);
+
+        mAdapter.detachFromParent();
+        assertEquals(3, mParent.getChildCount());
+
+        mAdapter.attachToParent(mParent);
+        assertSame(holder, mAdapter.getViewHolder(1));
+        assertSame(holder.view, mParent.getChildAt(1));
+        assertEquals(1, holder.fullBinds);
+    }
+
+    @Test
+    public void changeWhileDetachedIsAppliedOnAttach() {
+        mAdapter.detachFromParent();
+        mAdapter.set(Arrays.asList(new TestItem(0, 0), new TestItem(1, 1), new TestItem(2, 0)));
+        assertEquals(new TestItem(1, 0), mAdapter.getViewHolder(1).item);
+
+        mAdapter.attachToParent(mParent);
+        assertEquals(3, mParent.getChildCount());
+        assertEquals(new TestItem(1, 1), mAdapter.getViewHolder(1).item);
+    }
+
+    @Test
+    public void pendingPayloadsAreAppliedBeforeDetach() {
+        final TestAdapter.Holder holder = mAdapter.getViewHolder(0);
+        mAdapter.notifyItemChanged(0, TestAdapter.PAYLOAD);
+
+        mAdapter.detachFromParent();
+        assertEquals(1, holder.partialBinds);
+
+        // Накопленное изменение уже применено, перепривязка при присоединении не нужна
+        mAdapter.attachToParent(mParent);
+        Choreographer.getInstance().doFrame();
+        assertEquals(1, holder.fullBinds);
+        assertEquals(1, holder.partialBinds);
+    }
+
+    @Test
+    public void attachToAnotherParentReleasesRetainedViews() {
+        mAdapter.detachFromParent();
+
+        final TestCollectionParent other = new TestCollectionParent();
+        mAdapter.attachToParent(other);
+        assertEquals(0, mParent.getChildCount());
+        assertEquals(3, other.getChildCount());
+    }
+
+    @Test
+    public void disablingRetainReleasesRetainedViews() {
+        mAdapter.detachFromParent();
+
+        mAdapter.setRetainViewsOnDetach(false);
+        assertEquals(0, mParent.getChildCount());
+    }
+}
@@ -0,0 +1,99 @@
+package com.acelost.collectionadapter;
+
+import android.os.Handler;
+import android.view.Choreographer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Асинхронное задание перечня {@link AbstractCollectionAdapter#submitList}: сравнение на executor-е,
+ * применение в главном потоке и отбрасывание устаревших результатов по поколению перечня.
+ */
+public class SubmitListTest {
+
+    private TestExecutor mExecutor;
+
+    private TestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mExecutor = new TestExecutor();
+        mAdapter = new TestAdapter();
+    }
+
+    @After
+    public void tearDown() {
+        mAdapter.detachFromParent();
+        mExecutor.runAll();
+        Choreographer.getInstance().doFrame();
+    }
+
+    @Test
+    public void diffIsAppliedOnMainThread() {
+        mAdapter.set(Arrays.asList(new TestItem(1, 0), new TestItem(2, 0)));
+        mAdapter.attachToParent(new TestCollectionParent());
+        final TestAdapter.Holder first = mAdapter.getViewHolder(0);
+        final TestAdapter.Holder second = mAdapter.getViewHolder(1);
+
+        mAdapter.submitList(Arrays.asList(new TestItem(2, 1), new TestItem(1, 0)), mExecutor);
+        assertEquals(1, mExecutor.tasks.size());
+        mExecutor.tasks.remove(0).run();
+        // Сравнение выполнено, но результат еще не применен
+        assertEquals(new TestItem(1, 0), mAdapter.getItem(0));
+
+        Handler.runPending();
+        Choreographer.getInstance().doFrame();
+        assertSame(second, mAdapter.getViewHolder(0));
+        assertSame(first, mAdapter.getViewHolder(1));
+        assertEquals(1, second.fullBinds);
+        assertEquals(1, second.partialBinds);
+        assertEquals(new TestItem(2, 1), second.item);
+        assertEquals(0, first.partialBinds);
+    }
+
+    @Test
+    public void setDiscardsPendingResult() {
+        final TestCollectionParent parent = new TestCollectionParent();
+        mAdapter.attachToParent(parent);
+        mAdapter.submitList(TestItem.createList(3), mExecutor);
+
+        mAdapter.set(TestItem.createList(1));
+        mExecutor.runAll();
+
+        assertEquals(1, mAdapter.getItemCount());
+        assertEquals(1, parent.getChildCount());
+    }
+
+    @Test
+    public void latestSubmissionWinsRegardlessOfCompletionOrder() {
+        mAdapter.attachToParent(new TestCollectionParent());
+        mAdapter.submitList(TestItem.createList(3), mExecutor);
+        mAdapter.submitList(TestItem.createList(2), mExecutor);
+
+        // Более позднее сравнение завершилось первым
+        mExecutor.tasks.remove(1).run();
+        mExecutor.runAll();
+
+        assertEquals(2, mAdapter.getItemCount());
+        assertEquals(new TestItem(1, 0), mAdapter.getViewHolder(1).item);
+    }
+
+    @Test
+    public void submittedListIsCopied() {
+        final List<TestItem> items = TestItem.createList(2);
+        mAdapter.submitList(items, mExecutor);
+        mExecutor.tasks.remove(0).run();
+        items.clear();
+        Handler.runPending();
+
+        assertEquals(2, mAdapter.getItemCount());
+    }
+}
@@ -0,0 +1,115 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Адаптер для тестов: элементы имеют стабильные идентификаторы и версии содержимого,
+ * изменения одного и того же элемента привязываются частично.
+ */
+class TestAdapter extends AbstractCollectionAdapter<TestItem, TestAdapter.Holder> {
+
+    /**
+     * Описание изменения, передаваемое для частичной привязки.
+     */
+    static final Object PAYLOAD = new Object();
+
+    /**
+     * Вью, ширина которой зависит от привязанного элемента.
+     */
+    static final class ItemView extends View {
+
+        int contentWidth;
+
+        int measureCount;
+
+        ItemView(@NonNull final Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+            ++measureCount;
+            setMeasuredDimension(resolveSize(contentWidth, widthMeasureSpec), resolveSize(10, heightMeasureSpec));
+        }
+    }
+
+    static final class Holder extends ChildViewHolder {
+
+        @Nullable
+        TestItem item;
+
+        int fullBinds;
+
+        int partialBinds;
+
+        /**
+         * Копия описаний изменений последней частичной привязки.
+         */
+        @NonNull
+        List<Object> lastPayloads = Collections.emptyList();
+
+        Holder(@NonNull final ItemView view) {
+            super(view);
+        }
+    }
+
+    TestAdapter() {
+        setHasStableIds(true);
+    }
+
+    @Override
+    protected int getItemViewType(final int position) {
+        return getItem(position).viewType;
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        return getItem(position).id;
+    }
+
+    @Override
+    protected long getItemVersion(final int position) {
+        return getItem(position).version;
+    }
+
+    @Override
+    protected boolean areItemsTheSame(@NonNull final TestItem oldItem, @NonNull final TestItem newItem) {
+        return oldItem.id == newItem.id;
+    }
+
+    @Nullable
+    @Override
+    protected Object getChangePayload(@NonNull final TestItem oldItem, @NonNull final TestItem newItem) {
+        return PAYLOAD;
+    }
+
+    @NonNull
+    @Override
+    protected Holder onCreateViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+        return new Holder(new ItemView(parent.getContext()));
+    }
+
+    @Override
+    protected void onBindViewHolder(@NonNull final Holder holder, @NonNull final TestItem item, final int position) {
+        holder.item = item;
+        ((ItemView) holder.view).contentWidth = item.width;
+        ++holder.fullBinds;
+    }
+
+    @Override
+    protected void onBindViewHolder(@NonNull final Holder holder, @NonNull final TestItem item,
+                                    final int position, @NonNull final List<Object> payloads) {
+        holder.item = item;
+        ((ItemView) holder.view).contentWidth = item.width;
+        holder.lastPayloads = new ArrayList<>(payloads);
+        ++holder.partialBinds;
+    }
+}
@@ -0,0 +1,39 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Родительская вью в памяти для тестов: хранит дочерние вью-заглушки без измерения и отрисовки.
+ */
+final class TestCollectionParent extends ViewGroup implements CollectionParent {
+
+    /**
+     * Количество запросов перестроения макета.
+     */
+    int layoutRequests;
+
+    TestCollectionParent() {
+        super(new Context());
+    }
+
+    @NonNull
+    @Override
+    public ViewGroup getView() {
+        return this;
+    }
+
+    @Override
+    public void requestLayout() {
+        ++layoutRequests;
+        super.requestLayout();
+    }
+
+    @Override
+    public void addItemInLayout(@NonNull final View view, final int position) {
+        addViewInLayout(view, position, null, true);
+    }
+}
@@ -0,0 +1,34 @@
+package com.acelost.collectionadapter;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor для тестов: задачи накапливаются и выполняются только по запросу теста,
+ * в том же потоке.
+ */
+final class TestExecutor implements Executor {
+
+    @NonNull
+    final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        tasks.add(command);
+    }
+
+    /**
+     * Выполнить накопленные задачи и затем сообщения, отправленные ими в главный поток.
+     */
+    void runAll() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+        Handler.runPending();
+    }
+}
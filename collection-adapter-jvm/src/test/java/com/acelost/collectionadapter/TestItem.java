@@ -0,0 +1,69 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Элемент коллекции для тестов: идентификатор, версия содержимого, тип вью и ширина содержимого.
+ */
+final class TestItem {
+
+    final long id;
+
+    final long version;
+
+    final int viewType;
+
+    final int width;
+
+    TestItem(final long id, final long version) {
+        this(id, version, 0, 10);
+    }
+
+    TestItem(final long id, final long version, final int viewType, final int width) {
+        this.id = id;
+        this.version = version;
+        this.viewType = viewType;
+        this.width = width;
+    }
+
+    /**
+     * Создать перечень элементов с идентификаторами [0, count) и нулевой версией.
+     */
+    @NonNull
+    static List<TestItem> createList(final int count) {
+        final List<TestItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            items.add(new TestItem(i, 0));
+        }
+        return items;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TestItem that = (TestItem) o;
+        return id == that.id && version == that.version && viewType == that.viewType && width == that.width;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (id ^ (id >>> 32));
+        result = 31 * result + (int) (version ^ (version >>> 32));
+        result = 31 * result + viewType;
+        result = 31 * result + width;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return id + "/v" + version;
+    }
+}
@@ -0,0 +1,105 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Сдвиг позиций в {@link ViewHolderRegistry}.
+ */
+public class ViewHolderRegistryTest {
+
+    private ViewHolderRegistry<TestAdapter.Holder> mRegistry;
+
+    private TestAdapter.Holder[] mHolders;
+
+    @Before
+    public void setUp() {
+        mRegistry = new ViewHolderRegistry<>();
+        mHolders = new TestAdapter.Holder[20];
+        for (int i = 0; i < mHolders.length; ++i) {
+            mHolders[i] = new TestAdapter.Holder(new TestAdapter.ItemView(new Context()));
+            mRegistry.set(i, mHolders[i]);
+        }
+    }
+
+    @Test
+    public void getOutsideRegistryReturnsNull() {
+        assertNull(mRegistry.get(-1));
+        assertNull(mRegistry.get(20));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void setPastEndThrows() {
+        mRegistry.set(21, mHolders[0]);
+    }
+
+    @Test
+    public void insertRangeShiftsHoldersAndPositions() {
+        mRegistry.insertRange(5, 3);
+
+        assertEquals(23, mRegistry.size());
+        assertSame(mHolders[4], mRegistry.get(4));
+        assertNull(mRegistry.get(5));
+        assertNull(mRegistry.get(7));
+        assertSame(mHolders[5], mRegistry.get(8));
+        assertEquals(8, mHolders[5].getAdapterPosition());
+        assertEquals(22, mHolders[19].getAdapterPosition());
+    }
+
+    @Test
+    public void removeRangeShiftsHoldersAndPositions() {
+        mRegistry.removeRange(2, 4);
+
+        assertEquals(16, mRegistry.size());
+        assertSame(mHolders[6], mRegistry.get(2));
+        assertEquals(2, mHolders[6].getAdapterPosition());
+        assertNull(mRegistry.get(16));
+    }
+
+    @Test
+    public void moveForwardShiftsHoldersBetween() {
+        mRegistry.move(2, 5);
+
+        assertSame(mHolders[2], mRegistry.get(5));
+        assertSame(mHolders[3], mRegistry.get(2));
+        assertEquals(2, mHolders[3].getAdapterPosition());
+        assertEquals(4, mHolders[5].getAdapterPosition());
+    }
+
+    @Test
+    public void moveBackwardShiftsHoldersBetween() {
+        mRegistry.move(5, 2);
+
+        assertSame(mHolders[5], mRegistry.get(2));
+        assertSame(mHolders[2], mRegistry.get(3));
+        assertEquals(3, mHolders[2].getAdapterPosition());
+        assertEquals(5, mHolders[4].getAdapterPosition());
+    }
+
+    @Test
+    public void stashedHoldersKeepPositions() {
+        mHolders[10].setAdapterPosition(10);
+        mHolders[10].stash();
+
+        mRegistry.removeRange(0, 1);
+
+        assertSame(mHolders[10], mRegistry.get(9));
+        assertEquals(10, mHolders[10].getAdapterPosition());
+    }
+
+    @Test
+    public void truncateDropsTail() {
+        mRegistry.truncate(3);
+
+        assertEquals(3, mRegistry.size());
+        assertNull(mRegistry.get(3));
+        mRegistry.set(3, mHolders[0]);
+        assertEquals(4, mRegistry.size());
+    }
+}
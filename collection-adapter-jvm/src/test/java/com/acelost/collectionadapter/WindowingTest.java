@@ -0,0 +1,159 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Оконный режим: позиции за пределами окна занимают заглушки, которые не видны наследнику.
+ * Пока видимый диапазон неизвестен, видимы все позиции; {@link CollectionLayout} сообщает
+ * видимый диапазон сама после макета и при прокрутке.
+ */
+public class WindowingTest {
+
+    private TestAdapter mAdapter;
+
+    private TestCollectionParent mParent;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mAdapter.setPrefetchMargin(1);
+        mAdapter.setVisibleRange(0, 1);
+        mAdapter.setWindowingEnabled(true);
+        mAdapter.set(TestItem.createList(10));
+        mParent = new TestCollectionParent();
+        mAdapter.attachToParent(mParent);
+    }
+
+    @Test
+    public void positionsOutsideWindowHavePlaceholders() {
+        assertEquals(10, mParent.getChildCount());
+        assertNotNull(mAdapter.getViewHolder(2));
+        assertNull(mAdapter.getViewHolder(3));
+        assertFalse(mParent.getChildAt(3) instanceof TestAdapter.ItemView);
+    }
+
+    @Test
+    public void windowShiftReplacesPlaceholders() {
+        mAdapter.setVisibleRange(5, 6);
+
+        assertNull(mAdapter.getViewHolder(0));
+        assertEquals(new TestItem(4, 0), mAdapter.getViewHolder(4).item);
+        assertEquals(new TestItem(7, 0), mAdapter.getViewHolder(7).item);
+        assertNull(mAdapter.getViewHolder(8));
+        assertEquals(10, mParent.getChildCount());
+    }
+
+    @Test
+    public void unknownVisibleRangeKeepsAllPositionsInWindow() {
+        final TestAdapter adapter = new TestAdapter();
+        adapter.setWindowingEnabled(true);
+        adapter.set(TestItem.createList(10));
+        adapter.attachToParent(new TestCollectionParent());
+        assertNotNull(adapter.getViewHolder(9));
+        adapter.detachFromParent();
+
+        mAdapter.clearVisibleRange();
+        assertNotNull(mAdapter.getViewHolder(9));
+    }
+
+    @Test
+    public void layoutReportsVisibleRangeOnLayoutAndScroll() {
+        final Viewport viewport = new Viewport();
+        final LinearCollectionLayout layout = new LinearCollectionLayout(new Context());
+        viewport.addContent(layout);
+        viewport.layout(0, 0, 100, 30);
+        viewport.dispatchAttachedToWindow();
+        final TestAdapter adapter = new TestAdapter();
+        adapter.setPrefetchMargin(1);
+        adapter.setWindowingEnabled(true);
+        adapter.set(TestItem.createList(10));
+        adapter.attachToParent(layout);
+
+        layoutAndReport(viewport, layout);
+        // Видны позиции 0..2 высотой 10 в окне высотой 30
+        assertNotNull(adapter.getViewHolder(3));
+        assertNull(adapter.getViewHolder(4));
+
+        viewport.scrollTo(0, 50);
+        layoutAndReport(viewport, layout);
+        assertNull(adapter.getViewHolder(3));
+        assertEquals(new TestItem(4, 0), adapter.getViewHolder(4).item);
+        assertEquals(new TestItem(8, 0), adapter.getViewHolder(8).item);
+        assertNull(adapter.getViewHolder(9));
+
+        viewport.dispatchDetachedFromWindow();
+        viewport.scrollTo(0, 0);
+        assertNull(adapter.getViewHolder(0));
+        adapter.detachFromParent();
+    }
+
+    @Test
+    public void concatSectionsReceiveOwnVisibleRange() {
+        final Viewport viewport = new Viewport();
+        final LinearCollectionLayout layout = new LinearCollectionLayout(new Context());
+        viewport.addContent(layout);
+        viewport.layout(0, 0, 100, 30);
+        viewport.dispatchAttachedToWindow();
+        final TestAdapter first = new TestAdapter();
+        final TestAdapter second = new TestAdapter();
+        for (TestAdapter adapter : new TestAdapter[]{first, second}) {
+            adapter.setPrefetchMargin(0);
+            adapter.setWindowingEnabled(true);
+            adapter.set(TestItem.createList(5));
+        }
+        final ConcatCollectionAdapter concat = new ConcatCollectionAdapter();
+        concat.addAdapter(first);
+        concat.addAdapter(second);
+        concat.attachToParent(layout);
+
+        viewport.scrollTo(0, 40);
+        layoutAndReport(viewport, layout);
+
+        // Видны дочерние вью 4..6: последняя позиция первой секции и позиции 0..1 второй
+        assertNull(first.getViewHolder(3));
+        assertNotNull(first.getViewHolder(4));
+        assertNotNull(second.getViewHolder(1));
+        assertNull(second.getViewHolder(2));
+        concat.detachFromParent();
+    }
+
+    /**
+     * Измерить и расставить коллекцию, пока ее дочерние вью меняются после сообщения видимого диапазона.
+     */
+    private static void layoutAndReport(@NonNull final Viewport viewport, @NonNull final CollectionLayout layout) {
+        for (int i = 0; i < 5 && layout.isLayoutRequested(); ++i) {
+            final int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            layout.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY), unspecified);
+            layout.layout(0, 0, layout.getMeasuredWidth(), layout.getMeasuredHeight());
+            viewport.getViewTreeObserver().dispatchOnGlobalLayout();
+        }
+        assertTrue(!layout.isLayoutRequested());
+    }
+
+    /**
+     * Прокручиваемая область, в которой видна часть коллекции.
+     */
+    private static final class Viewport extends ViewGroup {
+
+        Viewport() {
+            super(new Context());
+        }
+
+        void addContent(@NonNull final View content) {
+            addViewInLayout(content, -1, null, true);
+        }
+    }
+}
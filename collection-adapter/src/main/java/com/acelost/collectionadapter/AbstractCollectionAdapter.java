@@ -1,10 +1,16 @@
 package com.acelost.collectionadapter;
 
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Базовая реализация {@link CollectionAdapter}, оперирующая списком элементов в качестве модели данных.
@@ -14,8 +20,46 @@ import java.util.List;
  */
 public abstract class AbstractCollectionAdapter<T, VH extends ChildViewHolder> extends CollectionAdapter<VH> {
 
+    /**
+     * Суммарный размер перечней, начиная с которого сравнение в главном потоке прерывается,
+     * если для перехода требуется больше вставок и удалений, чем элементов в большем перечне.
+     * Такие перечни проще перепривязать целиком, чем тратить квадратичное время на сравнение.
+     */
+    private static final int BOUNDED_DIFF_MIN_SIZE = 128;
+
+    /**
+     * Handler главного потока для применения результатов асинхронного сравнения.
+     */
+    @Nullable
+    private static Handler sMainHandler;
+
+    /**
+     * Текущие элементы коллекции. Список не изменяется после присвоения,
+     * при обновлении заменяется новым, поэтому может быть безопасно
+     * передан в фоновый поток для сравнения.
+     */
+    @NonNull
+    private List<T> mItems = Collections.emptyList();
+
+    /**
+     * Поколение перечня элементов. Увеличивается при каждом вызове {@link #set(List)}
+     * и {@link #submitList(List, Executor)}, чтобы результаты устаревших
+     * асинхронных сравнений не применялись.
+     */
+    private int mGeneration;
+
+    /**
+     * Элементы, к которым привязаны дочерние вью на момент начала пакетного обновления.
+     * Используются для сравнения с текущим перечнем в конце пакетного обновления.
+     */
+    @NonNull
+    private List<T> mLayoutItems = Collections.emptyList();
+
+    /**
+     * Буфер для участка, измененного в снимке относительно текущего (см. {@link #set(CollectionSnapshot)}).
+     */
     @NonNull
-    private final List<T> mItems = new ArrayList<>();
+    private final int[] mChangedRange = new int[3];
 
     @Override
     public int getItemCount() {
@@ -23,27 +67,330 @@ public abstract class AbstractCollectionAdapter<T, VH extends ChildViewHolder> e
     }
 
     /**
-     * Задать перечень элементов коллекции.
+     * Задать перечень элементов коллекции. Если адаптер присоединен к {@link CollectionParent},
+     * старый и новый перечни сравниваются при помощи {@link CollectionDiff} и к дочерним вью
+     * применяются только необходимые вставки/удаления/перемещения/перепривязки.
+     * Элементы, не изменившиеся по {@link #areContentsTheSame(Object, Object)},
+     * повторно не привязываются, даже если их позиция изменилась. Результаты ранее
+     * запущенных {@link #submitList(List, Executor)} отбрасываются.
      *
      * @param items - новые элементы коллекции
      */
+    @MainThread
     public void set(@Nullable final List<T> items) {
-        if (items == null) {
-            if (!mItems.isEmpty()) {
-                mItems.clear();
-                notifyDataChanged();
+        if (items instanceof CollectionSnapshot) {
+            set((CollectionSnapshot<T>) items);
+            return;
+        }
+        ++mGeneration;
+        final List<T> newItems = items != null ? items : Collections.<T>emptyList();
+        if (mItems.equals(newItems)) {
+            return;
+        }
+        final List<T> oldItems = mItems;
+        final List<T> copy = new ArrayList<>(newItems);
+        final CollectionDiff.Result result = isAttached() && !isBatching() ? calculateDiff(oldItems, copy, true) : null;
+        applyItems(copy, result);
+    }
+
+    /**
+     * Задать перечень элементов коллекции в виде неизменяемого снимка. Снимок не копируется.
+     * Повторная передача текущего снимка завершается за O(1). Для снимка, полученного из текущего
+     * изменяющими методами {@link CollectionSnapshot}, сравнивается только измененный участок,
+     * иначе перечни сравниваются целиком, как в {@link #set(List)}.
+     *
+     * @param snapshot - новый снимок элементов коллекции
+     */
+    @MainThread
+    public void set(@NonNull final CollectionSnapshot<T> snapshot) {
+        ++mGeneration;
+        final List<T> oldItems = mItems;
+        if (oldItems == snapshot) {
+            return;
+        }
+        if (isAttached() && !isBatching() && oldItems instanceof CollectionSnapshot
+                && snapshot.getChangedRange(((CollectionSnapshot<T>) oldItems).getVersion(), mChangedRange)) {
+            mItems = snapshot;
+            applyChangedRange(oldItems, snapshot, mChangedRange[0], mChangedRange[1], mChangedRange[2]);
+            return;
+        }
+        if (oldItems.equals(snapshot)) {
+            // Запоминаем снимок, чтобы следующие снимки, полученные из него, сравнивались по участкам
+            mItems = snapshot;
+            return;
+        }
+        final CollectionDiff.Result result = isAttached() && !isBatching() ? calculateDiff(oldItems, snapshot, true) : null;
+        applyItems(snapshot, result);
+    }
+
+    /**
+     * Применить к дочерним вью изменение участка перечня. Элементы до участка и после него не изменились.
+     *
+     * @param oldItems  - старый перечень
+     * @param newItems  - новый перечень, уже заданный адаптеру
+     * @param start     - начало участка
+     * @param oldEnd    - конец участка в старом перечне
+     * @param newEnd    - конец участка в новом перечне
+     */
+    private void applyChangedRange(@NonNull final List<T> oldItems, @NonNull final List<T> newItems,
+                                   final int start, final int oldEnd, final int newEnd) {
+        if (oldEnd == start || newEnd == start) {
+            if (newEnd > start) {
+                notifyItemRangeInserted(start, newEnd - start);
+            } else if (oldEnd > start) {
+                notifyItemRangeRemoved(start, oldEnd - start);
+            }
+            return;
+        }
+        final CollectionDiff.Result result = calculateDiff(
+                oldItems.subList(start, oldEnd), newItems.subList(start, newEnd), true);
+        if (result != null) {
+            applyUpdates(result, start);
+            return;
+        }
+        // Переиспользовать вью-холдеры участка на своих местах дешевле, чем удалять и вставлять их
+        final int common = Math.min(oldEnd, newEnd);
+        beginBatch();
+        notifyItemRangeChanged(start, common - start);
+        if (newEnd > common) {
+            notifyItemRangeInserted(common, newEnd - common);
+        } else if (oldEnd > common) {
+            notifyItemRangeRemoved(common, oldEnd - common);
+        }
+        endBatch();
+    }
+
+    /**
+     * Присоединить адаптер к родительской вью и задать перечень элементов, не связанный
+     * с текущим. Предназначен для вложенных коллекций, которые получают новые данные при каждой
+     * привязке внешнего элемента (например, в onBindViewHolder строки RecyclerView).
+     * В отличие от {@link #set(List)}, перечни не сравниваются, а дочерние вью переиспользуются
+     * по типу на своих позициях (см. {@link #notifyDataSetReplaced()}). Если адаптер присоединен
+     * к другой родительской вью, он отсоединяется от нее. Результаты ранее запущенных
+     * {@link #submitList(List, Executor)} отбрасываются.
+     *
+     * @param parent    - родительская вью
+     * @param items     - новые элементы коллекции, список не должен изменяться после передачи
+     */
+    @MainThread
+    public void rebind(@NonNull final CollectionParent parent, @Nullable final List<T> items) {
+        ++mGeneration;
+        final List<T> newItems = items != null ? items : Collections.<T>emptyList();
+        if (isAttachedTo(parent)) {
+            if (isBatching()) {
+                applyItems(newItems, null);
+            } else {
+                mItems = newItems;
+                notifyDataSetReplaced();
             }
             return;
         }
-        if (!mItems.equals(items)) {
-            mItems.clear();
-            mItems.addAll(items);
+        if (isAttached()) {
+            detachFromParent();
+        }
+        mItems = newItems;
+        // Присоединение согласует дочерние вью с новым перечнем
+        notifyDataSetReplaced();
+        attachToParent(parent);
+    }
+
+    /**
+     * Задать перечень элементов коллекции асинхронно. Копирование, сравнение со
+     * старым перечнем и вычисление разницы выполняются на указанном executor-е,
+     * в главном потоке выполняется только применение результата к дочерним вью.
+     * Если до применения результата перечень будет задан повторно, результат
+     * будет отброшен. Список не должен изменяться до окончания сравнения, а методы
+     * {@link #areItemsTheSame(Object, Object)}, {@link #areContentsTheSame(Object, Object)}
+     * и {@link #getChangePayload(Object, Object)} будут вызваны в потоке executor-а.
+     *
+     * @param items     - новые элементы коллекции
+     * @param executor  - executor для фонового сравнения
+     */
+    @MainThread
+    public void submitList(@Nullable final List<T> items, @NonNull final Executor executor) {
+        final int generation = ++mGeneration;
+        final List<T> oldItems = mItems;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> newItems = items != null ? new ArrayList<>(items) : Collections.<T>emptyList();
+                if (oldItems.equals(newItems)) {
+                    return;
+                }
+                final CollectionDiff.Result result = calculateDiff(oldItems, newItems, false);
+                getMainHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            applyItems(newItems, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Вычислить разницу между перечнями элементов. В главном потоке сравнение больших перечней
+     * прерывается, если они мало похожи (см. {@link #BOUNDED_DIFF_MIN_SIZE}).
+     *
+     * @param oldItems      - старый перечень
+     * @param newItems      - новый перечень
+     * @param mainThread    - выполняется ли сравнение в главном потоке
+     * @return результат сравнения или null, если выгоднее полностью перепривязать коллекцию
+     */
+    @Nullable
+    private CollectionDiff.Result calculateDiff(@NonNull final List<T> oldItems, @NonNull final List<T> newItems,
+                                                final boolean mainThread) {
+        if (oldItems.isEmpty() || newItems.isEmpty()) {
+            return null;
+        }
+        final int maxEditDistance = mainThread && oldItems.size() + newItems.size() >= BOUNDED_DIFF_MIN_SIZE
+                ? Math.max(oldItems.size(), newItems.size())
+                : Integer.MAX_VALUE;
+        final CollectionDiff.Result result = CollectionDiff.calculate(
+                new ItemsDiffCallback(oldItems, newItems), true, maxEditDistance);
+        if (result == null || result.getUnchangedCount() == 0) {
+            // Переиспользовать вью-холдеры на своих местах дешевле, чем удалять и вставлять их
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Заменить перечень элементов и обновить дочерние вью. Во время пакетного обновления
+     * обновление дочерних вью откладывается до его завершения, а промежуточные перечни
+     * не сравниваются.
+     *
+     * @param items     - новые элементы коллекции, список не должен изменяться после передачи
+     * @param result    - результат сравнения со старым перечнем или null для полной перепривязки
+     */
+    @MainThread
+    private void applyItems(@NonNull final List<T> items, @Nullable final CollectionDiff.Result result) {
+        if (isAttached() && isBatching()) {
+            if (!hasPendingReconcile()) {
+                mLayoutItems = mItems;
+            }
+            mItems = items;
+            requestItemsReconcile();
+            return;
+        }
+        mItems = items;
+        if (result == null) {
             notifyDataChanged();
+        } else {
+            applyUpdates(result);
+        }
+    }
+
+    @Override
+    void onReconcileItems() {
+        final List<T> layoutItems = mLayoutItems;
+        mLayoutItems = Collections.emptyList();
+        final CollectionDiff.Result result = calculateDiff(layoutItems, mItems, true);
+        if (result == null) {
+            super.onReconcileItems();
+        } else {
+            applyUpdates(result);
+        }
+    }
+
+    @NonNull
+    static Handler getMainHandler() {
+        synchronized (AbstractCollectionAdapter.class) {
+            if (sMainHandler == null) {
+                sMainHandler = new Handler(Looper.getMainLooper());
+            }
+            return sMainHandler;
         }
     }
 
+    /**
+     * Проверить, представляют ли элементы одну и ту же сущность.
+     * Используется при сравнении старого и нового перечня элементов в {@link #set(List)}.
+     * По умолчанию элементы сравниваются методом {@link Object#equals(Object)}.
+     *
+     * @param oldItem - элемент старого перечня
+     * @param newItem - элемент нового перечня
+     * @return true, если элементы представляют одну сущность
+     */
+    protected boolean areItemsTheSame(@NonNull final T oldItem, @NonNull final T newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    /**
+     * Проверить, совпадает ли отображаемое содержимое элементов, представляющих одну сущность.
+     * Используется при сравнении старого и нового перечня элементов в {@link #set(List)}.
+     * По умолчанию элементы сравниваются методом {@link Object#equals(Object)}.
+     *
+     * @param oldItem - элемент старого перечня
+     * @param newItem - элемент нового перечня
+     * @return true, если перепривязка данных не требуется
+     */
+    protected boolean areContentsTheSame(@NonNull final T oldItem, @NonNull final T newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    /**
+     * Получить описание изменения элемента для частичной перепривязки через
+     * {@link #onBindViewHolder(ChildViewHolder, Object, int, List)}.
+     * Вызывается для элементов, для которых {@link #areContentsTheSame(Object, Object)} вернул false.
+     *
+     * @param oldItem - элемент старого перечня
+     * @param newItem - элемент нового перечня
+     * @return описание изменения или null для полной перепривязки
+     */
+    @Nullable
+    protected Object getChangePayload(@NonNull final T oldItem, @NonNull final T newItem) {
+        return null;
+    }
+
     @Override
     protected final void onBindViewHolder(@NonNull final VH holder, final int position) {
+        onBindViewHolder(holder, getItem(position), position);
+    }
+
+    @Override
+    protected final void onBindViewHolder(@NonNull final VH holder, final int position,
+                                          @NonNull final List<Object> payloads) {
+        onBindViewHolder(holder, getItem(position), position, payloads);
+    }
+
+    protected abstract void onBindViewHolder(
+            @NonNull final VH holder,
+            @NonNull final T item,
+            final int position
+    );
+
+    /**
+     * Частично привязать данные элемента к вью-холдеру.
+     * Реализация по умолчанию выполняет полную привязку.
+     *
+     * @param holder    - вью-холдер
+     * @param item      - элемент коллекции
+     * @param position  - позиция элемента в коллекции
+     * @param payloads  - описания изменений в порядке уведомлений, не пустой список,
+     *                  действительный только во время вызова
+     *                  (см. {@link CollectionAdapter#onBindViewHolder(ChildViewHolder, int, List)})
+     */
+    protected void onBindViewHolder(
+            @NonNull final VH holder,
+            @NonNull final T item,
+            final int position,
+            @NonNull final List<Object> payloads
+    ) {
+        onBindViewHolder(holder, item, position);
+    }
+
+    /**
+     * Получить элемент текущего перечня на указанной позиции. Используется, например,
+     * в {@link #getItemViewType(int)}, {@link #getItemId(int)} и {@link #getItemVersion(int)}.
+     *
+     * @param position - позиция элемента
+     * @return элемент коллекции
+     */
+    @NonNull
+    protected final T getItem(final int position) {
         if (position < 0 || position >= mItems.size()) {
             throw new IndexOutOfBoundsException();
         }
@@ -51,12 +398,52 @@ public abstract class AbstractCollectionAdapter<T, VH extends ChildViewHolder> e
         if (item == null) {
             throw new NullPointerException();
         }
-        onBindViewHolder(holder, item, position);
+        return item;
     }
 
-    protected abstract void onBindViewHolder(
-            @NonNull final VH holder,
-            @NonNull final T item,
-            final int position
-    );
+    /**
+     * Источник данных для сравнения старого и нового перечня элементов.
+     */
+    private final class ItemsDiffCallback extends CollectionDiff.Callback {
+
+        @NonNull
+        private final List<T> mOldItems;
+
+        @NonNull
+        private final List<T> mNewItems;
+
+        ItemsDiffCallback(@NonNull final List<T> oldItems, @NonNull final List<T> newItems) {
+            mOldItems = oldItems;
+            mNewItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(final int oldPosition, final int newPosition) {
+            return AbstractCollectionAdapter.this.areItemsTheSame(
+                    mOldItems.get(oldPosition), mNewItems.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(final int oldPosition, final int newPosition) {
+            return AbstractCollectionAdapter.this.areContentsTheSame(
+                    mOldItems.get(oldPosition), mNewItems.get(newPosition));
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(final int oldPosition, final int newPosition) {
+            return AbstractCollectionAdapter.this.getChangePayload(
+                    mOldItems.get(oldPosition), mNewItems.get(newPosition));
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+/**
+ * Планировщик пакетных обновлений {@link CollectionAdapter}. Накапливает до конца пакетного
+ * обновления согласование дочерних вью с данными и запрос перестроения макета. В автоматическом
+ * режиме пакетное обновление завершается в начале следующего кадра {@link Choreographer}.
+ *
+ * @see CollectionAdapter#beginBatch()
+ * @see CollectionAdapter#setAutoBatchEnabled(boolean)
+ */
+final class BatchUpdateScheduler {
+
+    /**
+     * Отложенное согласование дочерних вью с данными не требуется.
+     */
+    static final int RECONCILE_NONE = 0;
+
+    /**
+     * Требуется отложенное согласование дочерних вью с новым перечнем элементов.
+     */
+    static final int RECONCILE_ITEMS = 1;
+
+    /**
+     * Требуется отложенная полная перепривязка дочерних вью.
+     */
+    static final int RECONCILE_FULL = 2;
+
+    /**
+     * Получатель накопленной работы при завершении пакетного обновления.
+     */
+    interface Host {
+
+        /**
+         * Согласовать дочерние вью с данными.
+         *
+         * @param reconcile - тип согласования ({@link #RECONCILE_ITEMS} или {@link #RECONCILE_FULL})
+         */
+        void onReconcile(int reconcile);
+
+        /**
+         * Запросить перестроение макета родительской вью.
+         */
+        void onLayoutRequested();
+    }
+
+    @NonNull
+    private final Host mHost;
+
+    /**
+     * Глубина вложенности явных пакетных обновлений.
+     */
+    private int mDepth;
+
+    /**
+     * Включен ли автоматический режим.
+     */
+    private boolean mAutoEnabled;
+
+    /**
+     * Отложенное до конца пакетного обновления согласование дочерних вью с данными.
+     */
+    private int mPendingReconcile = RECONCILE_NONE;
+
+    /**
+     * Отложен ли до конца пакетного обновления запрос перестроения макета.
+     */
+    private boolean mLayoutPending;
+
+    /**
+     * Обработчик кадра, завершающий автоматическое пакетное обновление.
+     */
+    @NonNull
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(final long frameTimeNanos) {
+            mFrameScheduled = false;
+            if (mDepth == 0) {
+                flush();
+            }
+        }
+    };
+
+    /**
+     * Запланировано ли завершение автоматического пакетного обновления.
+     */
+    private boolean mFrameScheduled;
+
+    BatchUpdateScheduler(@NonNull final Host host) {
+        mHost = host;
+    }
+
+    /**
+     * Начать явное пакетное обновление.
+     */
+    @MainThread
+    void begin() {
+        ++mDepth;
+    }
+
+    /**
+     * Завершить явное пакетное обновление. При завершении внешнего пакетного обновления
+     * накопленная работа выполняется сразу, а в автоматическом режиме - в следующем кадре.
+     */
+    @MainThread
+    void end() {
+        if (mDepth == 0) {
+            throw new IllegalStateException("endBatch() called without beginBatch().");
+        }
+        --mDepth;
+        if (mDepth == 0) {
+            if (mAutoEnabled) {
+                scheduleFrame();
+            } else {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Включить или выключить автоматический режим. При выключении вне явного
+     * пакетного обновления накопленная работа выполняется сразу.
+     */
+    @MainThread
+    void setAutoEnabled(final boolean enabled) {
+        if (mAutoEnabled == enabled) {
+            return;
+        }
+        mAutoEnabled = enabled;
+        if (!enabled && mDepth == 0) {
+            flush();
+        }
+    }
+
+    boolean isAutoEnabled() {
+        return mAutoEnabled;
+    }
+
+    /**
+     * Выполняется ли сейчас пакетное обновление.
+     */
+    boolean isBatching() {
+        return mDepth > 0 || mAutoEnabled;
+    }
+
+    /**
+     * Есть ли отложенное согласование дочерних вью с данными.
+     */
+    boolean hasPendingReconcile() {
+        return mPendingReconcile != RECONCILE_NONE;
+    }
+
+    /**
+     * Отложить согласование дочерних вью с данными до конца пакетного обновления.
+     * Более полное согласование поглощает менее полное.
+     *
+     * @param reconcile - тип согласования
+     */
+    void requestReconcile(final int reconcile) {
+        mPendingReconcile = Math.max(mPendingReconcile, reconcile);
+        if (mAutoEnabled) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Отложить запрос перестроения макета до конца пакетного обновления.
+     */
+    void requestLayout() {
+        mLayoutPending = true;
+        if (mAutoEnabled) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Выполнить отложенное согласование и запрос перестроения макета.
+     */
+    void flush() {
+        final int reconcile = mPendingReconcile;
+        mPendingReconcile = RECONCILE_NONE;
+        if (reconcile != RECONCILE_NONE) {
+            mHost.onReconcile(reconcile);
+        }
+        if (mLayoutPending) {
+            mHost.onLayoutRequested();
+        }
+        // Согласование само запрашивает перестроение макета, повторный кадр для этого не нужен
+        cancel();
+    }
+
+    /**
+     * Отменить отложенное согласование и запрос перестроения макета.
+     */
+    void cancel() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        mPendingReconcile = RECONCILE_NONE;
+        mLayoutPending = false;
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+}
@@ -4,6 +4,11 @@ import android.view.View;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Базовый класс вью-ходера для дочерней вью из коллекции.
@@ -26,6 +31,12 @@ public abstract class ChildViewHolder {
      */
     private boolean inStash;
 
+    /**
+     * Привязаны ли к вью-холдеру данные элемента на его текущей позиции.
+     * Вью-холдер может находиться в коллекции непривязанным при отложенной привязке.
+     */
+    private boolean bound;
+
     /**
      * Видимость вью до скрытия.
      */
@@ -36,6 +47,27 @@ public abstract class ChildViewHolder {
      */
     private int adapterPosition = CollectionParent.NO_POSITION;
 
+    /**
+     * Стабильный идентификатор элемента, привязанного к вью-холдеру.
+     */
+    private long itemId = CollectionParent.NO_ID;
+
+    /**
+     * Версия содержимого элемента, привязанного к вью-холдеру.
+     */
+    private long itemVersion = CollectionParent.NO_VERSION;
+
+    /**
+     * Накопленные с момента последней привязки описания изменений данных.
+     */
+    @Nullable
+    private List<Object> payloads;
+
+    /**
+     * Требуется ли полная перепривязка данных вместо частичной.
+     */
+    private boolean fullUpdateRequired;
+
     public ChildViewHolder(@NonNull final View view) {
         if (view == null) {
             throw new IllegalArgumentException("View may not be null.");
@@ -72,6 +104,102 @@ public abstract class ChildViewHolder {
         this.adapterPosition = position;
     }
 
+    /**
+     * Получить стабильный идентификатор элемента, привязанного к вью-холдеру.
+     * Если адаптер не поддерживает стабильные идентификаторы, вернет {@link CollectionParent#NO_ID}.
+     */
+    public final long getItemId() {
+        return itemId;
+    }
+
+    /**
+     * Получить версию содержимого элемента, привязанного к вью-холдеру.
+     */
+    final long getItemVersion() {
+        return itemVersion;
+    }
+
+    /**
+     * Запомнить идентификатор и версию содержимого привязанного элемента.
+     *
+     * @param id        - стабильный идентификатор элемента
+     * @param version   - версия содержимого элемента
+     */
+    void setBoundItem(final long id, final long version) {
+        this.itemId = id;
+        this.itemVersion = version;
+    }
+
+    /**
+     * Добавить описание изменения данных для последующей частичной перепривязки.
+     *
+     * @param payload - описание изменения или null, если требуется полная перепривязка
+     */
+    void addPayload(@Nullable final Object payload) {
+        if (payload == null) {
+            fullUpdateRequired = true;
+            return;
+        }
+        if (payloads == null) {
+            payloads = new ArrayList<>();
+        }
+        payloads.add(payload);
+    }
+
+    /**
+     * Есть ли у вью-холдера не примененные изменения данных.
+     */
+    boolean hasPendingUpdate() {
+        return fullUpdateRequired || (payloads != null && !payloads.isEmpty());
+    }
+
+    /**
+     * Требуется ли полная перепривязка данных.
+     */
+    boolean isFullUpdateRequired() {
+        return fullUpdateRequired;
+    }
+
+    /**
+     * Получить накопленные описания изменений данных. Возвращается сам накопительный список,
+     * который очищается методом {@link #clearPayloads()}.
+     */
+    @NonNull
+    List<Object> getPayloads() {
+        return payloads != null ? payloads : Collections.emptyList();
+    }
+
+    /**
+     * Сбросить накопленные изменения данных.
+     */
+    void clearPayloads() {
+        fullUpdateRequired = false;
+        if (payloads != null) {
+            payloads.clear();
+        }
+    }
+
+    /**
+     * Находится ли вью-холдер в скрытом состоянии.
+     */
+    boolean isInStash() {
+        return inStash;
+    }
+
+    /**
+     * Привязаны ли к вью-холдеру данные элемента на его текущей позиции.
+     */
+    public final boolean isBound() {
+        return bound;
+    }
+
+    /**
+     * Задать, привязаны ли к вью-холдеру данные элемента.
+     */
+    void setBound(final boolean bound) {
+        this.bound = bound;
+    }
+
     /**
      * Подготовить вью-холдер к использованию в коллекции.
      */
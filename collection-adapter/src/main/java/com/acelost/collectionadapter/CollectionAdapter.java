@@ -1,12 +1,19 @@
 package com.acelost.collectionadapter;
 
-import android.util.SparseArray;
+import android.util.LongSparseArray;
+import android.util.SparseIntArray;
+import android.view.Choreographer;
+import android.view.View;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Адаптер для дочерних вью внутри {@link CollectionParent}. Отвечает за создание
  * дочерних вью, их жизненный цикл, привязку данных и переиспользование. Адаптер
@@ -18,163 +25,2202 @@ import androidx.annotation.Nullable;
  *
  * @param <VH> - тип вью-холдера для дочерних вью
  */
-public abstract class CollectionAdapter<VH extends ChildViewHolder> {
+public abstract class CollectionAdapter<VH extends ChildViewHolder> implements CollectionLayout.AttachedAdapter {
+
+    /**
+     * Количество дочерних вью, которые могут быть спрятаты в родительском вью без удаления из него по умолчанию.
+     */
+    private static final int DEFAULT_STASH_SIZE = 3;
+
+    /**
+     * Реестр вью-холдеров для дочерних вью, которые сейчас находятся в родительском вью.
+     * Индекс - позиция вью среди дочерних элементов коллекции (НЕ позиция внутри {@link CollectionParent}).
+     */
+    @NonNull
+    private final ViewHolderRegistry<VH> mViewHolders = new ViewHolderRegistry<>();
+
+    /**
+     * Вью-холдеры, удаленные из родительской вью в процессе применения операций обновления.
+     * Переиспользуются для вставляемых элементов, оставшиеся отправляются в пул.
+     */
+    @NonNull
+    private final ArrayList<VH> mUpdateScrap = new ArrayList<>();
+
+    /**
+     * Получатель операций обновления, применяющий их к дочерним вью.
+     */
+    @NonNull
+    private final ViewHolderUpdateCallback mUpdateCallback = new ViewHolderUpdateCallback();
+
+    /**
+     * Вью-холдеры с накопленными описаниями изменений, ожидающие частичной перепривязки.
+     */
+    @NonNull
+    private final ArrayList<VH> mPendingPayloadHolders = new ArrayList<>();
+
+    /**
+     * Обработчик кадра, выполняющий отложенную частичную перепривязку.
+     */
+    @NonNull
+    private final Choreographer.FrameCallback mPayloadFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(final long frameTimeNanos) {
+            mPayloadFrameScheduled = false;
+            dispatchPendingPayloads();
+        }
+    };
+
+    /**
+     * Запланирована ли отложенная частичная перепривязка.
+     */
+    private boolean mPayloadFrameScheduled;
+
+    /**
+     * Планировщик пакетных обновлений.
+     */
+    @NonNull
+    private final BatchUpdateScheduler mBatch = new BatchUpdateScheduler(new BatchUpdateScheduler.Host() {
+        @Override
+        public void onReconcile(final int reconcile) {
+            if (mParent == null) {
+                return;
+            }
+            if (reconcile == BatchUpdateScheduler.RECONCILE_FULL) {
+                dispatchDataChanged();
+            } else {
+                onReconcileItems();
+            }
+        }
+
+        @Override
+        public void onLayoutRequested() {
+            final CollectionParent parent = mParent;
+            if (parent != null) {
+                parent.requestLayout();
+            }
+        }
+    });
+
+    /**
+     * Количество позиций коллекции, к которым сейчас привязаны вью-холдеры.
+     * Вью-холдеры на позициях, начиная с этой, находятся в стеше.
+     */
+    private int mLayoutItemCount;
+
+    /**
+     * Имеют ли элементы коллекции стабильные идентификаторы.
+     */
+    private boolean mHasStableIds;
+
+    /**
+     * Окно позиций, для которых материализуются вью-холдеры элементов.
+     */
+    @NonNull
+    private final CollectionWindow mWindow = new CollectionWindow();
+
+    /**
+     * Планировщик отложенной привязки.
+     */
+    @NonNull
+    private final DeferredBindScheduler<VH> mDeferredBind = new DeferredBindScheduler<>(
+            new DeferredBindScheduler.Host<VH>() {
+                @Override
+                public boolean isReadyToBind() {
+                    // Пока позиции вью-холдеров не согласованы с данными, привязка откладывается
+                    return mParent != null && !hasPendingReconcile() && !mIncrementalUpdate.isRunning();
+                }
+
+                @Override
+                public boolean bindDeferredViewHolder(@NonNull final VH holder) {
+                    // Вью-холдеры, которые с момента откладывания были привязаны, спрятаны
+                    // или отправлены на переиспользование, пропускаются
+                    final int position = holder.getAdapterPosition();
+                    if (holder.isBound() || holder.isInStash() || position == CollectionParent.NO_POSITION
+                            || position >= mLayoutItemCount || mViewHolders.get(position) != holder) {
+                        return false;
+                    }
+                    bindViewHolder(holder, position);
+                    return true;
+                }
+
+                @Override
+                public void onDeferredViewHoldersBound() {
+                    final CollectionParent parent = mParent;
+                    if (parent != null) {
+                        requestParentLayout(parent);
+                    }
+                }
+            });
+
+    /**
+     * Планировщик постепенного обновления.
+     */
+    @NonNull
+    private final IncrementalUpdateScheduler mIncrementalUpdate = new IncrementalUpdateScheduler(
+            new IncrementalUpdateScheduler.Host() {
+                @Override
+                public boolean isReadyToReconcile() {
+                    // При отложенном согласовании данные уже изменились,
+                    // обновление начнется заново в конце пакетного обновления
+                    return mParent != null && !hasPendingReconcile();
+                }
+
+                @Override
+                public void reconcilePosition(final int position) {
+                    final CollectionParent parent = mParent;
+                    if (parent != null) {
+                        CollectionAdapter.this.reconcilePosition(parent, position, mLayoutItemCount,
+                                resolveChildStartOffset());
+                    }
+                }
+
+                @Override
+                public void onIncrementalUpdateSuspended() {
+                    final CollectionParent parent = mParent;
+                    recycleUpdateScrap();
+                    if (parent != null) {
+                        requestParentLayout(parent);
+                    }
+                }
+
+                @Override
+                public void onIncrementalUpdateCompleted(final int count, final long elapsedNs) {
+                    final CollectionParent parent = mParent;
+                    if (parent == null) {
+                        return;
+                    }
+                    final long startNs = System.nanoTime();
+                    completeDataChanged(parent, count);
+                    // Окно могло сместиться во время обновления
+                    reconcileWindow(parent);
+                    recycleUpdateScrap();
+                    bindPrefetchRange();
+                    final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+                    if (metrics != null) {
+                        metrics.onDataChanged(count, elapsedNs + System.nanoTime() - startNs);
+                    }
+                }
+            });
+
+    /**
+     * Сопоставлять ли вью-холдеры новым позициям при следующей полной перепривязке
+     * только по типу вью (см. {@link #notifyDataSetReplaced()}).
+     */
+    private boolean mMatchByTypeOnly;
+
+    /**
+     * Кеш размеров дочерних вью или null, если размеры не кешируются.
+     */
+    @Nullable
+    private CollectionMeasureCache mMeasureCache;
+
+    /**
+     * Политика размера стеша или null, если используется постоянный размер.
+     */
+    @Nullable
+    private CollectionStashPolicy mStashPolicy;
+
+    /**
+     * Буфер для подсчета элементов по типам вью при передаче в {@link #mStashPolicy}.
+     */
+    @NonNull
+    private final SparseIntArray mStashTypeCounts = new SparseIntArray();
+
+    /**
+     * Пул для переиспользования дочерних вью.
+     */
+    @Nullable
+    private CollectionViewHolderPool mRecycledPool;
+
+    /**
+     * Изолированы ли типы вью адаптера в пуле (см. {@link #setViewTypesIsolated(boolean)}).
+     */
+    private boolean mViewTypesIsolated;
+
+    /**
+     * Ассоциативный массив, где ключ - это тип вью адаптера, а значение - изолированный тип вью пула.
+     */
+    @NonNull
+    private final SparseIntArray mPoolViewTypes = new SparseIntArray();
+
+    /**
+     * Ассоциативный массив, где ключ - это изолированный тип вью пула, а значение - тип вью адаптера.
+     */
+    @NonNull
+    private final SparseIntArray mLocalViewTypes = new SparseIntArray();
+
+    /**
+     * Составной адаптер, секцией которого является этот адаптер, или null.
+     */
+    @Nullable
+    private ConcatCollectionAdapter mConcatHost;
+
+    /**
+     * Номер секции в {@link #mConcatHost}.
+     */
+    private int mConcatSection;
+
+    /**
+     * Родительская вью, дочерними вью которого управляет адаптер.
+     */
+    @Nullable
+    private CollectionParent mParent;
+
+    /**
+     * Сохранять ли дочерние вью при отсоединении от родительской вью.
+     */
+    private boolean mRetainViewsOnDetach;
+
+    /**
+     * Родительская вью, в которой после отсоединения остались дочерние вью, или null.
+     */
+    @Nullable
+    private CollectionParent mRetainedParent;
+
+    /**
+     * Изменились ли данные после отсоединения с сохранением дочерних вью.
+     */
+    private boolean mRetainedViewsStale;
+
+    /**
+     * Получить количество необходимых дочерних вью. Это количество может не совпадать
+     * с количеством дочерних вью в {@link CollectionParent}, т.к. реализация {@link CollectionParent}
+     * может содержать как дочерние элементы коллекции, так и отдельные дочерние вью
+     * (например, заголовок, футер или счетчик).
+     *
+     * @return количество дочерних вью, которые потребуется отобразить
+     */
+    public abstract int getItemCount();
+
+    /**
+     * Получить тип для дочерней вью на указанной позиции.
+     * По умолчанию все дочерние вью имеют одинаковый тип.
+     *
+     * @param position - позиция дочерней вью
+     * @return число, идентифицирующее тип вью
+     */
+    protected int getItemViewType(final int position) {
+        return 0;
+    }
+
+    /**
+     * Получить стабильный идентификатор элемента на указанной позиции.
+     * Используется, только если включены стабильные идентификаторы.
+     *
+     * @param position - позиция элемента
+     * @return идентификатор элемента или {@link CollectionParent#NO_ID}
+     * @see #setHasStableIds(boolean)
+     */
+    public long getItemId(final int position) {
+        return CollectionParent.NO_ID;
+    }
+
+    /**
+     * Получить версию содержимого элемента на указанной позиции. Если вью-холдер уже привязан
+     * к элементу с тем же идентификатором и той же версией, {@link #notifyDataChanged()}
+     * не будет перепривязывать его. Версия должна меняться при каждом изменении
+     * отображаемого содержимого элемента.
+     *
+     * @param position - позиция элемента
+     * @return версия содержимого или {@link CollectionParent#NO_VERSION}, если версия
+     * не отслеживается и элемент нужно перепривязывать всегда
+     */
+    protected long getItemVersion(final int position) {
+        return CollectionParent.NO_VERSION;
+    }
+
+    /**
+     * Включить или выключить стабильные идентификаторы элементов. Со стабильными
+     * идентификаторами {@link #notifyDataChanged()} перемещает дочерние вью элементов,
+     * сменивших позицию, вместо перепривязки и пропускает привязку элементов,
+     * версия содержимого которых не изменилась.
+     *
+     * @param hasStableIds - имеют ли элементы стабильные идентификаторы
+     * @see #getItemId(int)
+     * @see #getItemVersion(int)
+     */
+    public void setHasStableIds(final boolean hasStableIds) {
+        if (mParent != null) {
+            throw new IllegalStateException("Cannot change whether this adapter has stable IDs while the adapter is attached.");
+        }
+        mHasStableIds = hasStableIds;
+    }
+
+    /**
+     * Имеют ли элементы коллекции стабильные идентификаторы.
+     */
+    public final boolean hasStableIds() {
+        return mHasStableIds;
+    }
+
+    /**
+     * Получить смещение коллекции дочерних вью внутри родительской от начала {@link CollectionParent}.
+     * Переопределите этот метод, если в родительском вью
+     * есть одиночные дочерние вью перед коллекцией (например, заголовок).
+     *
+     * @return количество дочерних вью в родительской ДО дочерних вью коллекции
+     */
+    protected int getChildStartOffset() {
+        return 0;
+    }
+
+    /**
+     * Получить смещение коллекции дочерних вью внутри родительской от конца {@link CollectionParent}.
+     * Переопределите этот метод, если в родительском вью
+     * есть одиночные дочерние вью после коллекции (например, счетчик "еще").
+     *
+     * @return количество дочерних вью в родительской ПОСЛЕ дочерних вью коллекции
+     */
+    protected int getChildEndOffset() {
+        return 0;
+    }
+
+    /**
+     * Получить количество дочерних вью в родительской до дочерних вью коллекции с учетом
+     * предшествующих секций составного адаптера (см. {@link ConcatCollectionAdapter}).
+     */
+    int resolveChildStartOffset() {
+        final ConcatCollectionAdapter host = mConcatHost;
+        final int offset = getChildStartOffset();
+        return host != null ? host.getSectionStart(mConcatSection) + offset : offset;
+    }
+
+    /**
+     * Получить количество дочерних вью в родительской после дочерних вью коллекции с учетом
+     * последующих секций составного адаптера (см. {@link ConcatCollectionAdapter}).
+     */
+    int resolveChildEndOffset() {
+        final ConcatCollectionAdapter host = mConcatHost;
+        final int offset = getChildEndOffset();
+        return host != null ? host.getSectionEnd(mConcatSection) + offset : offset;
+    }
+
+    // region Attach/Detach logic
+
+    /**
+     * Присоединить экземпляр {@link CollectionParent} к адаптеру.
+     *
+     * @param parent - экземпляр {@link CollectionParent}
+     */
+    @MainThread
+    @CallSuper
+    public void attachToParent(@NonNull final CollectionParent parent) {
+        if (mParent == parent) {
+            return;
+        }
+        final CollectionParent retainedParent = mRetainedParent;
+        if (retainedParent != null && retainedParent != parent) {
+            releaseRetainedViews();
+        }
+        mParent = parent;
+        if (mConcatHost == null && parent instanceof CollectionLayout) {
+            ((CollectionLayout) parent).setAttachedAdapter(this);
+        }
+        if (retainedParent == parent) {
+            mRetainedParent = null;
+            // Сохраненные вью актуальны, если данные не менялись после отсоединения
+            if (!mRetainedViewsStale && getItemCount() == mLayoutItemCount) {
+                return;
+            }
+        }
+        notifyDataChanged();
+    }
+
+    /**
+     * Отсоединить адаптер от {@link CollectionParent}. Если включено сохранение вью
+     * (см. {@link #setRetainViewsOnDetach(boolean)}), дочерние вью остаются в родительской
+     * вью привязанными до повторного присоединения.
+     */
+    @MainThread
+    @CallSuper
+    public void detachFromParent() {
+        final CollectionParent parent = mParent;
+        if (parent == null) {
+            return;
+        }
+        if (mRetainViewsOnDetach) {
+            retainViews(parent);
+        } else {
+            removeViews(parent);
+        }
+        if (mConcatHost == null && parent instanceof CollectionLayout) {
+            ((CollectionLayout) parent).setAttachedAdapter(null);
+        }
+        mParent = null;
+    }
+
+    /**
+     * Включить или выключить сохранение дочерних вью при отсоединении от {@link CollectionParent}.
+     * В этом режиме {@link #detachFromParent()} оставляет дочерние вью в родительской вью
+     * привязанными, а повторное присоединение к той же родительской вью без изменения данных
+     * не создает и не привязывает вью заново. Уведомления об изменении данных, полученные
+     * в отсоединенном состоянии, применяются полной перепривязкой при присоединении.
+     * Присоединение к другой родительской вью освобождает сохраненные вью.
+     *
+     * @param retain - сохранять ли дочерние вью при отсоединении
+     */
+    @MainThread
+    public void setRetainViewsOnDetach(final boolean retain) {
+        mRetainViewsOnDetach = retain;
+        if (!retain) {
+            releaseRetainedViews();
+        }
+    }
+
+    /**
+     * Сохраняются ли дочерние вью при отсоединении от {@link CollectionParent}.
+     */
+    public boolean isRetainViewsOnDetach() {
+        return mRetainViewsOnDetach;
+    }
+
+    /**
+     * Освободить дочерние вью, сохраненные при отсоединении: удалить их из родительской вью
+     * и отправить вью-холдеры на переиспользование. Ничего не делает, если вью не сохранены.
+     */
+    @MainThread
+    public void releaseRetainedViews() {
+        final CollectionParent parent = mRetainedParent;
+        if (parent == null) {
+            return;
+        }
+        mRetainedParent = null;
+        removeViews(parent);
+    }
+
+    /**
+     * Оставить дочерние вью в родительской вью после отсоединения. Отложенная работа
+     * отменяется, поэтому, если она была, при присоединении вью перепривязываются.
+     *
+     * @param parent - родительская вью
+     */
+    private void retainViews(@NonNull final CollectionParent parent) {
+        // Накопленные частичные изменения применяем сразу, чтобы не потерять их
+        dispatchPendingPayloads();
+        mRetainedViewsStale = cancelPendingWork();
+        mRetainedParent = parent;
+    }
+
+    /**
+     * Удалить дочерние вью коллекции из родительской вью и отправить вью-холдеры на переиспользование.
+     *
+     * @param parent - родительская вью
+     */
+    private void removeViews(@NonNull final CollectionParent parent) {
+        // Отправляем вью-холдеры на переиспользование
+        final int size = mViewHolders.size();
+        for (int i = 0; i < size; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder != null) {
+                scrapViewHolder(holder);
+            }
+        }
+        recycleUpdateScrap();
+        // Удаляем все вью из родительского вью
+        cancelPendingWork();
+        reportViewsRemoved(mViewHolders.size());
+        mViewHolders.clear();
+        mLayoutItemCount = 0;
+        final int start = resolveChildStartOffset();
+        parent.removeViewsInLayout(start, parent.getChildCount() - start - resolveChildEndOffset());
+    }
+
+    /**
+     * Отменить всю отложенную работу: частичную перепривязку, пакетное обновление,
+     * отложенную привязку и постепенное обновление.
+     *
+     * @return true, если дочерние вью не были согласованы с данными
+     */
+    private boolean cancelPendingWork() {
+        final boolean pending = isBatching() || hasPendingReconcile() || mIncrementalUpdate.isRunning()
+                || mDeferredBind.hasPending();
+        cancelPendingPayloads();
+        mBatch.cancel();
+        mDeferredBind.cancel();
+        mIncrementalUpdate.cancel();
+        return pending;
+    }
+
+    /**
+     * Получить родительскую вью, к которой нужно применить изменение данных. Если адаптер
+     * отсоединен с сохранением вью, отмечает сохраненные вью устаревшими.
+     *
+     * @return присоединенная родительская вью или null
+     */
+    @Nullable
+    private CollectionParent getParentForUpdate() {
+        if (mParent == null && mRetainedParent != null) {
+            mRetainedViewsStale = true;
+        }
+        return mParent;
+    }
+
+    /**
+     * Присоединен ли адаптер к {@link CollectionParent}.
+     */
+    boolean isAttached() {
+        return mParent != null;
+    }
+
+    /**
+     * Присоединен ли адаптер к указанному {@link CollectionParent}.
+     */
+    boolean isAttachedTo(@NonNull final CollectionParent parent) {
+        return mParent == parent;
+    }
+
+    /**
+     * Сделать адаптер секцией составного адаптера. Дочерние вью секции располагаются
+     * в родительской вью после дочерних вью предшествующих секций.
+     *
+     * @param host      - составной адаптер или null, если адаптер перестает быть секцией
+     * @param section   - номер секции
+     */
+    void setConcatSection(@Nullable final ConcatCollectionAdapter host, final int section) {
+        mConcatHost = host;
+        mConcatSection = section;
+    }
+
+    /**
+     * Является ли адаптер секцией составного адаптера.
+     */
+    boolean isConcatSection() {
+        return mConcatHost != null;
+    }
+
+    // endregion
+
+    /**
+     * Уведомить адаптер об изменении данных для перепривязки дочерних вью.
+     * Данный метод выполняет досоздание/удаление/скрытие/переиспользование
+     * дочерних вью коллекции и перепривязывает к ним данные, после чего
+     * вызывает {@link CollectionParent#requestLayout()} для перестроения макета.
+     */
+    @CallSuper
+    public void notifyDataChanged() {
+        if (getParentForUpdate() == null) {
+            return;
+        }
+        if (isBatching()) {
+            requestReconcile(BatchUpdateScheduler.RECONCILE_FULL);
+            return;
+        }
+        dispatchDataChanged();
+    }
+
+    /**
+     * Уведомить адаптер о замене данных набором, не связанным с прежним (например, при
+     * перепривязке вложенной коллекции в строке RecyclerView). В отличие от
+     * {@link #notifyDataChanged()}, вью-холдеры сопоставляются новым позициям только
+     * по типу вью, без поиска элементов по стабильным идентификаторам, поэтому
+     * вью-холдеры, тип которых совпадает с типом на их позиции, перепривязываются на месте.
+     */
+    @MainThread
+    public void notifyDataSetReplaced() {
+        mMatchByTypeOnly = true;
+        notifyDataChanged();
+    }
+
+    /**
+     * Выполнить полную перепривязку дочерних вью коллекции.
+     */
+    private void dispatchDataChanged() {
+        final CollectionParent parent = getParentForUpdate();
+        if (parent == null) {
+            return;
+        }
+        CollectionTrace.begin(CollectionTrace.DATA_CHANGED);
+        final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+        final long startNs = metrics != null || mIncrementalUpdate.isEnabled() ? System.nanoTime() : 0;
+        final int count = getItemCount();
+        final int childOffset = resolveChildStartOffset();
+        final int layoutCount = mLayoutItemCount;
+        recordItemCount();
+        // Все непривязанные вью-холдеры заново попадут в очередь в цикле привязки
+        mDeferredBind.clear();
+        mIncrementalUpdate.cancel();
+        // Переставляем вью-холдеры элементов, сменивших позицию или тип соседей
+        reorderViewHolders(parent, count);
+        mMatchByTypeOnly = false;
+        if (mIncrementalUpdate.isEnabled()) {
+            // Привязываем коллекцию данных к вью-холдерам постепенно, начиная с видимого диапазона
+            startIncrementalUpdate(count, layoutCount, System.nanoTime() - startNs);
+            CollectionTrace.end();
+            return;
+        }
+        // Привязываем коллекцию данных к вью-холдерам
+        for (int i = 0; i < count; ++i) {
+            reconcilePosition(parent, i, layoutCount, childOffset);
+        }
+        completeDataChanged(parent, count);
+        if (metrics != null) {
+            metrics.onDataChanged(count, System.nanoTime() - startNs);
+        }
+        CollectionTrace.end();
+    }
+
+    /**
+     * Получить вью-холдер подходящего типа для позиции и привязать к нему данные.
+     *
+     * @param parent        - родительская вью
+     * @param position      - позиция элемента в коллекции
+     * @param layoutCount   - количество позиций, к которым были привязаны вью-холдеры до обновления
+     * @param childOffset   - смещение дочерних вью коллекции внутри родительской вью
+     */
+    private void reconcilePosition(@NonNull final CollectionParent parent, final int position,
+                                   final int layoutCount, final int childOffset) {
+        if (position >= layoutCount) {
+            // Коллекция выросла: подбираем из стеша вью-холдер подходящего типа
+            onStashLookup(takeStashedViewHolder(parent, position) != null ? 1 : 0, 1);
+        }
+        final VH holder = getViewHolderForPosition(parent, position, childOffset);
+        if (holder == null) {
+            throw new IllegalStateException("View holder for " + position + " position is null.");
+        }
+        bindOrDeferViewHolder(holder, position);
+    }
+
+    /**
+     * Завершить полную перепривязку: спрятать и отправить на переиспользование
+     * вью-холдеры за пределами коллекции и запросить перестроение макета.
+     *
+     * @param parent    - родительская вью
+     * @param count     - количество элементов коллекции
+     */
+    private void completeDataChanged(@NonNull final CollectionParent parent, final int count) {
+        final int childOffset = resolveChildStartOffset();
+        // Складываем в стеш лишние вью-холдеры
+        final int stashSize = getStashSize();
+        for (int i = 0; i < stashSize; ++i) {
+            final VH holder = mViewHolders.get(count + i);
+            if (holder != null) {
+                stashViewHolder(holder);
+            }
+        }
+        // Отправляем не поместившиеся в стеш вью-холдеры на переиспользование
+        final int start = count + stashSize;
+        final int end = parent.getChildCount() - resolveChildEndOffset() - childOffset;
+        if (start < end) {
+            CollectionTrace.begin(CollectionTrace.REMOVE_VIEWS);
+            for (int i = start; i < end; ++i) {
+                final VH holder = mViewHolders.get(i);
+                if (holder != null) {
+                    scrapViewHolder(holder);
+                }
+            }
+            mViewHolders.truncate(start);
+            parent.removeViewsInLayout(start + childOffset, end - start);
+            CollectionTrace.end();
+            reportViewsRemoved(end - start);
+        }
+        mLayoutItemCount = count;
+        recycleUpdateScrap();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Уведомить адаптер об изменении данных элемента на указанной позиции.
+     *
+     * @param position - позиция измененного элемента
+     */
+    public final void notifyItemChanged(final int position) {
+        notifyItemRangeChanged(position, 1);
+    }
+
+    /**
+     * Уведомить адаптер об изменении данных элементов в указанном диапазоне.
+     * Перепривязываются только вью-холдеры указанного диапазона.
+     *
+     * @param position  - позиция первого измененного элемента
+     * @param count     - количество измененных элементов
+     */
+    @MainThread
+    public final void notifyItemRangeChanged(final int position, final int count) {
+        final CollectionParent parent = getParentForUpdate();
+        invalidateMeasurements(position, count);
+        if (parent == null || count <= 0 || mergeIntoPendingReconcile()) {
+            return;
+        }
+        changeViewHolders(parent, position, count);
+        recycleUpdateScrap();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Уведомить адаптер о частичном изменении данных элемента на указанной позиции.
+     *
+     * @param position  - позиция измененного элемента
+     * @param payload   - описание изменения или null для полной перепривязки
+     * @see #notifyItemRangeChanged(int, int, Object)
+     */
+    public final void notifyItemChanged(final int position, @Nullable final Object payload) {
+        notifyItemRangeChanged(position, 1, payload);
+    }
+
+    /**
+     * Уведомить адаптер о частичном изменении данных элементов в указанном диапазоне.
+     * Описания изменений накапливаются на вью-холдерах до следующего кадра и передаются
+     * единым списком в {@link #onBindViewHolder(ChildViewHolder, int, List)} перед
+     * перестроением макета. Если payload равен null, или тип вью на позиции изменился,
+     * выполняется немедленная полная перепривязка.
+     *
+     * @param position  - позиция первого измененного элемента
+     * @param count     - количество измененных элементов
+     * @param payload   - описание изменения или null для полной перепривязки
+     */
+    @MainThread
+    public final void notifyItemRangeChanged(final int position, final int count,
+                                             @Nullable final Object payload) {
+        final CollectionParent parent = getParentForUpdate();
+        invalidateMeasurements(position, count);
+        if (parent == null || count <= 0 || mergeIntoPendingReconcile()) {
+            return;
+        }
+        changeViewHolders(parent, position, count, payload);
+        recycleUpdateScrap();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Уведомить адаптер о вставке элемента на указанную позицию.
+     *
+     * @param position - позиция вставленного элемента
+     */
+    public final void notifyItemInserted(final int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    /**
+     * Уведомить адаптер о вставке элементов. Создаются и привязываются
+     * только вью-холдеры вставленных элементов, позиции остальных сдвигаются.
+     *
+     * @param position  - позиция первого вставленного элемента
+     * @param count     - количество вставленных элементов
+     */
+    @MainThread
+    public final void notifyItemRangeInserted(final int position, final int count) {
+        final CollectionParent parent = getParentForUpdate();
+        if (parent == null || count <= 0 || mergeIntoPendingReconcile()) {
+            return;
+        }
+        recordItemCount();
+        insertViewHolders(parent, position, count);
+        reconcileWindow(parent);
+        recycleUpdateScrap();
+        bindPrefetchRange();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Уведомить адаптер об удалении элемента с указанной позиции.
+     *
+     * @param position - позиция удаленного элемента
+     */
+    public final void notifyItemRemoved(final int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    /**
+     * Уведомить адаптер об удалении элементов. Удаляются (или прячутся в стеш)
+     * только вью-холдеры удаленных элементов, позиции остальных сдвигаются.
+     *
+     * @param position  - позиция первого удаленного элемента
+     * @param count     - количество удаленных элементов
+     */
+    @MainThread
+    public final void notifyItemRangeRemoved(final int position, final int count) {
+        final CollectionParent parent = getParentForUpdate();
+        if (parent == null || count <= 0 || mergeIntoPendingReconcile()) {
+            return;
+        }
+        recordItemCount();
+        removeViewHolders(parent, position, count);
+        reconcileWindow(parent);
+        recycleUpdateScrap();
+        bindPrefetchRange();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Уведомить адаптер о перемещении элемента. Дочерняя вью элемента
+     * переставляется на новую позицию без перепривязки данных.
+     *
+     * @param fromPosition  - исходная позиция элемента
+     * @param toPosition    - новая позиция элемента
+     */
+    @MainThread
+    public final void notifyItemMoved(final int fromPosition, final int toPosition) {
+        final CollectionParent parent = getParentForUpdate();
+        if (parent == null || fromPosition == toPosition || mergeIntoPendingReconcile()) {
+            return;
+        }
+        moveViewHolder(parent, fromPosition, toPosition);
+        reconcileWindow(parent);
+        recycleUpdateScrap();
+        bindPrefetchRange();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Применить к дочерним вью результат сравнения старой и новой коллекции данных.
+     * Создаются, удаляются, перемещаются и перепривязываются только затронутые
+     * изменениями дочерние вью, после чего вызывается {@link CollectionParent#requestLayout()}.
+     * На момент вызова {@link #getItemCount()} и привязка данных уже должны соответствовать
+     * новой коллекции.
+     *
+     * @param result - результат сравнения коллекций
+     */
+    @MainThread
+    void applyUpdates(@NonNull final CollectionDiff.Result result) {
+        applyUpdates(result, 0);
+    }
+
+    /**
+     * Применить к дочерним вью результат сравнения участков старой и новой коллекции данных,
+     * начинающихся с указанной позиции. Элементы до участка и после него не изменились.
+     *
+     * @param result - результат сравнения участков
+     * @param offset - позиция начала участков в коллекции
+     */
+    @MainThread
+    void applyUpdates(@NonNull final CollectionDiff.Result result, final int offset) {
+        final CollectionParent parent = getParentForUpdate();
+        if (parent == null) {
+            return;
+        }
+        if (mIncrementalUpdate.isRunning()) {
+            // Дочерние вью еще не согласованы со старой коллекцией, точечное обновление невозможно
+            dispatchDataChanged();
+            return;
+        }
+        recordItemCount();
+        mUpdateCallback.mOffset = offset;
+        result.dispatchUpdatesTo(mUpdateCallback);
+        mUpdateCallback.mOffset = 0;
+        reconcileWindow(parent);
+        recycleUpdateScrap();
+        bindPrefetchRange();
+        requestParentLayout(parent);
+    }
+
+    // region Windowing
+
+    /**
+     * Включить или выключить оконный режим. В оконном режиме вью-холдеры элементов
+     * создаются и привязываются только для позиций внутри окна - видимого диапазона,
+     * о котором сообщает родительская вью через {@link #setVisibleRange(int, int)}, расширенного
+     * на {@link #setPrefetchMargin(int)} позиций в обе стороны. Пока видимый диапазон неизвестен,
+     * видимыми считаются все позиции. {@link CollectionLayout} сообщает видимый диапазон
+     * сам, другим родительским вью нужно вызывать {@link #setVisibleRange(int, int)}. Остальные позиции занимают
+     * дешевые заглушки {@link PlaceholderViewHolder} с размером вью элемента, вышедшего
+     * из окна, или размером, заданным в {@link #onBindPlaceholder(PlaceholderViewHolder, int)}.
+     * При смещении окна вью-холдеры элементов переиспользуются через пул.
+     *
+     * @param enabled - включить ли оконный режим
+     */
+    @MainThread
+    public void setWindowingEnabled(final boolean enabled) {
+        if (mWindow.setEnabled(enabled)) {
+            notifyDataChanged();
+        }
+    }
+
+    /**
+     * Включен ли оконный режим.
+     */
+    public boolean isWindowingEnabled() {
+        return mWindow.isEnabled();
+    }
+
+    /**
+     * Задать количество элементов до и после видимого диапазона, для которых
+     * в оконном режиме заранее создаются и привязываются вью-холдеры.
+     *
+     * @param margin - количество элементов
+     */
+    @MainThread
+    public void setPrefetchMargin(final int margin) {
+        if (mWindow.setPrefetchMargin(margin)) {
+            onWindowChanged();
+        }
+    }
+
+    /**
+     * Сообщить адаптеру видимый диапазон позиций коллекции. Вызывается родительской
+     * вью после макета и при прокрутке. В оконном режиме вью-холдеры элементов,
+     * вышедших из окна, заменяются заглушками, а для вошедших в окно создаются и привязываются.
+     * Позиции могут выходить за пределы коллекции, если она видна частично или не видна вовсе.
+     *
+     * @param firstVisible  - первая видимая позиция
+     * @param lastVisible   - последняя видимая позиция
+     */
+    @MainThread
+    public void setVisibleRange(final int firstVisible, final int lastVisible) {
+        if (mWindow.setVisibleRange(firstVisible, lastVisible)) {
+            onWindowChanged();
+        }
+    }
+
+    /**
+     * Сбросить видимый диапазон: до следующего вызова {@link #setVisibleRange(int, int)}
+     * видимыми считаются все позиции.
+     */
+    @MainThread
+    public void clearVisibleRange() {
+        if (mWindow.clearVisibleRange()) {
+            onWindowChanged();
+        }
+    }
+
+    /**
+     * Перевести видимый диапазон дочерних вью {@link CollectionLayout} в позиции коллекции.
+     *
+     * @see CollectionLayout.AttachedAdapter#onVisibleChildrenChanged(int, int)
+     */
+    @MainThread
+    @Override
+    public void onVisibleChildrenChanged(final int firstChild, final int lastChild) {
+        final int childOffset = resolveChildStartOffset();
+        setVisibleRange(firstChild - childOffset, lastChild - childOffset);
+    }
+
+    /**
+     * Привязать заглушку к позиции за пределами окна. Реализация по умолчанию
+     * задает заглушке без размера размер последней вью элемента, вышедшего из окна.
+     * Переопределите, если размеры элементов известны заранее.
+     *
+     * @param placeholder   - заглушка
+     * @param position      - позиция элемента в коллекции
+     */
+    protected void onBindPlaceholder(@NonNull final PlaceholderViewHolder placeholder, final int position) {
+        if (!placeholder.hasExtent()) {
+            placeholder.setExtent(mWindow.getEstimatedExtentWidth(), mWindow.getEstimatedExtentHeight());
+        }
+    }
+
+    /**
+     * Получить тип вью-холдера для позиции с учетом окна.
+     *
+     * @param position - позиция элемента в коллекции
+     * @return тип вью элемента или {@link PlaceholderViewHolder#VIEW_TYPE} за пределами окна
+     */
+    private int resolveViewType(final int position) {
+        return mWindow.contains(position) ? toPoolViewType(getItemViewType(position)) : PlaceholderViewHolder.VIEW_TYPE;
+    }
+
+    /**
+     * Получить тип вью, под которым вью-холдеры хранятся в пуле и реестре.
+     *
+     * @param viewType - тип вью адаптера
+     * @return изолированный тип вью пула, если типы изолированы, иначе viewType
+     */
+    private int toPoolViewType(final int viewType) {
+        if (!mViewTypesIsolated) {
+            return viewType;
+        }
+        final int index = mPoolViewTypes.indexOfKey(viewType);
+        if (index >= 0) {
+            return mPoolViewTypes.valueAt(index);
+        }
+        final int poolViewType = getRecycledViewPool().obtainIsolatedViewType(getViewTypeNamespace(), viewType);
+        mPoolViewTypes.put(viewType, poolViewType);
+        mLocalViewTypes.put(poolViewType, viewType);
+        return poolViewType;
+    }
+
+    /**
+     * Получить тип вью адаптера по типу вью пула.
+     */
+    private int toLocalViewType(final int poolViewType) {
+        return mViewTypesIsolated ? mLocalViewTypes.get(poolViewType, poolViewType) : poolViewType;
+    }
+
+    /**
+     * Получить пространство имен типов вью адаптера в общем пуле (см. {@link #setViewTypesIsolated(boolean)}).
+     * Адаптеры с одним пространством имен получают вью-холдеры друг друга для одинаковых типов вью.
+     * По умолчанию пространство имен - класс адаптера. Переопределите, если экземпляры одного класса
+     * создают для одного типа вью разные вью (например, по макету, переданному в конструктор):
+     * верните значение, определяющее вью (например, идентификатор макета). Пул хранит пространства
+     * имен все время своей жизни, поэтому возвращать сам адаптер или объекты, удерживающие вью, не стоит.
+     *
+     * @return пространство имен, сравниваемое методами {@link Object#equals(Object)} и {@link Object#hashCode()}
+     */
+    @NonNull
+    protected Object getViewTypeNamespace() {
+        return getClass();
+    }
+
+    /**
+     * Изолировать типы вью адаптера в пуле. Вью-холдеры хранятся в пуле под типами,
+     * выданными пулом для пространства имен адаптера (см. {@link #getViewTypeNamespace()}),
+     * поэтому адаптеры из разных пространств имен с общим пулом могут использовать одинаковые типы вью. {@link ChildViewHolder#getViewType()} при этом
+     * возвращает тип вью пула. Вызывается до присоединения к {@link CollectionParent}.
+     *
+     * @param isolated - изолировать ли типы вью
+     */
+    void setViewTypesIsolated(final boolean isolated) {
+        mViewTypesIsolated = isolated;
+        mPoolViewTypes.clear();
+        mLocalViewTypes.clear();
+    }
+
+    /**
+     * Применить смещение окна к дочерним вью.
+     */
+    private void onWindowChanged() {
+        final CollectionParent parent = getParentForUpdate();
+        if (parent == null || (!mWindow.isEnabled() && !mDeferredBind.isEnabled()) || hasPendingReconcile()
+                || mIncrementalUpdate.isRunning()) {
+            // Незавершенное обновление само согласует окно в конце
+            return;
+        }
+        reconcileWindow(parent);
+        recycleUpdateScrap();
+        bindPrefetchRange();
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Заменить заглушками вью-холдеры элементов за пределами окна и
+     * создать вью-холдеры элементов для заглушек внутри окна.
+     *
+     * @param parent - родительская вью
+     */
+    private void reconcileWindow(@NonNull final CollectionParent parent) {
+        if (!mWindow.isEnabled()) {
+            return;
+        }
+        final int childOffset = resolveChildStartOffset();
+        final int count = mLayoutItemCount;
+        // Сначала освобождаем вью-холдеры вышедших из окна элементов, чтобы переиспользовать их
+        for (int i = 0; i < count; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder != null && !isPlaceholder(holder) && !mWindow.contains(i)) {
+                bindViewHolder(getViewHolderForPosition(parent, i, childOffset), i);
+            }
+        }
+        final int start = mWindow.getPrefetchStart();
+        final int end = mWindow.getPrefetchEnd(count);
+        for (int i = start; i < end; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder == null || isPlaceholder(holder)) {
+                bindViewHolder(getViewHolderForPosition(parent, i, childOffset), i);
+            }
+        }
+    }
+
+    private static boolean isPlaceholder(@NonNull final ChildViewHolder holder) {
+        return holder.getViewType() == PlaceholderViewHolder.VIEW_TYPE;
+    }
+
+    @NonNull
+    private static PlaceholderViewHolder asPlaceholder(@NonNull final ChildViewHolder holder) {
+        return (PlaceholderViewHolder) holder;
+    }
+
+    // endregion
+
+    // region Deferred binding
+
+    /**
+     * Включить или выключить отложенную привязку. При отложенной привязке вью-холдеры
+     * всех элементов создаются и добавляются в родительскую вью, но данные сразу
+     * привязываются только к элементам в видимом диапазоне (см. {@link #setVisibleRange(int, int)}),
+     * расширенном на {@link #setPrefetchMargin(int)} позиций. Остальные вью-холдеры остаются
+     * непривязанными ({@link ChildViewHolder#isBound()}) до входа в видимый диапазон,
+     * вызова {@link #ensureViewHolderBound(int)} или простаивания главного потока.
+     *
+     * @param enabled - включить ли отложенную привязку
+     */
+    @MainThread
+    public void setDeferredBindingEnabled(final boolean enabled) {
+        if (mDeferredBind.setEnabled(enabled) && !enabled) {
+            // Привязываем все, что было отложено
+            mIncrementalUpdate.run(Long.MAX_VALUE);
+            mDeferredBind.run(Long.MAX_VALUE);
+            mDeferredBind.cancel();
+        }
+    }
+
+    /**
+     * Включена ли отложенная привязка.
+     */
+    public boolean isDeferredBindingEnabled() {
+        return mDeferredBind.isEnabled();
+    }
+
+    /**
+     * Задать время, которое может быть потрачено на отложенную
+     * привязку за одно простаивание главного потока.
+     *
+     * @param budgetNs - время в наносекундах
+     */
+    public void setDeferredBindBudget(final long budgetNs) {
+        mDeferredBind.setBudget(budgetNs);
+    }
+
+    /**
+     * Немедленно привязать данные к вью-холдеру на указанной позиции, если привязка была отложена.
+     * Вызывается, например, при раскрытии свернутой секции.
+     *
+     * @param position - позиция элемента в коллекции
+     */
+    @MainThread
+    public void ensureViewHolderBound(final int position) {
+        // Вью-холдер на позиции может быть еще не согласован с данными
+        mIncrementalUpdate.run(Long.MAX_VALUE);
+        final CollectionParent parent = mParent;
+        final VH holder = mViewHolders.get(position);
+        if (parent == null || holder == null || holder.isBound() || holder.isInStash()
+                || position >= mLayoutItemCount || hasPendingReconcile()) {
+            return;
+        }
+        bindViewHolder(holder, position);
+        requestParentLayout(parent);
+    }
+
+    /**
+     * Привязать данные к вью-холдеру или отложить привязку,
+     * если позиция за пределами видимого диапазона.
+     *
+     * @param holder    - вью-холдер
+     * @param position  - позиция элемента в коллекции
+     */
+    private void bindOrDeferViewHolder(@NonNull final VH holder, final int position) {
+        if (!isBindRequired(holder, position)) {
+            holder.setAdapterPosition(position);
+            return;
+        }
+        if (!mDeferredBind.isEnabled() || isPlaceholder(holder) || mWindow.isInPrefetchRange(position)) {
+            bindViewHolder(holder, position);
+            return;
+        }
+        holder.setAdapterPosition(position);
+        holder.setBound(false);
+        holder.clearPayloads();
+        holder.setBoundItem(CollectionParent.NO_ID, CollectionParent.NO_VERSION);
+        mDeferredBind.defer(holder);
+    }
+
+    /**
+     * Привязать данные к непривязанным вью-холдерам в видимом диапазоне.
+     */
+    private void bindPrefetchRange() {
+        if (!mDeferredBind.isEnabled()) {
+            return;
+        }
+        final int start = mWindow.getPrefetchStart();
+        final int end = mWindow.getPrefetchEnd(mLayoutItemCount);
+        for (int i = start; i < end; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder != null && !holder.isBound()) {
+                bindViewHolder(holder, i);
+            }
+        }
+    }
+
+    // endregion
+
+    // region Incremental updates
+
+    /**
+     * Включить или выключить постепенное обновление. При постепенном обновлении
+     * {@link #notifyDataChanged()} согласует дочерние вью с данными частями, тратя на это
+     * не больше {@link #setIncrementalFrameBudget(long)} за кадр {@link Choreographer}.
+     * В первую очередь согласуются позиции видимого диапазона (см. {@link #setVisibleRange(int, int)}).
+     * Новые данные, поступившие до завершения обновления, отменяют его и начинают заново.
+     * До завершения обновления часть дочерних вью может отображать старые данные.
+     *
+     * @param enabled - включить ли постепенное обновление
+     */
+    @MainThread
+    public void setIncrementalUpdatesEnabled(final boolean enabled) {
+        if (mIncrementalUpdate.setEnabled(enabled) && !enabled) {
+            // Завершаем начатое обновление
+            mIncrementalUpdate.run(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Включено ли постепенное обновление.
+     */
+    public boolean isIncrementalUpdatesEnabled() {
+        return mIncrementalUpdate.isEnabled();
+    }
+
+    /**
+     * Задать время, которое может быть потрачено на постепенное обновление за один кадр.
+     *
+     * @param budgetNs - время в наносекундах
+     */
+    public void setIncrementalFrameBudget(final long budgetNs) {
+        mIncrementalUpdate.setFrameBudget(budgetNs);
+    }
+
+    /**
+     * Выполняется ли постепенное обновление.
+     */
+    public boolean isIncrementalUpdateRunning() {
+        return mIncrementalUpdate.isRunning();
+    }
+
+    /**
+     * Начать постепенное обновление и выполнить первую часть в текущем кадре.
+     *
+     * @param count         - количество элементов коллекции
+     * @param layoutCount   - количество позиций, к которым были привязаны вью-холдеры до обновления
+     * @param elapsedNs     - время, уже потраченное на подготовку обновления
+     */
+    private void startIncrementalUpdate(final int count, final int layoutCount, final long elapsedNs) {
+        // Позиции видимого диапазона в пределах прежней коллекции можно согласовать в любом порядке,
+        // остальные позиции согласуются по порядку, так как вью-холдеры для них добавляются в конец
+        final int limit = Math.min(count, layoutCount);
+        final int priorityStart = Math.min(mWindow.getPrefetchStart(), limit);
+        final int priorityEnd = Math.max(mWindow.getPrefetchEnd(limit), priorityStart);
+        mIncrementalUpdate.start(count, priorityStart, priorityEnd, elapsedNs);
+    }
+
+    // endregion
+
+    // region Measure cache
+
+    /**
+     * Задать кеш размеров дочерних вью. Кеш используется только со стабильными
+     * идентификаторами (см. {@link #setHasStableIds(boolean)}) и версиями содержимого
+     * (см. {@link #getItemVersion(int)}): дочерняя вью элемента, размер которой с теми же
+     * ограничениями уже известен, измеряется с точными ограничениями, что позволяет
+     * вложенным {@link android.view.ViewGroup} и текстовым вью не вычислять размер содержимого.
+     * Один кеш может использоваться несколькими адаптерами.
+     *
+     * @param cache - кеш размеров или null, чтобы не кешировать размеры
+     */
+    @MainThread
+    public void setMeasureCache(@Nullable final CollectionMeasureCache cache) {
+        mMeasureCache = cache;
+    }
+
+    /**
+     * Получить кеш размеров дочерних вью.
+     */
+    @Nullable
+    public CollectionMeasureCache getMeasureCache() {
+        return mMeasureCache;
+    }
+
+    /**
+     * Измерить дочернюю вью коллекции с учетом кеша размеров. Реализации {@link CollectionParent}
+     * вызывают этот метод вместо {@link View#measure(int, int)} для дочерних вью, которые
+     * нужно измерить; {@link CollectionLayout} делает это сама.
+     *
+     * @param childIndex        - позиция дочерней вью внутри {@link CollectionParent}
+     * @param child             - дочерняя вью
+     * @param widthMeasureSpec  - ограничение по ширине
+     * @param heightMeasureSpec - ограничение по высоте
+     * @return true, если размер вью взят из кеша
+     */
+    @MainThread
+    @Override
+    public boolean measureChild(final int childIndex, @NonNull final View child,
+                                final int widthMeasureSpec, final int heightMeasureSpec) {
+        final CollectionMeasureCache cache = mMeasureCache;
+        final int position = childIndex - resolveChildStartOffset();
+        final VH holder = cache != null && mHasStableIds && position < getItemCount()
+                ? mViewHolders.get(position) : null;
+        if (holder == null || holder.view != child || isPlaceholder(holder) || !holder.isBound()
+                || holder.hasPendingUpdate()) {
+            child.measure(widthMeasureSpec, heightMeasureSpec);
+            return false;
+        }
+        // Размер ищется по текущим данным позиции. Если вью-холдер отображает другой элемент
+        // или другую версию, его размер не соответствует данным и не кешируется
+        final long itemId = getItemId(position);
+        final long itemVersion = getItemVersion(position);
+        if (itemId == CollectionParent.NO_ID || itemVersion == CollectionParent.NO_VERSION
+                || holder.getItemId() != itemId || holder.getItemVersion() != itemVersion) {
+            child.measure(widthMeasureSpec, heightMeasureSpec);
+            return false;
+        }
+        final long size = cache.get(itemId, itemVersion, holder.getViewType(),
+                widthMeasureSpec, heightMeasureSpec);
+        if (size != CollectionMeasureCache.NO_SIZE) {
+            child.measure(
+                    View.MeasureSpec.makeMeasureSpec(CollectionMeasureCache.getWidth(size), View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(CollectionMeasureCache.getHeight(size), View.MeasureSpec.EXACTLY));
+            return true;
+        }
+        child.measure(widthMeasureSpec, heightMeasureSpec);
+        cache.put(itemId, itemVersion, holder.getViewType(),
+                widthMeasureSpec, heightMeasureSpec, child.getMeasuredWidth(), child.getMeasuredHeight());
+        return false;
+    }
+
+    /**
+     * Удалить из кеша размеры элементов указанного диапазона.
+     *
+     * @param position  - позиция первого измененного элемента
+     * @param count     - количество измененных элементов
+     */
+    private void invalidateMeasurements(final int position, final int count) {
+        final CollectionMeasureCache cache = mMeasureCache;
+        if (cache == null || !mHasStableIds) {
+            return;
+        }
+        final int end = Math.min(position + count, getItemCount());
+        for (int i = Math.max(position, 0); i < end; ++i) {
+            final long id = getItemId(i);
+            if (id != CollectionParent.NO_ID) {
+                cache.invalidate(id);
+            }
+        }
+    }
+
+    // endregion
+
+    // region Batch updates
+
+    /**
+     * Начать пакетное обновление. До парного вызова {@link #endBatch()} полная перепривязка
+     * ({@link #notifyDataChanged()}, смена перечня элементов) откладывается, а запросы
+     * перестроения макета объединяются. Пакетные обновления могут быть вложенными.
+     */
+    @MainThread
+    public void beginBatch() {
+        mBatch.begin();
+    }
+
+    /**
+     * Завершить пакетное обновление. При завершении внешнего пакетного обновления
+     * выполняется одно согласование дочерних вью с данными и один запрос перестроения
+     * макета. В автоматическом режиме они откладываются до следующего кадра.
+     */
+    @MainThread
+    public void endBatch() {
+        mBatch.end();
+    }
+
+    /**
+     * Включить или выключить автоматический режим пакетных обновлений. В автоматическом
+     * режиме все уведомления об изменениях в пределах кадра объединяются, а согласование
+     * дочерних вью с данными и запрос перестроения макета выполняются один раз
+     * в начале следующего кадра {@link Choreographer}.
+     *
+     * @param enabled - включить ли автоматический режим
+     */
+    @MainThread
+    public void setAutoBatchEnabled(final boolean enabled) {
+        mBatch.setAutoEnabled(enabled);
+    }
+
+    /**
+     * Включен ли автоматический режим пакетных обновлений.
+     */
+    public boolean isAutoBatchEnabled() {
+        return mBatch.isAutoEnabled();
+    }
+
+    /**
+     * Выполняется ли сейчас пакетное обновление.
+     */
+    boolean isBatching() {
+        return mBatch.isBatching();
+    }
+
+    /**
+     * Есть ли отложенное согласование дочерних вью с данными.
+     */
+    boolean hasPendingReconcile() {
+        return mBatch.hasPendingReconcile();
+    }
+
+    /**
+     * Отложить согласование дочерних вью с новым перечнем элементов до конца пакетного обновления.
+     */
+    void requestItemsReconcile() {
+        requestReconcile(BatchUpdateScheduler.RECONCILE_ITEMS);
+    }
+
+    /**
+     * Согласовать дочерние вью с новым перечнем элементов в конце пакетного обновления.
+     * Реализация по умолчанию выполняет полную перепривязку.
+     */
+    void onReconcileItems() {
+        dispatchDataChanged();
+    }
+
+    /**
+     * Отложить согласование дочерних вью с данными до конца пакетного обновления.
+     *
+     * @param reconcile - тип согласования
+     */
+    private void requestReconcile(final int reconcile) {
+        if (getParentForUpdate() == null) {
+            return;
+        }
+        mBatch.requestReconcile(reconcile);
+    }
+
+    /**
+     * Поглотить точечное уведомление отложенным согласованием, если оно есть:
+     * состояние дочерних вью уже не соответствует данным, и точечное обновление
+     * невозможно, поэтому согласование повышается до полной перепривязки.
+     *
+     * @return true, если уведомление поглощено
+     */
+    private boolean mergeIntoPendingReconcile() {
+        if (!mBatch.hasPendingReconcile()) {
+            if (!mIncrementalUpdate.isRunning()) {
+                return false;
+            }
+            if (!isBatching()) {
+                // Незавершенное постепенное обновление начинается заново с учетом новых данных
+                dispatchDataChanged();
+                return true;
+            }
+        }
+        requestReconcile(BatchUpdateScheduler.RECONCILE_FULL);
+        return true;
+    }
+
+    /**
+     * Запросить перестроение макета родительской вью сразу
+     * или в конце пакетного обновления.
+     *
+     * @param parent - родительская вью
+     */
+    private void requestParentLayout(@NonNull final CollectionParent parent) {
+        if (isBatching()) {
+            mBatch.requestLayout();
+        } else {
+            parent.requestLayout();
+        }
+    }
+
+    // endregion
+
+    // region Update operations
+
+    /**
+     * Получатель операций обновления, применяющий их к присоединенному {@link CollectionParent}.
+     */
+    private final class ViewHolderUpdateCallback implements CollectionUpdateCallback {
+
+        /**
+         * Смещение, прибавляемое к позициям операций, если сравнивался только участок коллекции.
+         */
+        int mOffset;
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            final CollectionParent parent = mParent;
+            if (parent != null) {
+                insertViewHolders(parent, position + mOffset, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            final CollectionParent parent = mParent;
+            if (parent != null) {
+                removeViewHolders(parent, position + mOffset, count);
+            }
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            final CollectionParent parent = mParent;
+            if (parent != null) {
+                moveViewHolder(parent, fromPosition + mOffset, toPosition + mOffset);
+            }
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            final CollectionParent parent = mParent;
+            invalidateMeasurements(position + mOffset, count);
+            if (parent != null) {
+                changeViewHolders(parent, position + mOffset, count, payload);
+            }
+        }
+    }
+
+    /**
+     * Создать и привязать вью-холдеры для вставленных элементов коллекции.
+     * При вставке в конец коллекции в первую очередь используются
+     * спрятанные вью-холдеры подходящего типа.
+     *
+     * @param parent    - родительская вью
+     * @param position  - позиция первого вставленного элемента
+     * @param count     - количество вставленных элементов
+     */
+    private void insertViewHolders(@NonNull final CollectionParent parent,
+                                   final int position, final int count) {
+        final int end = position + count;
+        int start = position;
+        if (position == mLayoutItemCount) {
+            // Достаем вью-холдеры из стеша, пока находятся подходящие по типу
+            while (start < end) {
+                final VH holder = takeStashedViewHolder(parent, start);
+                if (holder == null) {
+                    break;
+                }
+                prepareViewHolder(parent, holder);
+                bindOrDeferViewHolder(holder, start);
+                ++start;
+            }
+            onStashLookup(start - position, count);
+        }
+        final int childOffset = resolveChildStartOffset();
+        if (start < end) {
+            CollectionTrace.begin(CollectionTrace.ADD_VIEWS);
+            mViewHolders.insertRange(start, end - start);
+            for (int i = start; i < end; ++i) {
+                final VH holder = obtainViewHolder(parent, resolveViewType(i));
+                parent.addItemInLayout(holder.view, i + childOffset);
+                prepareViewHolder(parent, holder);
+                mViewHolders.set(i, holder);
+                bindOrDeferViewHolder(holder, i);
+            }
+            CollectionTrace.end();
+            reportViewsAdded(end - start);
+        }
+        mLayoutItemCount += count;
+    }
+
+    /**
+     * Удалить вью-холдеры удаленных элементов коллекции. При удалении с конца
+     * коллекции вью-холдеры складываются в стеш, иначе удаляются из родительской вью.
+     *
+     * @param parent    - родительская вью
+     * @param position  - позиция первого удаленного элемента
+     * @param count     - количество удаленных элементов
+     */
+    private void removeViewHolders(@NonNull final CollectionParent parent,
+                                   final int position, final int count) {
+        final int end = position + count;
+        if (end == mLayoutItemCount) {
+            for (int i = position; i < end; ++i) {
+                final VH holder = mViewHolders.get(i);
+                if (holder != null) {
+                    stashViewHolder(holder);
+                }
+            }
+            mLayoutItemCount -= count;
+            trimStash(parent);
+            return;
+        }
+        CollectionTrace.begin(CollectionTrace.REMOVE_VIEWS);
+        for (int i = position; i < end; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder != null) {
+                scrapViewHolder(holder);
+            }
+        }
+        parent.removeViewsInLayout(position + resolveChildStartOffset(), count);
+        CollectionTrace.end();
+        reportViewsRemoved(count);
+        mViewHolders.removeRange(position, count);
+        mLayoutItemCount -= count;
+    }
+
+    /**
+     * Переместить вью-холдер элемента коллекции на новую позицию без перепривязки данных.
+     *
+     * @param parent        - родительская вью
+     * @param fromPosition  - исходная позиция элемента
+     * @param toPosition    - новая позиция элемента
+     */
+    private void moveViewHolder(@NonNull final CollectionParent parent,
+                                final int fromPosition, final int toPosition) {
+        if (fromPosition == toPosition) {
+            return;
+        }
+        final VH holder = mViewHolders.get(fromPosition);
+        if (holder == null) {
+            throw new IllegalStateException("View holder for " + fromPosition + " position is null.");
+        }
+        parent.removeViewInLayout(holder.view);
+        parent.addItemInLayout(holder.view, toPosition + resolveChildStartOffset());
+        mViewHolders.move(fromPosition, toPosition);
+        holder.setAdapterPosition(toPosition);
+    }
+
+    /**
+     * Перепривязать данные к вью-холдерам измененных элементов коллекции.
+     *
+     * @param parent    - родительская вью
+     * @param position  - позиция первого измененного элемента
+     * @param count     - количество измененных элементов
+     */
+    private void changeViewHolders(@NonNull final CollectionParent parent,
+                                   final int position, final int count) {
+        final int childOffset = resolveChildStartOffset();
+        final int end = position + count;
+        for (int i = position; i < end; ++i) {
+            final VH holder = getViewHolderForPosition(parent, i, childOffset);
+            if (holder == null) {
+                throw new IllegalStateException("View holder for " + i + " position is null.");
+            }
+            bindOrDeferViewHolder(holder, i);
+        }
+    }
+
+    /**
+     * Накопить описание изменения на вью-холдерах элементов указанного диапазона для
+     * частичной перепривязки в следующем кадре. Вью-холдеры, тип которых не совпадает
+     * с типом элемента, перепривязываются полностью немедленно.
+     *
+     * @param parent    - родительская вью
+     * @param position  - позиция первого измененного элемента
+     * @param count     - количество измененных элементов
+     * @param payload   - описание изменения или null для полной перепривязки
+     */
+    private void changeViewHolders(@NonNull final CollectionParent parent, final int position,
+                                   final int count, @Nullable final Object payload) {
+        if (payload == null) {
+            changeViewHolders(parent, position, count);
+            return;
+        }
+        final int end = position + count;
+        for (int i = position; i < end; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder != null && (isPlaceholder(holder) ? !mWindow.contains(i) : !holder.isBound())) {
+                // Заглушку и непривязанный вью-холдер перепривязывать не нужно,
+                // элемент будет привязан полностью при входе в окно или отложенной привязке
+                continue;
+            }
+            if (holder == null || holder.isInStash() || holder.getViewType() != resolveViewType(i)) {
+                changeViewHolders(parent, i, 1);
+                continue;
+            }
+            if (!holder.hasPendingUpdate()) {
+                mPendingPayloadHolders.add(holder);
+            }
+            holder.addPayload(payload);
+        }
+        schedulePendingPayloads();
+    }
+
+    /**
+     * Запланировать частичную перепривязку накопленных изменений на следующий кадр.
+     */
+    private void schedulePendingPayloads() {
+        if (!mPayloadFrameScheduled && !mPendingPayloadHolders.isEmpty()) {
+            mPayloadFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mPayloadFrameCallback);
+        }
+    }
+
+    /**
+     * Выполнить частичную перепривязку вью-холдеров с накопленными изменениями.
+     * Вью-холдеры, которые с момента уведомления были перепривязаны полностью
+     * или отправлены на переиспользование, пропускаются.
+     */
+    private void dispatchPendingPayloads() {
+        final CollectionParent parent = mParent;
+        if (parent == null || mPendingPayloadHolders.isEmpty()) {
+            return;
+        }
+        if (hasPendingReconcile() || mIncrementalUpdate.isRunning()) {
+            // Позиции вью-холдеров еще не согласованы с данными. Накопленные изменения
+            // остаются на вью-холдерах, поэтому согласование перепривяжет их полностью
+            mPendingPayloadHolders.clear();
+            return;
+        }
+        final int size = mPendingPayloadHolders.size();
+        for (int i = 0; i < size; ++i) {
+            final VH holder = mPendingPayloadHolders.get(i);
+            final int position = holder.getAdapterPosition();
+            if (!holder.hasPendingUpdate() || holder.isInStash() || !holder.isBound()
+                    || position == CollectionParent.NO_POSITION || mViewHolders.get(position) != holder) {
+                holder.clearPayloads();
+                continue;
+            }
+            if (holder.isFullUpdateRequired()) {
+                bindViewHolder(holder, position);
+            } else {
+                final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+                final long startNs = metrics != null ? System.nanoTime() : 0;
+                CollectionTrace.beginBind(holder.getViewType());
+                onBindViewHolder(holder, position, holder.getPayloads());
+                CollectionTrace.end();
+                holder.view.forceLayout();
+                holder.clearPayloads();
+                if (mHasStableIds) {
+                    // Вью-холдер теперь отображает текущую версию элемента
+                    holder.setBoundItem(getItemId(position), getItemVersion(position));
+                }
+                if (metrics != null) {
+                    metrics.onViewHolderBound(holder.getViewType(), System.nanoTime() - startNs);
+                }
+            }
+        }
+        mPendingPayloadHolders.clear();
+        parent.requestLayout();
+    }
+
+    /**
+     * Отменить запланированную частичную перепривязку.
+     */
+    private void cancelPendingPayloads() {
+        if (mPayloadFrameScheduled) {
+            mPayloadFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mPayloadFrameCallback);
+        }
+        final int size = mPendingPayloadHolders.size();
+        for (int i = 0; i < size; ++i) {
+            mPendingPayloadHolders.get(i).clearPayloads();
+        }
+        mPendingPayloadHolders.clear();
+    }
 
     /**
-     * Количество дочерних вью, которые могут быть спрятаты в родительском вью без удаления из него по умолчанию.
+     * Сопоставить вью-холдеры новым позициям коллекции и переставить их минимальным
+     * количеством перемещений, чтобы при сдвиге разнотипной коллекции вью-холдеры
+     * не пересоздавались на каждой позиции с несовпавшим типом.
+     * <p>
+     * Вью-холдеры сопоставляются позициям в три прохода: по стабильному идентификатору, затем
+     * оставшиеся - наибольшей общей подпоследовательностью типов вью ({@link CollectionDiff}),
+     * затем оставшиеся - по типу вью в порядке следования.
+     * На месте остаются вью-холдеры наибольшей возрастающей подпоследовательности старых позиций,
+     * остальные сопоставленные вью-холдеры перемещаются. Для несопоставленных позиций внутри
+     * коллекции вставляются новые вью-холдеры, несопоставленные вью-холдеры перед последним
+     * оставшимся на месте откладываются для переиспользования. Данные привязываются позже.
+     *
+     * @param parent    - родительская вью
+     * @param count     - количество элементов коллекции
      */
-    private static final int DEFAULT_STASH_SIZE = 3;
+    private void reorderViewHolders(@NonNull final CollectionParent parent, final int count) {
+        final boolean matchIds = mHasStableIds && !mMatchByTypeOnly;
+        // Обычно все вью-холдеры уже на своих местах: проверяем это без выделения памяти
+        if (!hasMismatchedViewHolders(count, matchIds)) {
+            return;
+        }
+        final int size = mViewHolders.size();
+        final int[] newTypes = new int[count];
+        final long[] newIds = matchIds ? new long[count] : null;
+        for (int i = 0; i < count; ++i) {
+            newTypes[i] = resolveViewType(i);
+            if (newIds != null) {
+                newIds[i] = getItemId(i);
+            }
+        }
+        final ArrayList<VH> holders = new ArrayList<>(size);
+        final int[] oldTypes = new int[size];
+        final long[] oldIds = new long[size];
+        for (int i = 0; i < size; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder == null) {
+                throw new IllegalStateException("View holder for " + i + " position is null.");
+            }
+            holders.add(holder);
+            oldTypes[i] = holder.getViewType();
+            oldIds[i] = holder.getItemId();
+        }
+        final int[] sources = new int[count];
+        final boolean[] matched = new boolean[size];
+        Arrays.fill(sources, CollectionParent.NO_POSITION);
+        // Сопоставляем элементы по стабильному идентификатору
+        int matchedCount = 0;
+        if (newIds != null) {
+            final LongSparseArray<Integer> positionsById = new LongSparseArray<>();
+            for (int i = 0; i < size; ++i) {
+                if (oldIds[i] != CollectionParent.NO_ID) {
+                    positionsById.put(oldIds[i], i);
+                }
+            }
+            for (int i = 0; i < count && positionsById.size() > 0; ++i) {
+                if (newIds[i] == CollectionParent.NO_ID) {
+                    continue;
+                }
+                final Integer source = positionsById.get(newIds[i]);
+                if (source != null && oldTypes[source] == newTypes[i]) {
+                    positionsById.remove(newIds[i]);
+                    sources[i] = source;
+                    matched[source] = true;
+                    ++matchedCount;
+                }
+            }
+        }
+        // Сопоставляем оставшиеся вью-холдеры наибольшей общей подпоследовательностью типов
+        final int[] oldRest = new int[size - matchedCount];
+        final int[] newRest = new int[count - matchedCount];
+        for (int i = 0, k = 0; i < size; ++i) {
+            if (!matched[i]) {
+                oldRest[k++] = i;
+            }
+        }
+        for (int i = 0, k = 0; i < count; ++i) {
+            if (sources[i] == CollectionParent.NO_POSITION) {
+                newRest[k++] = i;
+            }
+        }
+        if (oldRest.length > 0 && newRest.length > 0) {
+            final CollectionDiff.Result diff = CollectionDiff.calculate(new CollectionDiff.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return oldRest.length;
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return newRest.length;
+                }
+
+                @Override
+                public boolean areItemsTheSame(final int oldPosition, final int newPosition) {
+                    return oldTypes[oldRest[oldPosition]] == newTypes[newRest[newPosition]];
+                }
+
+                @Override
+                public boolean areContentsTheSame(final int oldPosition, final int newPosition) {
+                    return true;
+                }
+            }, false);
+            for (int k = 0; k < newRest.length; ++k) {
+                final int source = diff.getOldPosition(k);
+                if (source != CollectionParent.NO_POSITION) {
+                    sources[newRest[k]] = oldRest[source];
+                    matched[oldRest[source]] = true;
+                }
+            }
+        }
+        // Сопоставляем остальные вью-холдеры по типу вью
+        final SparseIntArray typeCursors = new SparseIntArray();
+        for (int i = 0; i < count; ++i) {
+            if (sources[i] != CollectionParent.NO_POSITION) {
+                continue;
+            }
+            int j = typeCursors.get(newTypes[i], 0);
+            while (j < size && (matched[j] || oldTypes[j] != newTypes[i])) {
+                ++j;
+            }
+            if (j < size) {
+                sources[i] = j;
+                matched[j] = true;
+                ++j;
+            }
+            typeCursors.put(newTypes[i], j);
+        }
+        // Оставляем на месте наибольшую возрастающую подпоследовательность старых позиций
+        final boolean[] stays = findLongestIncreasingSources(sources, size);
+        int lastStay = CollectionParent.NO_POSITION;
+        int lastSource = CollectionParent.NO_POSITION;
+        for (int i = 0; i < count; ++i) {
+            if (sources[i] != CollectionParent.NO_POSITION) {
+                lastSource = i;
+                if (stays[sources[i]]) {
+                    lastStay = Math.max(lastStay, sources[i]);
+                }
+            }
+        }
+        // Убираем перемещаемые и лишние вью-холдеры, соседние вью удаляются одним вызовом
+        final int childOffset = resolveChildStartOffset();
+        int removed = 0;
+        int runEnd = size;
+        for (int i = size - 1; i >= 0; --i) {
+            if (!stays[i] && (matched[i] || i < lastStay)) {
+                if (!matched[i]) {
+                    scrapViewHolder(holders.get(i));
+                }
+                continue;
+            }
+            if (i + 1 < runEnd) {
+                removeViewHolderRange(parent, i + 1, runEnd - i - 1, childOffset);
+                removed += runEnd - i - 1;
+            }
+            runEnd = i;
+        }
+        if (runEnd > 0) {
+            removeViewHolderRange(parent, 0, runEnd, childOffset);
+            removed += runEnd;
+        }
+        reportViewsRemoved(removed);
+        // Вставляем перемещаемые и новые вью-холдеры на их позиции
+        int added = 0;
+        for (int i = 0; i <= lastSource; ++i) {
+            final int source = sources[i];
+            if (source != CollectionParent.NO_POSITION && stays[source]) {
+                continue;
+            }
+            final VH holder;
+            if (source != CollectionParent.NO_POSITION) {
+                holder = holders.get(source);
+            } else {
+                holder = obtainViewHolder(parent, newTypes[i]);
+                prepareViewHolder(parent, holder);
+            }
+            mViewHolders.insertRange(i, 1);
+            mViewHolders.set(i, holder);
+            parent.addItemInLayout(holder.view, i + childOffset);
+            if (!holder.isInStash()) {
+                holder.setAdapterPosition(i);
+            }
+            ++added;
+        }
+        reportViewsAdded(added);
+    }
 
     /**
-     * Коллекция вью-холдеров для дочерних вью, которые сейчас находятся в родительском вью.
-     * Ключ - позиция вью среди дочерних элементов коллекции (НЕ позиция внутри {@link CollectionParent}).
+     * Проверить, есть ли позиции, вью-холдер на которых не подходит элементу по типу
+     * или стабильному идентификатору.
+     *
+     * @param count     - количество элементов коллекции
+     * @param matchIds  - сравнивать ли стабильные идентификаторы
+     * @return true, если вью-холдеры нужно переставить
      */
-    @NonNull
-    private final SparseArray<VH> mViewHolders = new SparseArray<>();
+    private boolean hasMismatchedViewHolders(final int count, final boolean matchIds) {
+        final int end = Math.min(count, mViewHolders.size());
+        for (int i = 0; i < end; ++i) {
+            final VH holder = mViewHolders.get(i);
+            if (holder != null && (holder.getViewType() != resolveViewType(i)
+                    || (matchIds && !isSameItemId(holder.getItemId(), getItemId(i))))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
-     * Пул для переиспользования дочерних вью.
+     * Убрать диапазон вью-холдеров из реестра и их вью из родительской вью.
+     *
+     * @param parent        - родительская вью
+     * @param position      - первая убираемая позиция
+     * @param count         - количество убираемых позиций
+     * @param childOffset   - смещение дочерних вью коллекции внутри родительской вью
      */
-    @Nullable
-    private CollectionViewHolderPool mRecycledPool;
+    private void removeViewHolderRange(@NonNull final CollectionParent parent, final int position,
+                                       final int count, final int childOffset) {
+        parent.removeViewsInLayout(position + childOffset, count);
+        mViewHolders.removeRange(position, count);
+    }
 
     /**
-     * Родительская вью, дочерними вью которого управляет адаптер.
+     * Найти наибольшую возрастающую подпоследовательность старых позиций.
+     *
+     * @param sources   - старые позиции вью-холдеров в порядке новых позиций
+     *                  или {@link CollectionParent#NO_POSITION} для несопоставленных позиций
+     * @param size      - количество старых позиций
+     * @return признаки вхождения старых позиций в подпоследовательность
      */
-    @Nullable
-    private CollectionParent mParent;
+    @NonNull
+    private static boolean[] findLongestIncreasingSources(@NonNull final int[] sources, final int size) {
+        // tails[k] - индекс в sources последнего элемента подпоследовательности длины k + 1
+        // с наименьшим последним значением
+        final int[] tails = new int[sources.length];
+        final int[] previous = new int[sources.length];
+        int length = 0;
+        for (int i = 0; i < sources.length; ++i) {
+            final int value = sources[i];
+            if (value == CollectionParent.NO_POSITION) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (sources[tails[middle]] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : CollectionParent.NO_POSITION;
+            tails[low] = i;
+            if (low == length) {
+                ++length;
+            }
+        }
+        final boolean[] stays = new boolean[size];
+        int index = length > 0 ? tails[length - 1] : CollectionParent.NO_POSITION;
+        while (index != CollectionParent.NO_POSITION) {
+            stays[sources[index]] = true;
+            index = previous[index];
+        }
+        return stays;
+    }
 
     /**
-     * Получить количество необходимых дочерних вью. Это количество может не совпадать
-     * с количеством дочерних вью в {@link CollectionParent}, т.к. реализация {@link CollectionParent}
-     * может содержать как дочерние элементы коллекции, так и отдельные дочерние вью
-     * (например, заголовок, футер или счетчик).
-     *
-     * @return количество дочерних вью, которые потребуется отобразить
+     * Проверить, совместимы ли стабильные идентификаторы вью-холдера и элемента:
+     * совпадают или хотя бы один из них не задан.
      */
-    public abstract int getItemCount();
+    private static boolean isSameItemId(final long holderId, final long itemId) {
+        return holderId == CollectionParent.NO_ID || itemId == CollectionParent.NO_ID || holderId == itemId;
+    }
 
     /**
-     * Получить тип для дочерней вью на указанной позиции.
-     * По умолчанию все дочерние вью имеют одинаковый тип.
+     * Проверить, нужно ли привязывать данные к вью-холдеру. Привязка не требуется, если
+     * вью-холдер привязан к элементу с тем же стабильным идентификатором и той же
+     * версией содержимого и не имеет отложенных изменений.
      *
-     * @param position - позиция дочерней вью
-     * @return число, идентифицирующее тип вью
+     * @param holder    - вью-холдер
+     * @param position  - позиция элемента в коллекции
+     * @return true, если требуется привязка данных
      */
-    protected int getItemViewType(final int position) {
-        return 0;
+    private boolean isBindRequired(@NonNull final VH holder, final int position) {
+        if (!holder.isBound() || !mHasStableIds || holder.hasPendingUpdate()) {
+            return true;
+        }
+        final long id = getItemId(position);
+        if (id == CollectionParent.NO_ID || holder.getItemId() != id) {
+            return true;
+        }
+        final long version = getItemVersion(position);
+        return version == CollectionParent.NO_VERSION || holder.getItemVersion() != version;
     }
 
     /**
-     * Получить смещение коллекции дочерних вью внутри родительской от начала {@link CollectionParent}.
-     * Переопределите этот метод, если в родительском вью
-     * есть одиночные дочерние вью перед коллекцией (например, заголовок).
+     * Подобрать спрятанный вью-холдер подходящего типа для позиции, на которую выросла
+     * коллекция. Если на самой позиции спрятан вью-холдер другого типа, подходящий
+     * вью-холдер переставляется на нее из глубины стеша.
      *
-     * @return количество дочерних вью в родительской ДО дочерних вью коллекции
+     * @param parent    - родительская вью
+     * @param position  - позиция, на которую выросла коллекция
+     * @return вью-холдер, находящийся теперь на указанной позиции, или null,
+     * если в стеше нет вью-холдера подходящего типа
      */
-    protected int getChildStartOffset() {
-        return 0;
+    @Nullable
+    private VH takeStashedViewHolder(@NonNull final CollectionParent parent, final int position) {
+        final int type = resolveViewType(position);
+        final VH current = mViewHolders.get(position);
+        VH holder = null;
+        if (current != null && current.getViewType() == type) {
+            holder = current;
+        } else {
+            final int end = mViewHolders.size();
+            for (int i = position + 1; i < end; ++i) {
+                final VH candidate = mViewHolders.get(i);
+                if (candidate != null && candidate.isInStash() && candidate.getViewType() == type) {
+                    moveViewHolder(parent, i, position);
+                    holder = candidate;
+                    break;
+                }
+            }
+        }
+        if (holder != null) {
+            final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+            if (metrics != null) {
+                metrics.onStashHit(type);
+            }
+        }
+        return holder;
     }
 
     /**
-     * Получить смещение коллекции дочерних вью внутри родительской от конца {@link CollectionParent}.
-     * Переопределите этот метод, если в родительском вью
-     * есть одиночные дочерние вью после коллекции (например, счетчик "еще").
+     * Учесть в политике размера стеша результат подбора вью-холдеров из стеша.
      *
-     * @return количество дочерних вью в родительской ПОСЛЕ дочерних вью коллекции
+     * @param hits      - количество позиций, для которых нашелся вью-холдер в стеше
+     * @param lookups   - количество позиций, для которых искался вью-холдер
      */
-    protected int getChildEndOffset() {
-        return 0;
+    private void onStashLookup(final int hits, final int lookups) {
+        if (mStashPolicy != null) {
+            mStashPolicy.onStashLookup(hits, lookups - hits);
+        }
     }
 
-    // region Attach/Detach logic
-
     /**
-     * Присоединить экземпляр {@link CollectionParent} к адаптеру.
-     *
-     * @param parent - экземпляр {@link CollectionParent}
+     * Передать текущее количество элементов и количество элементов по типам вью
+     * в политику размера стеша. Типы вью считаются так же, как их видит стеш.
      */
-    @MainThread
-    @CallSuper
-    public void attachToParent(@NonNull final CollectionParent parent) {
-        if (mParent == parent) {
+    private void recordItemCount() {
+        if (mStashPolicy == null) {
             return;
         }
-        mParent = parent;
-        notifyDataChanged();
+        final int count = getItemCount();
+        mStashPolicy.onItemCountChanged(count);
+        mStashTypeCounts.clear();
+        for (int i = 0; i < count; ++i) {
+            final int viewType = resolveViewType(i);
+            mStashTypeCounts.put(viewType, mStashTypeCounts.get(viewType, 0) + 1);
+        }
+        mStashPolicy.onViewTypeCountsChanged(mStashTypeCounts);
     }
 
     /**
-     * Отсоединить адаптер от {@link CollectionParent}.
+     * Убрать спрятанные вью-холдеры, не поместившиеся в стеш.
+     *
+     * @param parent - родительская вью
      */
-    @MainThread
-    @CallSuper
-    public void detachFromParent() {
-        if (mParent == null) {
+    private void trimStash(@NonNull final CollectionParent parent) {
+        final int start = mLayoutItemCount + getStashSize();
+        final int end = mViewHolders.size();
+        if (start >= end) {
             return;
         }
-        // Отправляем вью-холдеры на переиспользование
-        final int size = mViewHolders.size();
-        for (int i = 0; i < size; ++i) {
-            final VH holder = mViewHolders.valueAt(i);
+        CollectionTrace.begin(CollectionTrace.REMOVE_VIEWS);
+        for (int i = start; i < end; ++i) {
+            final VH holder = mViewHolders.get(i);
             if (holder != null) {
-                recycleViewHolder(holder);
+                scrapViewHolder(holder);
             }
         }
-        // Удаляем все вью из родительского вью
-        mViewHolders.clear();
-        mParent.removeViewsInLayout(getChildStartOffset(), mParent.getChildCount() - getChildEndOffset());
-        mParent = null;
+        mViewHolders.truncate(start);
+        parent.removeViewsInLayout(start + resolveChildStartOffset(), end - start);
+        CollectionTrace.end();
+        reportViewsRemoved(end - start);
     }
 
-    // endregion
+    /**
+     * Отложить вью-холдер, удаляемый из родительской вью, для переиспользования
+     * в рамках текущей операции обновления.
+     *
+     * @param holder - вью-холдер
+     */
+    private void scrapViewHolder(@NonNull final VH holder) {
+        holder.setAdapterPosition(CollectionParent.NO_POSITION);
+        mUpdateScrap.add(holder);
+    }
 
     /**
-     * Уведомить адаптер об изменении данных для перепривязки дочерних вью.
-     * Данный метод выполняет досоздание/удаление/скрытие/переиспользование
-     * дочерних вью коллекции и перепривязывает к ним данные, после чего
-     * вызывает {@link CollectionParent#requestLayout()} для перестроения макета.
+     * Передать получателю событий количество добавленных дочерних вью.
      */
-    @CallSuper
-    public void notifyDataChanged() {
-        final CollectionParent parent = mParent;
-        if (parent == null) {
-            return;
+    private void reportViewsAdded(final int count) {
+        final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+        if (metrics != null && count > 0) {
+            metrics.onViewsAdded(count);
         }
-        final int count = getItemCount();
-        final int childOffset = getChildStartOffset();
-        // Складываем в стеш лишние вью-холдеры
-        final int stashSize = getStashSize();
-        for (int i = 0; i < stashSize; ++i) {
-            final VH holder = getViewHolder(count + i);
-            if (holder != null) {
-                stashViewHolder(holder);
-            }
+        onChildCountChanged(count);
+    }
+
+    /**
+     * Передать получателю событий количество удаленных дочерних вью.
+     */
+    private void reportViewsRemoved(final int count) {
+        final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+        if (metrics != null && count > 0) {
+            metrics.onViewsRemoved(count);
         }
-        // Отправляем не поместившиеся в стеш вью-холдеры на переиспользование
-        final int start = count + stashSize;
-        final int end = parent.getChildCount() - getChildEndOffset() - childOffset;
-        if (start < end) {
-            for (int i = start; i < end; ++i) {
-                final VH holder = getViewHolder(i);
-                if (holder != null) {
-                    recycleViewHolder(holder);
-                    mViewHolders.delete(i);
-                }
-            }
-            parent.removeViewsInLayout(start + getChildStartOffset(), end - start);
+        onChildCountChanged(-count);
+    }
+
+    /**
+     * Сообщить составному адаптеру об изменении количества дочерних вью секции в родительской вью.
+     *
+     * @param delta - количество добавленных (положительное) или удаленных (отрицательное) вью
+     */
+    void onChildCountChanged(final int delta) {
+        if (mConcatHost != null && delta != 0) {
+            mConcatHost.onSectionChildCountChanged(mConcatSection, delta);
         }
-        // Привязываем коллекцию данных к вью-холдерам
-        for (int i = 0; i < count; ++i) {
-            final VH holder = getViewHolderForPosition(parent, i, childOffset);
-            if (holder == null) {
-                throw new IllegalStateException("View holder for " + i + " position is null.");
-            }
-            bindViewHolder(holder, i);
+    }
+
+    /**
+     * Отправить на переиспользование вью-холдеры, оставшиеся после применения операций обновления.
+     * Вью-холдеры передаются в пул одним пакетом.
+     */
+    private void recycleUpdateScrap() {
+        final int size = mUpdateScrap.size();
+        if (size == 0) {
+            return;
         }
-        parent.requestLayout();
+        for (int i = 0; i < size; ++i) {
+            releaseViewHolder(mUpdateScrap.get(i));
+        }
+        getRecycledViewPool().putRecycledViews(mUpdateScrap);
+        mUpdateScrap.clear();
     }
 
+    // endregion
+
     // region Holder relevant methods
 
     /**
@@ -182,18 +2228,20 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
      *
      * @param position - позиция в коллекции
      * @return экземпляр вью-холдера или null, если вью-холдер
-     * для указанной позиции не найден
+     * для указанной позиции не найден или позиция находится за пределами окна
+     * (см. {@link #setWindowingEnabled(boolean)})
      */
     @Nullable
     public final VH getViewHolder(final int position) {
-        return mViewHolders.get(position);
+        final VH holder = mViewHolders.get(position);
+        return holder != null && !isPlaceholder(holder) ? holder : null;
     }
 
     /**
      * Получить правильный вью-холдер для указанной позиции. В случае, если вью-холдер на
      * указанной позции подходит по типу, он будет переиспользован, иначе старый вью-холлдер
-     * будет отдан в пул для переиспользования, а новый будет получен из {@link #mRecycledPool},
-     * либо создан методом {@link #onCreateViewHolder(CollectionParent, int)}.
+     * будет отложен для переиспользования, а новый будет получен методом
+     * {@link #obtainViewHolder(CollectionParent, int)}.
      *
      * @param parent        - родительская вью
      * @param position      - позиция, для которой необходимо получить вью-холдер
@@ -204,10 +2252,12 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
     private VH getViewHolderForPosition(@NonNull final CollectionParent parent,
                                         final int position, final int childOffset) {
         // Получаем тип элемента
-        final int type = getItemViewType(position);
+        final int type = resolveViewType(position);
         // Получаем вью-холдер, который на данный момент на указанной позиции
-        VH holder = getViewHolder(position);
+        VH holder = mViewHolders.get(position);
         boolean useExists = false;
+        int replacedWidth = 0;
+        int replacedHeight = 0;
         if (holder != null) {
             if (holder.getViewType() == type) {
                 // Тип вью-холдера совпадает с типом элемента
@@ -215,20 +2265,52 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
                 prepareViewHolder(parent, holder);
             } else {
                 // Вью-холдер не подходит по типу
-                recycleViewHolder(holder);
+                if (!isPlaceholder(holder)) {
+                    replacedWidth = holder.view.getWidth();
+                    replacedHeight = holder.view.getHeight();
+                }
+                scrapViewHolder(holder);
                 parent.removeViewInLayout(holder.view);
+                reportViewsRemoved(1);
             }
         }
         if (!useExists) {
             // Создаем новый вью-холдер и добавляем его в родительский вью
-            holder = createViewHolder(parent, type);
+            holder = obtainViewHolder(parent, type);
             parent.addItemInLayout(holder.view, position + childOffset);
+            reportViewsAdded(1);
             prepareViewHolder(parent, holder);
-            mViewHolders.put(position, holder);
+            mViewHolders.set(position, holder);
+            if (isPlaceholder(holder) && (replacedWidth > 0 || replacedHeight > 0)) {
+                // Заглушка занимает место вышедшей из окна вью элемента
+                mWindow.setEstimatedExtent(replacedWidth, replacedHeight);
+                asPlaceholder(holder).setExtent(replacedWidth, replacedHeight);
+            }
         }
         return holder;
     }
 
+    /**
+     * Получить вью-холдер указанного типа. В первую очередь переиспользуются вью-холдеры
+     * из {@link #mUpdateScrap}, затем из {@link #mRecycledPool}, иначе будет создан
+     * новый методом {@link #onCreateViewHolder(CollectionParent, int)}.
+     *
+     * @param parent    - родительская вью
+     * @param viewType  - тип вью
+     * @return экземпляр вью-холдера указанного типа
+     */
+    @NonNull
+    private VH obtainViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+        for (int i = mUpdateScrap.size() - 1; i >= 0; --i) {
+            final VH holder = mUpdateScrap.get(i);
+            if (holder.getViewType() == viewType) {
+                mUpdateScrap.remove(i);
+                return holder;
+            }
+        }
+        return createViewHolder(parent, viewType);
+    }
+
     /**
      * Создать вью-холдер указанного типа. Если в {@link #mRecycledPool}
      * есть подходящий вью-холдер, он будет переиспользован. Иначе будет создан
@@ -242,20 +2324,69 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
     private VH createViewHolder(@NonNull final CollectionParent parent, final int viewType) {
         final ChildViewHolder recycled = getRecycledViewPool().getRecycledView(viewType);
         if (recycled != null) {
+            CollectionAdapterEnvironment.logEvent(CollectionEventLog.EVENT_POOL_HIT, viewType, this);
             if (CollectionAdapterEnvironment.LOGGING_ENABLED) {
                 CollectionAdapterEnvironment.log("View holder of type " + viewType + " taken from pool " + getRecycledViewPool() + ".");
             }
             //noinspection unchecked
             return (VH) recycled;
         }
+        CollectionAdapterEnvironment.logEvent(CollectionEventLog.EVENT_VIEW_HOLDER_CREATED, viewType, this);
         if (CollectionAdapterEnvironment.LOGGING_ENABLED) {
             CollectionAdapterEnvironment.log("View holder of type " + viewType + " created by adapter.");
         }
-        final VH holder = onCreateViewHolder(parent, viewType);
+        return newViewHolder(parent, viewType);
+    }
+
+    /**
+     * Создать новый вью-холдер указанного типа методом {@link #onCreateViewHolder(CollectionParent, int)}.
+     *
+     * @param parent    - родительская вью
+     * @param viewType  - тип вью
+     * @return экземпляр вью-холдера указанного типа
+     */
+    @NonNull
+    private VH newViewHolder(@NonNull final CollectionParent parent, final int viewType) {
+        if (viewType == PlaceholderViewHolder.VIEW_TYPE) {
+            // Заглушка хранится в реестре наравне с вью-холдерами элементов, но не передается
+            // наследнику: getViewHolder(), привязка, подготовка и переиспользование
+            // пропускают заглушки (см. isPlaceholder())
+            @SuppressWarnings("unchecked")
+            final VH placeholder = (VH) new PlaceholderViewHolder(parent.getContext());
+            return placeholder;
+        }
+        final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+        final long startNs = metrics != null ? System.nanoTime() : 0;
+        CollectionTrace.beginCreate(viewType);
+        final VH holder = onCreateViewHolder(parent, toLocalViewType(viewType));
+        CollectionTrace.end();
         holder.setViewType(viewType);
+        if (metrics != null) {
+            metrics.onViewHolderCreated(viewType, System.nanoTime() - startNs);
+        }
         return holder;
     }
 
+    /**
+     * Предварительно наполнить пул вью-холдерами указанного типа в моменты простаивания
+     * главного потока, чтобы последующая привязка коллекции не создавала их синхронно.
+     *
+     * @param viewType  - тип вью
+     * @param count     - желаемое количество вью-холдеров этого типа в пуле
+     * @param parent    - родительская вью, для которой создаются вью-холдеры
+     * @see CollectionViewHolderPool#prewarm(int, int, CollectionViewHolderPool.ViewHolderFactory)
+     */
+    @MainThread
+    public void prewarm(final int viewType, final int count, @NonNull final CollectionParent parent) {
+        getRecycledViewPool().prewarm(toPoolViewType(viewType), count, new CollectionViewHolderPool.ViewHolderFactory() {
+            @NonNull
+            @Override
+            public ChildViewHolder createViewHolder(final int type) {
+                return newViewHolder(parent, type);
+            }
+        });
+    }
+
     /**
      * Создать новый экземпляр вью-холерда указанного типа.
      *
@@ -273,8 +2404,30 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
      * @param position  - позиция вью-холдера в коллекции
      */
     private void bindViewHolder(@NonNull final VH holder, final int position) {
+        if (isPlaceholder(holder)) {
+            onBindPlaceholder(asPlaceholder(holder), position);
+            holder.setBound(true);
+            holder.setAdapterPosition(position);
+            holder.clearPayloads();
+            holder.setBoundItem(CollectionParent.NO_ID, CollectionParent.NO_VERSION);
+            return;
+        }
+        final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+        final long startNs = metrics != null ? System.nanoTime() : 0;
+        CollectionTrace.beginBind(holder.getViewType());
         onBindViewHolder(holder, position);
+        CollectionTrace.end();
+        // Помечаем вью перепривязанной, чтобы CollectionLayout не пропустил ее измерение
+        holder.view.forceLayout();
+        holder.setBound(true);
         holder.setAdapterPosition(position);
+        holder.clearPayloads();
+        if (mHasStableIds) {
+            holder.setBoundItem(getItemId(position), getItemVersion(position));
+        }
+        if (metrics != null) {
+            metrics.onViewHolderBound(holder.getViewType(), System.nanoTime() - startNs);
+        }
     }
 
     /**
@@ -285,6 +2438,24 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
      */
     protected abstract void onBindViewHolder(@NonNull final VH holder, final int position);
 
+    /**
+     * Частично привязать данные к вью холдеру на указанной позиции. Вызывается вместо
+     * {@link #onBindViewHolder(ChildViewHolder, int)}, если с момента последней привязки
+     * данные элемента изменялись только через {@link #notifyItemChanged(int, Object)}.
+     * Реализация по умолчанию выполняет полную привязку. Список описаний изменений
+     * переиспользуется вью-холдером и очищается сразу после вызова, поэтому его нельзя
+     * изменять или сохранять: для отложенной обработки нужно скопировать его содержимое.
+     *
+     * @param holder    - вью-холдер
+     * @param position  - позиция вью-холдера в коллекции
+     * @param payloads  - описания изменений в порядке уведомлений, не пустой список,
+     *                  действительный только во время вызова
+     */
+    protected void onBindViewHolder(@NonNull final VH holder, final int position,
+                                    @NonNull final List<Object> payloads) {
+        onBindViewHolder(holder, position);
+    }
+
     /**
      * Подготовить вью-холдер к использованию.
      *
@@ -293,7 +2464,9 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
      */
     private void prepareViewHolder(@NonNull final CollectionParent parent, @NonNull final VH holder) {
         holder.prepare();
-        onPrepareViewHolder(parent, holder);
+        if (!isPlaceholder(holder)) {
+            onPrepareViewHolder(parent, holder);
+        }
     }
 
     /**
@@ -308,16 +2481,19 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
     }
 
     /**
-     * Освободить ресурсы, захваченные вью-холдером
-     * и поместить в пул для переиспользования.
+     * Освободить ресурсы, захваченные вью-холдером, перед помещением в пул для переиспользования.
      *
      * @param holder - вью-холдер
      */
-    private void recycleViewHolder(@NonNull final VH holder) {
-        onRecycleViewHolder(holder);
+    private void releaseViewHolder(@NonNull final VH holder) {
+        if (!isPlaceholder(holder)) {
+            onRecycleViewHolder(holder);
+        }
         holder.onRecycle();
+        holder.setBound(false);
         holder.setAdapterPosition(CollectionParent.NO_POSITION);
-        getRecycledViewPool().putRecycledView(holder);
+        holder.clearPayloads();
+        holder.setBoundItem(CollectionParent.NO_ID, CollectionParent.NO_VERSION);
     }
 
     /**
@@ -347,9 +2523,31 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
      * могут быть скрыты без удаления из макета.
      */
     protected int getStashSize() {
+        if (mStashPolicy != null) {
+            return mStashPolicy.getStashSize(getItemCount());
+        }
         return DEFAULT_STASH_SIZE;
     }
 
+    /**
+     * Задать политику размера стеша. Без политики в стеше
+     * держится постоянное количество вью-холдеров. С политикой при каждом
+     * обновлении коллекции определяются типы вью всех элементов.
+     *
+     * @param policy - политика размера стеша или null
+     */
+    public void setStashPolicy(@Nullable final CollectionStashPolicy policy) {
+        mStashPolicy = policy;
+    }
+
+    /**
+     * Получить политику размера стеша.
+     */
+    @Nullable
+    public CollectionStashPolicy getStashPolicy() {
+        return mStashPolicy;
+    }
+
     /**
      * Получить пул для переиспользованных вью-холдеров.
      */
@@ -366,6 +2564,9 @@ public abstract class CollectionAdapter<VH extends ChildViewHolder> {
      */
     public void setRecycledViewPool(@Nullable final CollectionViewHolderPool pool) {
         mRecycledPool = pool;
+        // Изолированные типы вью выдаются каждым пулом заново
+        mPoolViewTypes.clear();
+        mLocalViewTypes.clear();
     }
 
     // endregion
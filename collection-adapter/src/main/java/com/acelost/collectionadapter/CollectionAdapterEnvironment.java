@@ -1,17 +1,94 @@
 package com.acelost.collectionadapter;
 
 import android.util.Log;
+import android.util.Printer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * Окружение, в котором работает {@link CollectionAdapter} и его дружественные классы.
  */
 public class CollectionAdapterEnvironment {
 
+    /**
+     * Выводить события адаптеров и пулов в logcat. Формирование строк выделяет память,
+     * поэтому для профилирования лучше использовать {@link #EVENT_LOG_ENABLED}.
+     */
     public static boolean LOGGING_ENABLED = false;
 
+    /**
+     * Записывать события адаптеров и пулов в {@link #getEventLog() журнал событий}
+     * без выделения памяти. Не зависит от {@link #LOGGING_ENABLED}.
+     */
+    public static boolean EVENT_LOG_ENABLED = false;
+
     public static boolean DEBUG = false;
 
+    /**
+     * Получатель событий адаптеров и пулов или null, если статистика не собирается.
+     */
+    @Nullable
+    private static CollectionMetricsListener sMetricsListener;
+
+    /**
+     * Журнал событий, записываемых при включенном {@link #EVENT_LOG_ENABLED}.
+     */
+    @NonNull
+    private static final CollectionEventLog sEventLog = new CollectionEventLog();
+
     static void log(Object message) {
         Log.i("CollectionAdapterLog", message.toString());
     }
+
+    /**
+     * Записать событие в журнал, если включен {@link #EVENT_LOG_ENABLED}. Не выделяет память.
+     *
+     * @param event     - тип события, одна из констант CollectionEventLog.EVENT_*
+     * @param viewType  - тип вью
+     * @param source    - объект, сообщивший о событии
+     */
+    static void logEvent(final int event, final int viewType, @NonNull final Object source) {
+        if (EVENT_LOG_ENABLED) {
+            sEventLog.record(event, viewType, source);
+        }
+    }
+
+    /**
+     * Получить журнал событий адаптеров и пулов.
+     */
+    @NonNull
+    public static CollectionEventLog getEventLog() {
+        return sEventLog;
+    }
+
+    /**
+     * Вывести журнал событий в logcat.
+     */
+    public static void dumpEventLog() {
+        sEventLog.dump(new Printer() {
+            @Override
+            public void println(final String x) {
+                log(x);
+            }
+        });
+    }
+
+    /**
+     * Установить получатель событий всех адаптеров и пулов.
+     *
+     * @param listener - получатель событий или null, чтобы прекратить сбор статистики
+     * @see CollectionMetrics
+     */
+    public static void setMetricsListener(@Nullable final CollectionMetricsListener listener) {
+        sMetricsListener = listener;
+    }
+
+    /**
+     * Получить установленный получатель событий.
+     */
+    @Nullable
+    public static CollectionMetricsListener getMetricsListener() {
+        return sMetricsListener;
+    }
 }
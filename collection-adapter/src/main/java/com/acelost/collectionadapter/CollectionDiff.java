@@ -0,0 +1,618 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Утилита для вычисления разницы между двумя коллекциями элементов. Результатом является
+ * минимальный набор операций вставки/удаления/перемещения/изменения, переводящий старую
+ * коллекцию в новую. Наибольшая общая подпоследовательность ищется алгоритмом Майерса
+ * в варианте с линейным потреблением памяти, перемещения определяются отдельным проходом
+ * по удаленным и вставленным элементам, если их пар не больше {@link #MAX_MOVE_DETECTION_PAIRS}.
+ * Каркас алгоритма заимствован из androidx.recyclerview.widget.DiffUtil.
+ */
+public final class CollectionDiff {
+
+    /**
+     * Наибольшее количество пар удаленных и вставленных элементов, которые сравниваются
+     * при определении перемещений. Проход по парам квадратичен, поэтому при большем
+     * количестве пар перемещения не определяются и передаются как удаления и вставки.
+     */
+    static final int MAX_MOVE_DETECTION_PAIRS = 1 << 16;
+
+    private CollectionDiff() {
+        // no instances
+    }
+
+    /**
+     * Источник данных для вычисления разницы между коллекциями.
+     */
+    public abstract static class Callback {
+
+        /**
+         * Получить размер старой коллекции.
+         */
+        public abstract int getOldListSize();
+
+        /**
+         * Получить размер новой коллекции.
+         */
+        public abstract int getNewListSize();
+
+        /**
+         * Проверить, представляют ли элементы старой и новой коллекции одну и ту же сущность.
+         *
+         * @param oldPosition   - позиция элемента в старой коллекции
+         * @param newPosition   - позиция элемента в новой коллекции
+         * @return true, если элементы представляют одну сущность
+         */
+        public abstract boolean areItemsTheSame(int oldPosition, int newPosition);
+
+        /**
+         * Проверить, совпадает ли содержимое элементов старой и новой коллекции.
+         * Вызывается только для элементов, для которых {@link #areItemsTheSame(int, int)} вернул true.
+         *
+         * @param oldPosition   - позиция элемента в старой коллекции
+         * @param newPosition   - позиция элемента в новой коллекции
+         * @return true, если перепривязка данных для элемента не требуется
+         */
+        public abstract boolean areContentsTheSame(int oldPosition, int newPosition);
+
+        /**
+         * Получить описание изменения элемента для частичной перепривязки.
+         * Вызывается только для элементов, для которых {@link #areContentsTheSame(int, int)} вернул false.
+         *
+         * @param oldPosition   - позиция элемента в старой коллекции
+         * @param newPosition   - позиция элемента в новой коллекции
+         * @return описание изменения или null для полной перепривязки
+         */
+        @Nullable
+        public Object getChangePayload(final int oldPosition, final int newPosition) {
+            return null;
+        }
+    }
+
+    /**
+     * Вычислить разницу между коллекциями с определением перемещений.
+     *
+     * @param callback - источник данных о коллекциях
+     * @return результат сравнения коллекций
+     */
+    @NonNull
+    public static Result calculate(@NonNull final Callback callback) {
+        return calculate(callback, true);
+    }
+
+    /**
+     * Вычислить разницу между коллекциями.
+     *
+     * @param callback      - источник данных о коллекциях
+     * @param detectMoves   - нужно ли определять перемещения элементов
+     * @return результат сравнения коллекций
+     */
+    @NonNull
+    public static Result calculate(@NonNull final Callback callback, final boolean detectMoves) {
+        final Result result = calculate(callback, detectMoves, Integer.MAX_VALUE);
+        if (result == null) {
+            throw new IllegalStateException("Diff is not bounded by edit distance.");
+        }
+        return result;
+    }
+
+    /**
+     * Вычислить разницу между коллекциями, если для перевода старой коллекции в новую достаточно
+     * указанного количества вставок и удалений. Алгоритм Майерса выполняет O((N + M) * D) сравнений,
+     * где D - количество вставок и удалений, поэтому ограничение D ограничивает и время сравнения
+     * мало похожих коллекций, для которых результат все равно не пригодится.
+     *
+     * @param callback          - источник данных о коллекциях
+     * @param detectMoves       - нужно ли определять перемещения элементов
+     * @param maxEditDistance   - наибольшее количество вставок и удалений (приблизительно)
+     * @return результат сравнения коллекций или null, если коллекции различаются сильнее
+     */
+    @Nullable
+    static Result calculate(@NonNull final Callback callback, final boolean detectMoves, final int maxEditDistance) {
+        final int oldSize = callback.getOldListSize();
+        final int newSize = callback.getNewListSize();
+
+        final List<Diagonal> diagonals = new ArrayList<>();
+        final List<Range> stack = new ArrayList<>();
+        stack.add(new Range(0, oldSize, 0, newSize));
+        final int max = (oldSize + newSize + 1) / 2;
+        final CenteredArray forward = new CenteredArray(max * 2 + 1);
+        final CenteredArray backward = new CenteredArray(max * 2 + 1);
+        while (!stack.isEmpty()) {
+            final Range range = stack.remove(stack.size() - 1);
+            final Snake snake = midPoint(range, callback, forward, backward, maxEditDistance);
+            if (snake == null) {
+                if (range.oldSize() > 0 && range.newSize() > 0
+                        && getMaxSteps(range, maxEditDistance) < getMaxSteps(range, Integer.MAX_VALUE)) {
+                    // Средний участок не найден из-за ограничения количества вставок и удалений
+                    return null;
+                }
+            } else {
+                if (snake.diagonalSize() > 0) {
+                    diagonals.add(snake.toDiagonal());
+                }
+                stack.add(new Range(range.oldStart, snake.startX, range.newStart, snake.startY));
+                stack.add(new Range(snake.endX, range.oldEnd, snake.endY, range.newEnd));
+            }
+        }
+        Collections.sort(diagonals, DIAGONAL_COMPARATOR);
+
+        final int[] newPositions = new int[oldSize];
+        final int[] oldPositions = new int[newSize];
+        Arrays.fill(newPositions, CollectionParent.NO_POSITION);
+        Arrays.fill(oldPositions, CollectionParent.NO_POSITION);
+        final boolean[] moved = new boolean[newSize];
+        final boolean[] changed = new boolean[newSize];
+        Object[] payloads = null;
+        for (final Diagonal diagonal : diagonals) {
+            for (int i = 0; i < diagonal.size; ++i) {
+                newPositions[diagonal.x + i] = diagonal.y + i;
+                oldPositions[diagonal.y + i] = diagonal.x + i;
+            }
+        }
+        if (detectMoves && !diagonals.isEmpty() && isMoveDetectionAffordable(diagonals, oldSize, newSize)) {
+            for (int oldPosition = 0; oldPosition < oldSize; ++oldPosition) {
+                if (newPositions[oldPosition] != CollectionParent.NO_POSITION) {
+                    continue;
+                }
+                for (int newPosition = 0; newPosition < newSize; ++newPosition) {
+                    if (oldPositions[newPosition] == CollectionParent.NO_POSITION
+                            && callback.areItemsTheSame(oldPosition, newPosition)) {
+                        newPositions[oldPosition] = newPosition;
+                        oldPositions[newPosition] = oldPosition;
+                        moved[newPosition] = true;
+                        break;
+                    }
+                }
+            }
+        }
+        for (int newPosition = 0; newPosition < newSize; ++newPosition) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition != CollectionParent.NO_POSITION
+                    && !callback.areContentsTheSame(oldPosition, newPosition)) {
+                changed[newPosition] = true;
+                final Object payload = callback.getChangePayload(oldPosition, newPosition);
+                if (payload != null) {
+                    if (payloads == null) {
+                        payloads = new Object[newSize];
+                    }
+                    payloads[newPosition] = payload;
+                }
+            }
+        }
+        return new Result(newPositions, oldPositions, moved, changed, payloads);
+    }
+
+    /**
+     * Проверить, что количество пар удаленных и вставленных элементов не превышает
+     * {@link #MAX_MOVE_DETECTION_PAIRS}. Если общих участков нет, ни один элемент
+     * не совпадает ни с одним другим и перемещения искать незачем.
+     */
+    private static boolean isMoveDetectionAffordable(@NonNull final List<Diagonal> diagonals,
+                                                     final int oldSize, final int newSize) {
+        int matched = 0;
+        for (final Diagonal diagonal : diagonals) {
+            matched += diagonal.size;
+        }
+        return (long) (oldSize - matched) * (newSize - matched) <= MAX_MOVE_DETECTION_PAIRS;
+    }
+
+    /**
+     * Результат сравнения двух коллекций.
+     */
+    public static final class Result {
+
+        /**
+         * Позиции элементов старой коллекции в новой коллекции
+         * ({@link CollectionParent#NO_POSITION} для удаленных элементов).
+         */
+        @NonNull
+        private final int[] mNewPositions;
+
+        /**
+         * Позиции элементов новой коллекции в старой коллекции
+         * ({@link CollectionParent#NO_POSITION} для вставленных элементов).
+         */
+        @NonNull
+        private final int[] mOldPositions;
+
+        /**
+         * Признаки перемещения элементов новой коллекции.
+         */
+        @NonNull
+        private final boolean[] mMoved;
+
+        /**
+         * Признаки изменения содержимого элементов новой коллекции.
+         */
+        @NonNull
+        private final boolean[] mChanged;
+
+        /**
+         * Описания изменений элементов новой коллекции или null, если описаний нет.
+         */
+        @Nullable
+        private final Object[] mPayloads;
+
+        private Result(@NonNull final int[] newPositions, @NonNull final int[] oldPositions,
+                       @NonNull final boolean[] moved, @NonNull final boolean[] changed,
+                       @Nullable final Object[] payloads) {
+            mNewPositions = newPositions;
+            mOldPositions = oldPositions;
+            mMoved = moved;
+            mChanged = changed;
+            mPayloads = payloads;
+        }
+
+        /**
+         * Получить количество элементов новой коллекции, которые
+         * присутствовали в старой коллекции и не требуют перепривязки.
+         */
+        public int getUnchangedCount() {
+            int count = 0;
+            for (int i = 0; i < mOldPositions.length; ++i) {
+                if (mOldPositions[i] != CollectionParent.NO_POSITION && !mChanged[i]) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Получить позицию элемента новой коллекции в старой коллекции.
+         *
+         * @param newPosition - позиция элемента в новой коллекции
+         * @return позиция в старой коллекции или {@link CollectionParent#NO_POSITION} для вставленного элемента
+         */
+        int getOldPosition(final int newPosition) {
+            return mOldPositions[newPosition];
+        }
+
+        /**
+         * Проверить, совпадают ли коллекции.
+         */
+        public boolean isEmpty() {
+            if (mNewPositions.length != mOldPositions.length) {
+                return false;
+            }
+            for (int i = 0; i < mOldPositions.length; ++i) {
+                if (mOldPositions[i] != i || mChanged[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Передать операции обновления получателю. Сначала передаются удаления
+         * (с конца коллекции), затем перемещения, вставки и изменения.
+         *
+         * @param callback - получатель операций
+         */
+        public void dispatchUpdatesTo(@NonNull final CollectionUpdateCallback callback) {
+            final int oldSize = mNewPositions.length;
+            final int newSize = mOldPositions.length;
+            // Удаления
+            int removeEnd = CollectionParent.NO_POSITION;
+            for (int i = oldSize - 1; i >= 0; --i) {
+                if (mNewPositions[i] == CollectionParent.NO_POSITION) {
+                    if (removeEnd == CollectionParent.NO_POSITION) {
+                        removeEnd = i + 1;
+                    }
+                } else if (removeEnd != CollectionParent.NO_POSITION) {
+                    callback.onRemoved(i + 1, removeEnd - i - 1);
+                    removeEnd = CollectionParent.NO_POSITION;
+                }
+            }
+            if (removeEnd != CollectionParent.NO_POSITION) {
+                callback.onRemoved(0, removeEnd);
+            }
+            // Перемещения: каждый перемещенный элемент ставится сразу за своим предшественником
+            final int[] ranks = new int[newSize];
+            int keptCount = 0;
+            for (int i = 0; i < newSize; ++i) {
+                ranks[i] = mOldPositions[i] == CollectionParent.NO_POSITION ? CollectionParent.NO_POSITION : keptCount++;
+            }
+            final int[] current = new int[keptCount];
+            int index = 0;
+            for (int i = 0; i < oldSize; ++i) {
+                if (mNewPositions[i] != CollectionParent.NO_POSITION) {
+                    current[index++] = ranks[mNewPositions[i]];
+                }
+            }
+            for (int i = 0; i < newSize; ++i) {
+                if (!mMoved[i]) {
+                    continue;
+                }
+                final int rank = ranks[i];
+                final int from = indexOf(current, rank);
+                final int anchor = rank == 0 ? CollectionParent.NO_POSITION : indexOf(current, rank - 1);
+                final int to = from > anchor ? anchor + 1 : anchor;
+                if (from != to) {
+                    callback.onMoved(from, to);
+                    move(current, from, to);
+                }
+            }
+            // Вставки
+            int insertStart = CollectionParent.NO_POSITION;
+            for (int i = 0; i <= newSize; ++i) {
+                if (i < newSize && mOldPositions[i] == CollectionParent.NO_POSITION) {
+                    if (insertStart == CollectionParent.NO_POSITION) {
+                        insertStart = i;
+                    }
+                } else if (insertStart != CollectionParent.NO_POSITION) {
+                    callback.onInserted(insertStart, i - insertStart);
+                    insertStart = CollectionParent.NO_POSITION;
+                }
+            }
+            // Изменения: соседние элементы объединяются, если у них одинаковое описание изменения
+            int changeStart = CollectionParent.NO_POSITION;
+            for (int i = 0; i <= newSize; ++i) {
+                if (changeStart != CollectionParent.NO_POSITION
+                        && (i == newSize || !mChanged[i] || getPayload(i) != getPayload(changeStart))) {
+                    callback.onChanged(changeStart, i - changeStart, getPayload(changeStart));
+                    changeStart = CollectionParent.NO_POSITION;
+                }
+                if (i < newSize && mChanged[i] && changeStart == CollectionParent.NO_POSITION) {
+                    changeStart = i;
+                }
+            }
+        }
+
+        @Nullable
+        private Object getPayload(final int newPosition) {
+            return mPayloads != null ? mPayloads[newPosition] : null;
+        }
+
+        private static int indexOf(@NonNull final int[] array, final int value) {
+            for (int i = 0; i < array.length; ++i) {
+                if (array[i] == value) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Value " + value + " not found.");
+        }
+
+        private static void move(@NonNull final int[] array, final int from, final int to) {
+            final int value = array[from];
+            if (from < to) {
+                System.arraycopy(array, from + 1, array, from, to - from);
+            } else {
+                System.arraycopy(array, to, array, to + 1, from - to);
+            }
+            array[to] = value;
+        }
+    }
+
+    // region Myers algorithm
+
+    @NonNull
+    private static final Comparator<Diagonal> DIAGONAL_COMPARATOR = new Comparator<Diagonal>() {
+        @Override
+        public int compare(final Diagonal first, final Diagonal second) {
+            return first.x - second.x;
+        }
+    };
+
+    @Nullable
+    private static Snake midPoint(@NonNull final Range range, @NonNull final Callback callback,
+                                  @NonNull final CenteredArray forward, @NonNull final CenteredArray backward,
+                                  final int maxEditDistance) {
+        if (range.oldSize() < 1 || range.newSize() < 1) {
+            return null;
+        }
+        final int max = getMaxSteps(range, maxEditDistance);
+        forward.set(1, range.oldStart);
+        backward.set(1, range.oldEnd);
+        for (int d = 0; d < max; ++d) {
+            Snake snake = forward(range, callback, forward, backward, d);
+            if (snake != null) {
+                return snake;
+            }
+            snake = backward(range, callback, forward, backward, d);
+            if (snake != null) {
+                return snake;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Получить количество шагов поиска среднего участка. Средний участок пути с D вставками
+     * и удалениями находится на шаге D / 2 с округлением вверх.
+     */
+    private static int getMaxSteps(@NonNull final Range range, final int maxEditDistance) {
+        return Math.min((range.oldSize() + range.newSize() + 1) / 2, maxEditDistance / 2 + 2);
+    }
+
+    @Nullable
+    private static Snake forward(@NonNull final Range range, @NonNull final Callback callback,
+                                 @NonNull final CenteredArray forward, @NonNull final CenteredArray backward,
+                                 final int d) {
+        final boolean checkForSnake = Math.abs(range.oldSize() - range.newSize()) % 2 == 1;
+        final int delta = range.oldSize() - range.newSize();
+        for (int k = -d; k <= d; k += 2) {
+            final int startX;
+            int x;
+            if (k == -d || (k != d && forward.get(k + 1) > forward.get(k - 1))) {
+                x = startX = forward.get(k + 1);
+            } else {
+                startX = forward.get(k - 1);
+                x = startX + 1;
+            }
+            int y = range.newStart + (x - range.oldStart) - k;
+            final int startY = (d == 0 || x != startX) ? y : y - 1;
+            while (x < range.oldEnd && y < range.newEnd && callback.areItemsTheSame(x, y)) {
+                ++x;
+                ++y;
+            }
+            forward.set(k, x);
+            if (checkForSnake) {
+                final int backwardK = delta - k;
+                if (backwardK >= -d + 1 && backwardK <= d - 1 && backward.get(backwardK) <= x) {
+                    return new Snake(startX, startY, x, y, false);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Snake backward(@NonNull final Range range, @NonNull final Callback callback,
+                                  @NonNull final CenteredArray forward, @NonNull final CenteredArray backward,
+                                  final int d) {
+        final boolean checkForSnake = (range.oldSize() - range.newSize()) % 2 == 0;
+        final int delta = range.oldSize() - range.newSize();
+        for (int k = -d; k <= d; k += 2) {
+            final int startX;
+            int x;
+            if (k == -d || (k != d && backward.get(k + 1) < backward.get(k - 1))) {
+                x = startX = backward.get(k + 1);
+            } else {
+                startX = backward.get(k - 1);
+                x = startX - 1;
+            }
+            int y = range.newEnd - ((range.oldEnd - x) - k);
+            final int startY = (d == 0 || x != startX) ? y : y + 1;
+            while (x > range.oldStart && y > range.newStart && callback.areItemsTheSame(x - 1, y - 1)) {
+                --x;
+                --y;
+            }
+            backward.set(k, x);
+            if (checkForSnake) {
+                final int forwardK = delta - k;
+                if (forwardK >= -d && forwardK <= d && forward.get(forwardK) >= x) {
+                    return new Snake(x, y, startX, startY, true);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Участок совпадающих элементов: элементы старой коллекции [x, x + size)
+     * совпадают с элементами новой коллекции [y, y + size).
+     */
+    private static final class Diagonal {
+
+        final int x;
+
+        final int y;
+
+        final int size;
+
+        Diagonal(final int x, final int y, final int size) {
+            this.x = x;
+            this.y = y;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Путь на графе редактирования: не более одной вставки или удаления и участок совпадений.
+     */
+    private static final class Snake {
+
+        final int startX;
+
+        final int startY;
+
+        final int endX;
+
+        final int endY;
+
+        final boolean reverse;
+
+        Snake(final int startX, final int startY, final int endX, final int endY, final boolean reverse) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.reverse = reverse;
+        }
+
+        int diagonalSize() {
+            return Math.min(endX - startX, endY - startY);
+        }
+
+        @NonNull
+        Diagonal toDiagonal() {
+            final boolean hasAdditionOrRemoval = endY - startY != endX - startX;
+            if (hasAdditionOrRemoval) {
+                if (reverse) {
+                    return new Diagonal(startX, startY, diagonalSize());
+                }
+                if (endY - startY > endX - startX) {
+                    return new Diagonal(startX, startY + 1, diagonalSize());
+                }
+                return new Diagonal(startX + 1, startY, diagonalSize());
+            }
+            return new Diagonal(startX, startY, endX - startX);
+        }
+    }
+
+    /**
+     * Диапазоны старой и новой коллекции, для которых ищется разница.
+     */
+    private static final class Range {
+
+        final int oldStart;
+
+        final int oldEnd;
+
+        final int newStart;
+
+        final int newEnd;
+
+        Range(final int oldStart, final int oldEnd, final int newStart, final int newEnd) {
+            this.oldStart = oldStart;
+            this.oldEnd = oldEnd;
+            this.newStart = newStart;
+            this.newEnd = newEnd;
+        }
+
+        int oldSize() {
+            return oldEnd - oldStart;
+        }
+
+        int newSize() {
+            return newEnd - newStart;
+        }
+    }
+
+    /**
+     * Массив с индексацией от -size/2 до size/2.
+     */
+    private static final class CenteredArray {
+
+        @NonNull
+        private final int[] mData;
+
+        private final int mMid;
+
+        CenteredArray(final int size) {
+            mData = new int[size];
+            mMid = mData.length / 2;
+        }
+
+        int get(final int index) {
+            return mData[index + mMid];
+        }
+
+        void set(final int index, final int value) {
+            mData[index + mMid] = value;
+        }
+    }
+
+    // endregion
+
+}
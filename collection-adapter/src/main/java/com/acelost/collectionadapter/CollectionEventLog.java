@@ -0,0 +1,154 @@
+package com.acelost.collectionadapter;
+
+import android.util.Printer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+/**
+ * Журнал событий адаптеров и пулов. События хранятся в кольцевом буфере примитивных
+ * массивов фиксированного размера, поэтому запись события не выделяет память и не
+ * формирует строк. Строки формируются только при выводе журнала методом {@link #dump(Printer)}.
+ * События записываются, пока включен {@link CollectionAdapterEnvironment#EVENT_LOG_ENABLED}.
+ * Журнал не синхронизирован: адаптеры и пулы записывают события в главном потоке,
+ * читать и очищать журнал также нужно в главном потоке.
+ *
+ * @see CollectionAdapterEnvironment#getEventLog()
+ */
+public final class CollectionEventLog {
+
+    /**
+     * Адаптер создал новый вью-холдер.
+     */
+    public static final int EVENT_VIEW_HOLDER_CREATED = 1;
+
+    /**
+     * Адаптер взял вью-холдер из пула.
+     */
+    public static final int EVENT_POOL_HIT = 2;
+
+    /**
+     * Вью-холдер не поместился в пул.
+     */
+    public static final int EVENT_POOL_OVERFLOW = 3;
+
+    /**
+     * Пул создал вью-холдер при предварительном наполнении.
+     */
+    public static final int EVENT_PREWARMED = 4;
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    @NonNull
+    private final long[] mTimesNs;
+
+    @NonNull
+    private final int[] mEvents;
+
+    @NonNull
+    private final int[] mViewTypes;
+
+    @NonNull
+    private final int[] mSources;
+
+    /**
+     * Индекс, по которому будет записано следующее событие.
+     */
+    private int mNext;
+
+    /**
+     * Количество событий в журнале.
+     */
+    private int mCount;
+
+    public CollectionEventLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity - количество хранимых последних событий
+     */
+    public CollectionEventLog(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        mTimesNs = new long[capacity];
+        mEvents = new int[capacity];
+        mViewTypes = new int[capacity];
+        mSources = new int[capacity];
+    }
+
+    /**
+     * Записать событие. Самое старое событие вытесняется, если журнал заполнен.
+     *
+     * @param event     - тип события, одна из констант EVENT_*
+     * @param viewType  - тип вью
+     * @param source    - объект, сообщивший о событии (адаптер или пул)
+     */
+    @MainThread
+    public void record(final int event, final int viewType, @NonNull final Object source) {
+        mTimesNs[mNext] = System.nanoTime();
+        mEvents[mNext] = event;
+        mViewTypes[mNext] = viewType;
+        mSources[mNext] = System.identityHashCode(source);
+        mNext = (mNext + 1) % mEvents.length;
+        if (mCount < mEvents.length) {
+            ++mCount;
+        }
+    }
+
+    /**
+     * Получить количество событий в журнале.
+     */
+    @MainThread
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Очистить журнал.
+     */
+    @MainThread
+    public void clear() {
+        mNext = 0;
+        mCount = 0;
+    }
+
+    /**
+     * Вывести события журнала от старых к новым.
+     *
+     * @param printer - получатель строк
+     */
+    @MainThread
+    public void dump(@NonNull final Printer printer) {
+        final int capacity = mEvents.length;
+        final int first = (mNext - mCount + capacity) % capacity;
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < mCount; ++i) {
+            final int index = (first + i) % capacity;
+            builder.setLength(0);
+            builder.append(mTimesNs[index]).append(' ')
+                    .append(getEventName(mEvents[index]))
+                    .append(" type=").append(mViewTypes[index])
+                    .append(" source=").append(Integer.toHexString(mSources[index]));
+            printer.println(builder.toString());
+        }
+    }
+
+    @NonNull
+    private static String getEventName(final int event) {
+        switch (event) {
+            case EVENT_VIEW_HOLDER_CREATED:
+                return "created";
+            case EVENT_POOL_HIT:
+                return "pool_hit";
+            case EVENT_POOL_OVERFLOW:
+                return "pool_overflow";
+            case EVENT_PREWARMED:
+                return "prewarmed";
+            default:
+                return "unknown(" + event + ")";
+        }
+    }
+
+}
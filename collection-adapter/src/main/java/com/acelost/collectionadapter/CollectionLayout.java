@@ -0,0 +1,428 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Базовая {@link ViewGroup} коллекции, которая сама является {@link CollectionParent}
+ * и может быть передана в {@link CollectionAdapter#attachToParent(CollectionParent)} напрямую.
+ * <p>
+ * Наследники измеряют дочерние вью методом {@link #measureCollectionChild(int, View, int, int)},
+ * который пропускает измерение чистых дочерних вью. Вью считается чистой, если она уже
+ * измерялась с теми же ограничениями и с тех пор не запрашивала перестроение макета.
+ * Адаптер помечает привязанные вью через {@link View#forceLayout()}, а добавленные вью
+ * еще ни разу не измерялись, поэтому после {@link CollectionAdapter#notifyDataChanged()}
+ * повторно измеряются только добавленные и перепривязанные дочерние вью.
+ * <p>
+ * Вдоль основной оси вью с размером WRAP_CONTENT измеряются без ограничения
+ * ({@link View.MeasureSpec#UNSPECIFIED}), как в прокручиваемых контейнерах. Поэтому
+ * ограничения дочерней вью не зависят от размеров соседей и сохраняются между измерениями.
+ * <p>
+ * Если у присоединенного адаптера задан кеш размеров ({@link CollectionAdapter#setMeasureCache}),
+ * измерение дочерних вью выполняется через {@link CollectionAdapter#measureChild(int, View, int, int)}.
+ * <p>
+ * После каждого макета и при прокрутке любого предка вью сообщает присоединенному адаптеру
+ * видимый диапазон дочерних вью (см. {@link CollectionAdapter#setVisibleRange(int, int)}),
+ * чтобы оконный режим, отложенная привязка и постепенное обновление работали без участия
+ * прикладного кода.
+ */
+public abstract class CollectionLayout extends ViewGroup implements CollectionParent {
+
+    /**
+     * Параметры макета дочерних вью {@link CollectionLayout}: отступы и результаты
+     * последнего измерения и расстановки.
+     */
+    public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+
+        /**
+         * Ограничение по ширине, с которым вью измерялась в последний раз.
+         */
+        int mWidthMeasureSpec;
+
+        /**
+         * Ограничение по высоте, с которым вью измерялась в последний раз.
+         */
+        int mHeightMeasureSpec;
+
+        /**
+         * Измерялась ли вью с момента добавления в родительскую.
+         */
+        boolean mMeasured;
+
+        /**
+         * Ограничение по ширине, с которым вью измерялась для определения собственной ширины
+         * (см. {@link CollectionLayout#measureCollectionChildWidth(int, View, int, int)}).
+         */
+        int mNaturalWidthMeasureSpec;
+
+        /**
+         * Ограничение по высоте, с которым вью измерялась для определения собственной ширины.
+         */
+        int mNaturalHeightMeasureSpec;
+
+        /**
+         * Собственная ширина вью, измеренная с {@link #mNaturalWidthMeasureSpec}.
+         */
+        int mNaturalWidth;
+
+        /**
+         * Измерялась ли собственная ширина вью с момента добавления в родительскую.
+         */
+        boolean mNaturalMeasured;
+
+        /**
+         * Левая граница вью относительно левой границы родительской, вычисленная при измерении.
+         */
+        int mLeft;
+
+        /**
+         * Верхняя граница вью относительно верхней границы родительской, вычисленная при измерении.
+         */
+        int mTop;
+
+        public LayoutParams(final int width, final int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        public LayoutParams(@NonNull final ViewGroup.MarginLayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(@NonNull final ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+
+    /**
+     * Адаптер, присоединенный к {@link CollectionLayout}: измеряет дочерние вью
+     * и получает видимый диапазон. Реализуется адаптерами коллекций.
+     */
+    interface AttachedAdapter {
+
+        /**
+         * Измерить дочернюю вью коллекции.
+         *
+         * @see CollectionAdapter#measureChild(int, View, int, int)
+         */
+        boolean measureChild(int childIndex, @NonNull View child, int widthMeasureSpec, int heightMeasureSpec);
+
+        /**
+         * Сообщить видимый диапазон дочерних вью.
+         *
+         * @param firstChild    - позиция первой видимой дочерней вью
+         * @param lastChild     - позиция последней видимой дочерней вью
+         * @see CollectionAdapter#setVisibleRange(int, int)
+         */
+        void onVisibleChildrenChanged(int firstChild, int lastChild);
+    }
+
+    /**
+     * Адаптер, присоединенный к этой вью, или null.
+     */
+    @Nullable
+    private AttachedAdapter mAdapter;
+
+    /**
+     * Первая видимая дочерняя вью, о которой последний раз сообщалось адаптеру,
+     * или {@link CollectionParent#NO_POSITION}.
+     */
+    private int mReportedFirstChild = NO_POSITION;
+
+    /**
+     * Последняя видимая дочерняя вью, о которой последний раз сообщалось адаптеру,
+     * или {@link CollectionParent#NO_POSITION}.
+     */
+    private int mReportedLastChild = NO_POSITION;
+
+    /**
+     * Количество дочерних вью на момент последнего сообщения адаптеру. При вставке и удалении
+     * дочерних вью смещения секций {@link ConcatCollectionAdapter} меняются, поэтому тот же
+     * диапазон дочерних вью сообщается заново.
+     */
+    private int mReportedChildCount;
+
+    /**
+     * Буфер для видимой области вью.
+     */
+    @NonNull
+    private final Rect mVisibleRect = new Rect();
+
+    /**
+     * Слушатель макета и прокрутки окна, регистрируется на время присоединения вью к окну.
+     */
+    @NonNull
+    private final VisibilityListener mVisibilityListener = new VisibilityListener();
+
+    public CollectionLayout(@NonNull final Context context) {
+        super(context);
+    }
+
+    public CollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public CollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs,
+                            final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    // region CollectionParent
+
+    @NonNull
+    @Override
+    public ViewGroup getView() {
+        return this;
+    }
+
+    @Override
+    public void addItemInLayout(@NonNull final View view, final int position) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params == null) {
+            params = generateDefaultLayoutParams();
+        } else if (!checkLayoutParams(params)) {
+            params = generateLayoutParams(params);
+        }
+        addViewInLayout(view, position, params, true);
+        // Вью могла измеряться в другой родительской вью
+        ((LayoutParams) params).mMeasured = false;
+        ((LayoutParams) params).mNaturalMeasured = false;
+    }
+
+    /**
+     * Запомнить адаптер, присоединенный к этой вью.
+     *
+     * @param adapter - присоединенный адаптер или null при отсоединении
+     */
+    void setAttachedAdapter(@Nullable final AttachedAdapter adapter) {
+        mAdapter = adapter;
+        // Новому адаптеру видимый диапазон сообщается после ближайшего макета
+        mReportedFirstChild = NO_POSITION;
+        mReportedLastChild = NO_POSITION;
+    }
+
+    // endregion
+
+    // region Visible range
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        final ViewTreeObserver observer = getViewTreeObserver();
+        observer.addOnGlobalLayoutListener(mVisibilityListener);
+        observer.addOnScrollChangedListener(mVisibilityListener);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        final ViewTreeObserver observer = getViewTreeObserver();
+        observer.removeOnGlobalLayoutListener(mVisibilityListener);
+        observer.removeOnScrollChangedListener(mVisibilityListener);
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Сообщить адаптеру видимый диапазон дочерних вью, если он изменился.
+     * Если не видна ни одна дочерняя вью, адаптер сохраняет прежний диапазон.
+     */
+    private void reportVisibleChildren() {
+        final AttachedAdapter adapter = mAdapter;
+        if (adapter == null || isLayoutRequested() || !getLocalVisibleRect(mVisibleRect)) {
+            return;
+        }
+        // Дочерние вью расставлены в координатах содержимого, смещенных прокруткой самой вью
+        mVisibleRect.offset(getScrollX(), getScrollY());
+        final int count = getChildCount();
+        int first = 0;
+        while (first < count && !isChildVisible(getChildAt(first))) {
+            ++first;
+        }
+        if (first == count) {
+            return;
+        }
+        int last = count - 1;
+        while (last > first && !isChildVisible(getChildAt(last))) {
+            --last;
+        }
+        if (first == mReportedFirstChild && last == mReportedLastChild && count == mReportedChildCount) {
+            return;
+        }
+        mReportedFirstChild = first;
+        mReportedLastChild = last;
+        mReportedChildCount = count;
+        adapter.onVisibleChildrenChanged(first, last);
+    }
+
+    /**
+     * Пересекает ли дочерняя вью видимую область {@link #mVisibleRect}.
+     */
+    private boolean isChildVisible(@NonNull final View child) {
+        return child.getVisibility() != GONE && mVisibleRect.intersects(child.getLeft(), child.getTop(),
+                child.getLeft() + child.getWidth(), child.getTop() + child.getHeight());
+    }
+
+    /**
+     * Слушатель окончания макета и прокрутки в окне. Обе причины могут изменить видимую
+     * область вью: макет - положение дочерних вью, прокрутка предка - саму видимую область.
+     */
+    private final class VisibilityListener
+            implements ViewTreeObserver.OnGlobalLayoutListener, ViewTreeObserver.OnScrollChangedListener {
+
+        @Override
+        public void onGlobalLayout() {
+            reportVisibleChildren();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            reportVisibleChildren();
+        }
+    }
+
+    // endregion
+
+    // region Layout params
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(final AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(final ViewGroup.LayoutParams params) {
+        if (params instanceof ViewGroup.MarginLayoutParams) {
+            return new LayoutParams((ViewGroup.MarginLayoutParams) params);
+        }
+        return new LayoutParams(params);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(final ViewGroup.LayoutParams params) {
+        return params instanceof LayoutParams;
+    }
+
+    // endregion
+
+    // region Measurement
+
+    /**
+     * Измерить дочернюю вью, если она не измерялась с такими ограничениями
+     * или запросила перестроение макета после прошлого измерения.
+     *
+     * @param index             - позиция дочерней вью
+     * @param child             - дочерняя вью
+     * @param widthMeasureSpec  - ограничение по ширине
+     * @param heightMeasureSpec - ограничение по высоте
+     * @return true, если вью была измерена, false, если использован размер прошлого измерения
+     */
+    protected final boolean measureCollectionChild(final int index, @NonNull final View child,
+                                                   final int widthMeasureSpec, final int heightMeasureSpec) {
+        final LayoutParams params = (LayoutParams) child.getLayoutParams();
+        if (params.mMeasured && !child.isLayoutRequested()
+                && params.mWidthMeasureSpec == widthMeasureSpec
+                && params.mHeightMeasureSpec == heightMeasureSpec) {
+            return false;
+        }
+        if (mAdapter != null) {
+            mAdapter.measureChild(index, child, widthMeasureSpec, heightMeasureSpec);
+        } else {
+            child.measure(widthMeasureSpec, heightMeasureSpec);
+        }
+        params.mWidthMeasureSpec = widthMeasureSpec;
+        params.mHeightMeasureSpec = heightMeasureSpec;
+        params.mMeasured = true;
+        return true;
+    }
+
+    /**
+     * Получить собственную ширину дочерней вью, которую затем нужно измерить
+     * методом {@link #measureCollectionChild(int, View, int, int)} с другим ограничением по ширине.
+     * Ширина запоминается отдельно от ограничений основного измерения, поэтому не изменившаяся
+     * вью не измеряется ни здесь, ни при основном измерении.
+     *
+     * @param index             - позиция дочерней вью
+     * @param child             - дочерняя вью
+     * @param widthMeasureSpec  - ограничение по ширине для определения собственной ширины
+     * @param heightMeasureSpec - ограничение по высоте, совпадающее с ограничением основного измерения
+     * @return измеренная ширина вью
+     */
+    protected final int measureCollectionChildWidth(final int index, @NonNull final View child,
+                                                    final int widthMeasureSpec, final int heightMeasureSpec) {
+        final LayoutParams params = (LayoutParams) child.getLayoutParams();
+        if (params.mNaturalMeasured && !child.isLayoutRequested()
+                && params.mNaturalWidthMeasureSpec == widthMeasureSpec
+                && params.mNaturalHeightMeasureSpec == heightMeasureSpec) {
+            return params.mNaturalWidth;
+        }
+        if (mAdapter != null) {
+            mAdapter.measureChild(index, child, widthMeasureSpec, heightMeasureSpec);
+        } else {
+            child.measure(widthMeasureSpec, heightMeasureSpec);
+        }
+        params.mNaturalWidthMeasureSpec = widthMeasureSpec;
+        params.mNaturalHeightMeasureSpec = heightMeasureSpec;
+        params.mNaturalWidth = child.getMeasuredWidth();
+        params.mNaturalMeasured = true;
+        // Размер вью больше не соответствует ограничениям основного измерения
+        params.mMeasured = false;
+        return params.mNaturalWidth;
+    }
+
+    /**
+     * Получить ограничение размера дочерней вью вдоль основной оси, по которой дочерние вью
+     * следуют друг за другом. Вью с размером WRAP_CONTENT и MATCH_PARENT (если размер
+     * родительской вью не задан точно) измеряются без ограничения.
+     *
+     * @param parentMeasureSpec - ограничение размера родительской вью
+     * @param padding           - внутренние отступы родительской вью и внешние отступы дочерней
+     * @param childDimension    - размер дочерней вью из параметров макета
+     * @return ограничение размера дочерней вью
+     */
+    protected static int getMainAxisChildMeasureSpec(final int parentMeasureSpec, final int padding,
+                                                     final int childDimension) {
+        if (childDimension >= 0) {
+            return MeasureSpec.makeMeasureSpec(childDimension, MeasureSpec.EXACTLY);
+        }
+        if (childDimension == LayoutParams.MATCH_PARENT
+                && MeasureSpec.getMode(parentMeasureSpec) == MeasureSpec.EXACTLY) {
+            final int size = Math.max(MeasureSpec.getSize(parentMeasureSpec) - padding, 0);
+            return MeasureSpec.makeMeasureSpec(size, MeasureSpec.EXACTLY);
+        }
+        return MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+    }
+
+    /**
+     * Расставить дочерние вью по границам, вычисленным при измерении
+     * ({@link LayoutParams#mLeft}, {@link LayoutParams#mTop}).
+     */
+    final void layoutMeasuredChildren() {
+        final int count = getChildCount();
+        for (int i = 0; i < count; ++i) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams params = (LayoutParams) child.getLayoutParams();
+            child.layout(params.mLeft, params.mTop,
+                    params.mLeft + child.getMeasuredWidth(), params.mTop + child.getMeasuredHeight());
+        }
+    }
+
+    // endregion
+
+}
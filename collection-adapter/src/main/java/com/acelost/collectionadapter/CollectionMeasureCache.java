@@ -0,0 +1,252 @@
+package com.acelost.collectionadapter;
+
+import android.util.LongSparseArray;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кеш размеров дочерних вью по элементам коллекции. Размер хранится по стабильному
+ * идентификатору и версии содержимого элемента, типу вью и ограничениям, с которыми вью
+ * измерялась. Изменение версии элемента делает прежние размеры недоступными, а
+ * {@link CollectionAdapter#notifyItemChanged(int)} удаляет их явно. При превышении
+ * размера вытесняются наиболее давно использовавшиеся записи.
+ * <p>
+ * Один кеш можно задать нескольким адаптерам, например использующим общий
+ * {@link CollectionViewHolderPool}, если стабильные идентификаторы их элементов
+ * не пересекаются. После смены конфигурации (шрифта, плотности экрана) кеш нужно очистить.
+ * Не потокобезопасен, все методы вызываются в главном потоке.
+ *
+ * @see CollectionAdapter#setMeasureCache(CollectionMeasureCache)
+ */
+public final class CollectionMeasureCache {
+
+    /**
+     * Значение, которое возвращает {@link #get}, если размера нет в кеше.
+     */
+    public static final long NO_SIZE = -1;
+
+    private static final int DEFAULT_MAX_SIZE = 256;
+
+    /**
+     * Ключ записи кеша.
+     */
+    private static final class Key {
+
+        long mItemId;
+
+        long mItemVersion;
+
+        int mViewType;
+
+        int mWidthMeasureSpec;
+
+        int mHeightMeasureSpec;
+
+        void set(final long itemId, final long itemVersion, final int viewType,
+                 final int widthMeasureSpec, final int heightMeasureSpec) {
+            mItemId = itemId;
+            mItemVersion = itemVersion;
+            mViewType = viewType;
+            mWidthMeasureSpec = widthMeasureSpec;
+            mHeightMeasureSpec = heightMeasureSpec;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) other;
+            return mItemId == key.mItemId && mItemVersion == key.mItemVersion && mViewType == key.mViewType
+                    && mWidthMeasureSpec == key.mWidthMeasureSpec && mHeightMeasureSpec == key.mHeightMeasureSpec;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (mItemId ^ (mItemId >>> 32));
+            result = 31 * result + (int) (mItemVersion ^ (mItemVersion >>> 32));
+            result = 31 * result + mViewType;
+            result = 31 * result + mWidthMeasureSpec;
+            return 31 * result + mHeightMeasureSpec;
+        }
+    }
+
+    /**
+     * Записи кеша в порядке использования: от давно использовавшихся к недавним.
+     */
+    @NonNull
+    private final LinkedHashMap<Key, Long> mEntries;
+
+    /**
+     * Ключи записей кеша по стабильному идентификатору элемента, чтобы удаление
+     * размеров элемента не перебирало весь кеш.
+     */
+    @NonNull
+    private final LongSparseArray<ArrayList<Key>> mKeysById = new LongSparseArray<>();
+
+    /**
+     * Ключ для поиска, переиспользуемый, чтобы поиск не выделял память.
+     */
+    @NonNull
+    private final Key mLookupKey = new Key();
+
+    private long mHitCount;
+
+    private long mMissCount;
+
+    public CollectionMeasureCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize - максимальное количество хранимых размеров
+     */
+    public CollectionMeasureCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+        mEntries = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Long> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                removeFromIndex(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Получить размер вью элемента.
+     *
+     * @param itemId            - стабильный идентификатор элемента
+     * @param itemVersion       - версия содержимого элемента
+     * @param viewType          - тип вью
+     * @param widthMeasureSpec  - ограничение по ширине
+     * @param heightMeasureSpec - ограничение по высоте
+     * @return упакованный размер (см. {@link #getWidth(long)}, {@link #getHeight(long)})
+     * или {@link #NO_SIZE}, если размера нет в кеше
+     */
+    @MainThread
+    public long get(final long itemId, final long itemVersion, final int viewType,
+                    final int widthMeasureSpec, final int heightMeasureSpec) {
+        mLookupKey.set(itemId, itemVersion, viewType, widthMeasureSpec, heightMeasureSpec);
+        final Long size = mEntries.get(mLookupKey);
+        if (size == null) {
+            ++mMissCount;
+            return NO_SIZE;
+        }
+        ++mHitCount;
+        return size;
+    }
+
+    /**
+     * Сохранить размер вью элемента.
+     *
+     * @param itemId            - стабильный идентификатор элемента
+     * @param itemVersion       - версия содержимого элемента
+     * @param viewType          - тип вью
+     * @param widthMeasureSpec  - ограничение по ширине
+     * @param heightMeasureSpec - ограничение по высоте
+     * @param width             - измеренная ширина
+     * @param height            - измеренная высота
+     */
+    @MainThread
+    public void put(final long itemId, final long itemVersion, final int viewType,
+                    final int widthMeasureSpec, final int heightMeasureSpec,
+                    final int width, final int height) {
+        final Key key = new Key();
+        key.set(itemId, itemVersion, viewType, widthMeasureSpec, heightMeasureSpec);
+        if (mEntries.put(key, ((long) width << 32) | (height & 0xFFFFFFFFL)) == null) {
+            ArrayList<Key> keys = mKeysById.get(itemId);
+            if (keys == null) {
+                keys = new ArrayList<>(2);
+                mKeysById.put(itemId, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Удалить все размеры вью элемента. Затрагивает только записи этого элемента.
+     *
+     * @param itemId - стабильный идентификатор элемента
+     */
+    @MainThread
+    public void invalidate(final long itemId) {
+        final ArrayList<Key> keys = mKeysById.get(itemId);
+        if (keys == null) {
+            return;
+        }
+        mKeysById.remove(itemId);
+        final int size = keys.size();
+        for (int i = 0; i < size; ++i) {
+            mEntries.remove(keys.get(i));
+        }
+    }
+
+    /**
+     * Удалить все размеры.
+     */
+    @MainThread
+    public void clear() {
+        mEntries.clear();
+        mKeysById.clear();
+    }
+
+    /**
+     * Удалить ключ вытесняемой записи из индекса по идентификатору элемента.
+     */
+    private void removeFromIndex(@NonNull final Key key) {
+        final ArrayList<Key> keys = mKeysById.get(key.mItemId);
+        if (keys == null) {
+            return;
+        }
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            mKeysById.remove(key.mItemId);
+        }
+    }
+
+    /**
+     * Получить количество хранимых размеров.
+     */
+    public int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Получить количество найденных в кеше размеров.
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Получить количество не найденных в кеше размеров.
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Получить ширину из упакованного размера.
+     */
+    public static int getWidth(final long size) {
+        return (int) (size >>> 32);
+    }
+
+    /**
+     * Получить высоту из упакованного размера.
+     */
+    public static int getHeight(final long size) {
+        return (int) size;
+    }
+
+}
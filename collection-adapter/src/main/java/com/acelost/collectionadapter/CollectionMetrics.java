@@ -0,0 +1,361 @@
+package com.acelost.collectionadapter;
+
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Готовая реализация {@link CollectionMetricsListener}: считает события по типам вью
+ * и собирает гистограммы длительностей создания, привязки и полной перепривязки.
+ * Память выделяется только при первом событии для нового типа вью, поэтому
+ * сборщик можно держать включенным в релизных сборках. Не потокобезопасен,
+ * читать значения нужно в главном потоке.
+ */
+public class CollectionMetrics implements CollectionMetricsListener {
+
+    /**
+     * Гистограмма длительностей с корзинами по степеням двойки наносекунд.
+     */
+    public static final class Histogram {
+
+        private static final int BUCKET_COUNT = 64;
+
+        @NonNull
+        private final long[] mBuckets = new long[BUCKET_COUNT];
+
+        private long mCount;
+
+        private long mTotalNs;
+
+        private long mMaxNs;
+
+        void record(final long durationNs) {
+            final long value = Math.max(durationNs, 0);
+            ++mBuckets[value == 0 ? 0 : BUCKET_COUNT - 1 - Long.numberOfLeadingZeros(value)];
+            ++mCount;
+            mTotalNs += value;
+            mMaxNs = Math.max(mMaxNs, value);
+        }
+
+        /**
+         * Получить количество измерений.
+         */
+        public long getCount() {
+            return mCount;
+        }
+
+        /**
+         * Получить суммарную длительность в наносекундах.
+         */
+        public long getTotalNs() {
+            return mTotalNs;
+        }
+
+        /**
+         * Получить максимальную длительность в наносекундах.
+         */
+        public long getMaxNs() {
+            return mMaxNs;
+        }
+
+        /**
+         * Получить среднюю длительность в наносекундах.
+         */
+        public long getMeanNs() {
+            return mCount == 0 ? 0 : mTotalNs / mCount;
+        }
+
+        /**
+         * Получить оценку сверху для перцентиля длительности: верхнюю границу корзины,
+         * в которую попадает перцентиль, но не больше максимальной длительности.
+         *
+         * @param percentile - перцентиль от 0 до 100
+         * @return длительность в наносекундах
+         */
+        public long getPercentileNs(final double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(mCount * Math.min(Math.max(percentile, 0), 100) / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                seen += mBuckets[i];
+                if (seen >= Math.max(rank, 1)) {
+                    final long upperBound = i >= BUCKET_COUNT - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                    return Math.min(upperBound, mMaxNs);
+                }
+            }
+            return mMaxNs;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                mBuckets[i] = 0;
+            }
+            mCount = 0;
+            mTotalNs = 0;
+            mMaxNs = 0;
+        }
+    }
+
+    /**
+     * Счетчики событий для одного типа вью.
+     */
+    private static final class TypeStats {
+
+        long mCreated;
+
+        long mPoolHits;
+
+        long mPoolMisses;
+
+        long mPoolOverflows;
+
+        long mStashHits;
+
+        long mBinds;
+
+        void reset() {
+            mCreated = 0;
+            mPoolHits = 0;
+            mPoolMisses = 0;
+            mPoolOverflows = 0;
+            mStashHits = 0;
+            mBinds = 0;
+        }
+    }
+
+    /**
+     * Ассоциативный массив, где ключ - это тип вью, а значение - счетчики событий для него.
+     */
+    @NonNull
+    private final SparseArray<TypeStats> mTypeStats = new SparseArray<>();
+
+    /**
+     * Счетчики событий для всех типов вью.
+     */
+    @NonNull
+    private final TypeStats mTotal = new TypeStats();
+
+    @NonNull
+    private final Histogram mCreateHistogram = new Histogram();
+
+    @NonNull
+    private final Histogram mBindHistogram = new Histogram();
+
+    @NonNull
+    private final Histogram mDataChangedHistogram = new Histogram();
+
+    private long mViewsAdded;
+
+    private long mViewsRemoved;
+
+    @Override
+    public void onViewHolderCreated(final int viewType, final long durationNs) {
+        ++mTotal.mCreated;
+        ++getTypeStats(viewType).mCreated;
+        mCreateHistogram.record(durationNs);
+    }
+
+    @Override
+    public void onPoolHit(final int viewType) {
+        ++mTotal.mPoolHits;
+        ++getTypeStats(viewType).mPoolHits;
+    }
+
+    @Override
+    public void onPoolMiss(final int viewType) {
+        ++mTotal.mPoolMisses;
+        ++getTypeStats(viewType).mPoolMisses;
+    }
+
+    @Override
+    public void onPoolOverflow(final int viewType) {
+        ++mTotal.mPoolOverflows;
+        ++getTypeStats(viewType).mPoolOverflows;
+    }
+
+    @Override
+    public void onStashHit(final int viewType) {
+        ++mTotal.mStashHits;
+        ++getTypeStats(viewType).mStashHits;
+    }
+
+    @Override
+    public void onViewHolderBound(final int viewType, final long durationNs) {
+        ++mTotal.mBinds;
+        ++getTypeStats(viewType).mBinds;
+        mBindHistogram.record(durationNs);
+    }
+
+    @Override
+    public void onViewsAdded(final int count) {
+        mViewsAdded += count;
+    }
+
+    @Override
+    public void onViewsRemoved(final int count) {
+        mViewsRemoved += count;
+    }
+
+    @Override
+    public void onDataChanged(final int itemCount, final long durationNs) {
+        mDataChangedHistogram.record(durationNs);
+    }
+
+    /**
+     * Получить количество созданных вью-холдеров всех типов.
+     */
+    public long getCreatedCount() {
+        return mTotal.mCreated;
+    }
+
+    /**
+     * Получить количество созданных вью-холдеров указанного типа.
+     */
+    public long getCreatedCount(final int viewType) {
+        final TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mCreated : 0;
+    }
+
+    /**
+     * Получить количество попаданий в пул для всех типов вью.
+     */
+    public long getPoolHitCount() {
+        return mTotal.mPoolHits;
+    }
+
+    /**
+     * Получить количество попаданий в пул для указанного типа вью.
+     */
+    public long getPoolHitCount(final int viewType) {
+        final TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mPoolHits : 0;
+    }
+
+    /**
+     * Получить количество промахов пула для всех типов вью.
+     */
+    public long getPoolMissCount() {
+        return mTotal.mPoolMisses;
+    }
+
+    /**
+     * Получить количество промахов пула для указанного типа вью.
+     * Частые промахи означают, что стоит увеличить
+     * {@link CollectionViewHolderPool#setMaxRecycledViews(int, int)}.
+     */
+    public long getPoolMissCount(final int viewType) {
+        final TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mPoolMisses : 0;
+    }
+
+    /**
+     * Получить количество вью-холдеров всех типов, не поместившихся в пул.
+     */
+    public long getPoolOverflowCount() {
+        return mTotal.mPoolOverflows;
+    }
+
+    /**
+     * Получить количество вью-холдеров указанного типа, не поместившихся в пул.
+     */
+    public long getPoolOverflowCount(final int viewType) {
+        final TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mPoolOverflows : 0;
+    }
+
+    /**
+     * Получить количество попаданий в стеш для всех типов вью.
+     */
+    public long getStashHitCount() {
+        return mTotal.mStashHits;
+    }
+
+    /**
+     * Получить количество попаданий в стеш для указанного типа вью.
+     */
+    public long getStashHitCount(final int viewType) {
+        final TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mStashHits : 0;
+    }
+
+    /**
+     * Получить количество привязок данных для всех типов вью.
+     */
+    public long getBindCount() {
+        return mTotal.mBinds;
+    }
+
+    /**
+     * Получить количество привязок данных для указанного типа вью.
+     */
+    public long getBindCount(final int viewType) {
+        final TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mBinds : 0;
+    }
+
+    /**
+     * Получить количество дочерних вью, добавленных в родительские.
+     */
+    public long getViewsAddedCount() {
+        return mViewsAdded;
+    }
+
+    /**
+     * Получить количество дочерних вью, удаленных из родительских.
+     */
+    public long getViewsRemovedCount() {
+        return mViewsRemoved;
+    }
+
+    /**
+     * Получить гистограмму длительностей создания вью-холдеров.
+     */
+    @NonNull
+    public Histogram getCreateHistogram() {
+        return mCreateHistogram;
+    }
+
+    /**
+     * Получить гистограмму длительностей привязки данных.
+     */
+    @NonNull
+    public Histogram getBindHistogram() {
+        return mBindHistogram;
+    }
+
+    /**
+     * Получить гистограмму длительностей {@link CollectionAdapter#notifyDataChanged()}.
+     */
+    @NonNull
+    public Histogram getDataChangedHistogram() {
+        return mDataChangedHistogram;
+    }
+
+    /**
+     * Сбросить все счетчики и гистограммы.
+     */
+    public void reset() {
+        for (int i = 0; i < mTypeStats.size(); ++i) {
+            mTypeStats.valueAt(i).reset();
+        }
+        mTotal.reset();
+        mCreateHistogram.reset();
+        mBindHistogram.reset();
+        mDataChangedHistogram.reset();
+        mViewsAdded = 0;
+        mViewsRemoved = 0;
+    }
+
+    @NonNull
+    private TypeStats getTypeStats(final int viewType) {
+        TypeStats stats = mTypeStats.get(viewType);
+        if (stats == null) {
+            stats = new TypeStats();
+            mTypeStats.put(viewType, stats);
+        }
+        return stats;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.acelost.collectionadapter;
+
+/**
+ * Получатель событий {@link CollectionAdapter} и {@link CollectionViewHolderPool} для сбора
+ * статистики. Методы вызываются в главном потоке и не должны выполнять тяжелой работы.
+ * Пока получатель не установлен, адаптер и пул не измеряют время и не выделяют память
+ * для передачи событий.
+ *
+ * @see CollectionAdapterEnvironment#setMetricsListener(CollectionMetricsListener)
+ * @see CollectionMetrics
+ */
+public interface CollectionMetricsListener {
+
+    /**
+     * Адаптер создал новый вью-холдер.
+     *
+     * @param viewType      - тип вью
+     * @param durationNs    - время создания в наносекундах
+     */
+    void onViewHolderCreated(int viewType, long durationNs);
+
+    /**
+     * В пуле нашелся вью-холдер запрошенного типа.
+     *
+     * @param viewType - тип вью
+     */
+    void onPoolHit(int viewType);
+
+    /**
+     * В пуле не нашлось вью-холдера запрошенного типа.
+     *
+     * @param viewType - тип вью
+     */
+    void onPoolMiss(int viewType);
+
+    /**
+     * Вью-холдер не поместился в пул или был вытеснен из него при превышении вместимости.
+     *
+     * @param viewType - тип вью
+     */
+    void onPoolOverflow(int viewType);
+
+    /**
+     * Для выросшей коллекции нашелся спрятанный вью-холдер подходящего типа.
+     *
+     * @param viewType - тип вью
+     */
+    void onStashHit(int viewType);
+
+    /**
+     * Адаптер привязал данные к вью-холдеру.
+     *
+     * @param viewType      - тип вью
+     * @param durationNs    - время привязки в наносекундах
+     */
+    void onViewHolderBound(int viewType, long durationNs);
+
+    /**
+     * Адаптер добавил дочерние вью в родительскую.
+     *
+     * @param count - количество добавленных вью
+     */
+    void onViewsAdded(int count);
+
+    /**
+     * Адаптер удалил дочерние вью из родительской.
+     *
+     * @param count - количество удаленных вью
+     */
+    void onViewsRemoved(int count);
+
+    /**
+     * Адаптер выполнил полную перепривязку коллекции в {@link CollectionAdapter#notifyDataChanged()}.
+     *
+     * @param itemCount     - количество элементов коллекции
+     * @param durationNs    - время перепривязки в наносекундах
+     */
+    void onDataChanged(int itemCount, long durationNs);
+
+}
@@ -21,6 +21,16 @@ public interface CollectionParent {
      */
     int NO_POSITION = -1;
 
+    /**
+     * Значение, сигнализирующее об отсутствии стабильного идентификатора элемента.
+     */
+    long NO_ID = -1;
+
+    /**
+     * Значение, сигнализирующее об отсутствии версии содержимого элемента.
+     */
+    long NO_VERSION = -1;
+
     /**
      * Получить контекст для создания дочерних элементов.
      */
@@ -0,0 +1,376 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Неизменяемый перечень элементов коллекции с версией. Изменяющие методы ({@link #with(int, Object)},
+ * {@link #withInserted(int, Object)}, {@link #withRemoved(int)}, {@link #withReplaced(int, int, Collection)})
+ * возвращают новый снимок, который разделяет с исходным все не затронутые изменением блоки
+ * элементов, поэтому изменение стоит O(n / 32), а не O(n).
+ * <p>
+ * Каждый снимок помнит версию снимка, из которого получен, и границы измененного участка.
+ * Благодаря этому {@link AbstractCollectionAdapter#set(List)} завершается за O(1) для того же
+ * снимка и сравнивает только измененный участок для снимка, полученного из текущего
+ * (в том числе через цепочку изменений). Снимки можно создавать и изменять в любом потоке.
+ *
+ * @param <T> - тип элементов
+ */
+public final class CollectionSnapshot<T> extends AbstractList<T> implements RandomAccess {
+
+    /**
+     * Значение, сигнализирующее об отсутствии исходного снимка.
+     */
+    public static final long NO_VERSION = -1;
+
+    /**
+     * Желаемое количество элементов в блоке.
+     */
+    private static final int CHUNK_SIZE = 32;
+
+    /**
+     * Количество предыдущих снимков цепочки изменений, относительно которых известен измененный участок.
+     */
+    private static final int MAX_HISTORY_SIZE = 8;
+
+    private static final long[] NO_HISTORY_VERSIONS = new long[0];
+
+    private static final int[] NO_HISTORY_RANGES = new int[0];
+
+    private static final Object[][] NO_CHUNKS = new Object[0][];
+
+    private static final int[] NO_OFFSETS = new int[] { 0 };
+
+    /**
+     * Счетчик версий снимков.
+     */
+    private static final AtomicLong sVersionCounter = new AtomicLong();
+
+    private static final CollectionSnapshot<Object> EMPTY =
+            new CollectionSnapshot<>(NO_CHUNKS, NO_OFFSETS, null, 0, 0, 0);
+
+    /**
+     * Блоки элементов. Блоки не изменяются после создания и разделяются между снимками.
+     */
+    @NonNull
+    private final Object[][] mChunks;
+
+    /**
+     * Позиции первых элементов блоков. Последнее значение - количество элементов.
+     */
+    @NonNull
+    private final int[] mOffsets;
+
+    /**
+     * Версия снимка.
+     */
+    private final long mVersion;
+
+    /**
+     * Версии предыдущих снимков цепочки изменений, от исходного снимка к более ранним.
+     */
+    @NonNull
+    private final long[] mHistoryVersions;
+
+    /**
+     * Участки, измененные относительно снимков {@link #mHistoryVersions}: по три значения на снимок -
+     * начало участка, конец участка в предыдущем снимке и конец участка в этом снимке.
+     */
+    @NonNull
+    private final int[] mHistoryRanges;
+
+    private CollectionSnapshot(@NonNull final Object[][] chunks, @NonNull final int[] offsets,
+                               @Nullable final CollectionSnapshot<T> base,
+                               final int start, final int oldEnd, final int newEnd) {
+        mChunks = chunks;
+        mOffsets = offsets;
+        mVersion = sVersionCounter.incrementAndGet();
+        if (base == null) {
+            mHistoryVersions = NO_HISTORY_VERSIONS;
+            mHistoryRanges = NO_HISTORY_RANGES;
+            return;
+        }
+        final int historySize = Math.min(base.mHistoryVersions.length + 1, MAX_HISTORY_SIZE);
+        mHistoryVersions = new long[historySize];
+        mHistoryRanges = new int[historySize * 3];
+        mHistoryVersions[0] = base.mVersion;
+        mHistoryRanges[0] = start;
+        mHistoryRanges[1] = oldEnd;
+        mHistoryRanges[2] = newEnd;
+        for (int i = 1; i < historySize; ++i) {
+            // Объединяем участки: участок относительно снимка base расширяется до участка,
+            // измененного в base относительно более раннего снимка
+            final int baseStart = base.mHistoryRanges[(i - 1) * 3];
+            final int baseOldEnd = base.mHistoryRanges[(i - 1) * 3 + 1];
+            final int baseNewEnd = base.mHistoryRanges[(i - 1) * 3 + 2];
+            final int end = Math.max(baseNewEnd, oldEnd);
+            mHistoryVersions[i] = base.mHistoryVersions[i - 1];
+            mHistoryRanges[i * 3] = Math.min(baseStart, start);
+            mHistoryRanges[i * 3 + 1] = baseOldEnd + end - baseNewEnd;
+            mHistoryRanges[i * 3 + 2] = newEnd + end - oldEnd;
+        }
+    }
+
+    /**
+     * Получить пустой снимок.
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <T> CollectionSnapshot<T> empty() {
+        return (CollectionSnapshot<T>) EMPTY;
+    }
+
+    /**
+     * Создать снимок с элементами перечня. Элементы копируются, снимок возвращается как есть:
+     * он неизменяем, поэтому его можно использовать как перечень элементов базового типа.
+     *
+     * @param items - элементы
+     * @return снимок с элементами перечня
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <T> CollectionSnapshot<T> of(@NonNull final Collection<? extends T> items) {
+        if (items instanceof CollectionSnapshot) {
+            return (CollectionSnapshot<T>) items;
+        }
+        final Object[] array = items.toArray();
+        if (array.length == 0) {
+            return empty();
+        }
+        final int chunkCount = (array.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final Object[][] chunks = new Object[chunkCount][];
+        final int[] offsets = new int[chunkCount + 1];
+        splitIntoChunks(array, 0, array.length, chunks, offsets, 0, 0);
+        offsets[chunkCount] = array.length;
+        return new CollectionSnapshot<>(chunks, offsets, null, 0, 0, 0);
+    }
+
+    // region Versions
+
+    /**
+     * Получить версию снимка. Версии уникальны среди всех снимков процесса.
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Получить версию снимка, из которого получен этот снимок.
+     *
+     * @return версия или {@link #NO_VERSION}, если снимок создан из перечня
+     */
+    public long getBaseVersion() {
+        return mHistoryVersions.length > 0 ? mHistoryVersions[0] : NO_VERSION;
+    }
+
+    /**
+     * Получить участок, измененный относительно снимка с указанной версией. Известны участки
+     * относительно {@link #MAX_HISTORY_SIZE} предыдущих снимков цепочки изменений.
+     *
+     * @param version   - версия снимка, с которым сравнивается этот снимок
+     * @param outRange  - массив из трех элементов для начала участка, конца участка
+     *                  в снимке version и конца участка в этом снимке
+     * @return true, если участок известен
+     */
+    boolean getChangedRange(final long version, @NonNull final int[] outRange) {
+        final int historySize = mHistoryVersions.length;
+        for (int i = 0; i < historySize; ++i) {
+            if (mHistoryVersions[i] == version) {
+                System.arraycopy(mHistoryRanges, i * 3, outRange, 0, 3);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // endregion
+
+    // region List
+
+    @Override
+    public int size() {
+        return mOffsets[mChunks.length];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size() + ".");
+        }
+        final int chunk = findChunk(index);
+        return (T) mChunks[chunk][index - mOffsets[chunk]];
+    }
+
+    // endregion
+
+    // region Modifications
+
+    /**
+     * Получить снимок, в котором элемент на указанной позиции заменен.
+     *
+     * @param index - позиция элемента
+     * @param item  - новый элемент
+     * @return новый снимок
+     */
+    @NonNull
+    public CollectionSnapshot<T> with(final int index, @Nullable final T item) {
+        checkIndex(index, size() - 1);
+        return replace(index, index + 1, new Object[] { item });
+    }
+
+    /**
+     * Получить снимок, в котором на указанную позицию вставлен элемент.
+     *
+     * @param index - позиция вставки от 0 до {@link #size()}
+     * @param item  - вставляемый элемент
+     * @return новый снимок
+     */
+    @NonNull
+    public CollectionSnapshot<T> withInserted(final int index, @Nullable final T item) {
+        checkIndex(index, size());
+        return replace(index, index, new Object[] { item });
+    }
+
+    /**
+     * Получить снимок, в конец которого добавлен элемент.
+     *
+     * @param item - добавляемый элемент
+     * @return новый снимок
+     */
+    @NonNull
+    public CollectionSnapshot<T> withAdded(@Nullable final T item) {
+        return replace(size(), size(), new Object[] { item });
+    }
+
+    /**
+     * Получить снимок, из которого удален элемент на указанной позиции.
+     *
+     * @param index - позиция элемента
+     * @return новый снимок
+     */
+    @NonNull
+    public CollectionSnapshot<T> withRemoved(final int index) {
+        checkIndex(index, size() - 1);
+        return replace(index, index + 1, new Object[0]);
+    }
+
+    /**
+     * Получить снимок, в котором элементы диапазона заменены элементами перечня.
+     * Подходит для вставки ({@code start == end}) и удаления (пустой перечень) диапазонов.
+     *
+     * @param start - позиция первого заменяемого элемента
+     * @param end   - позиция после последнего заменяемого элемента
+     * @param items - новые элементы диапазона
+     * @return новый снимок
+     */
+    @NonNull
+    public CollectionSnapshot<T> withReplaced(final int start, final int end,
+                                              @NonNull final Collection<? extends T> items) {
+        if (start < 0 || start > end || end > size()) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for size " + size() + ".");
+        }
+        return replace(start, end, items.toArray());
+    }
+
+    /**
+     * Заменить элементы диапазона, перестроив только затронутые блоки.
+     */
+    @NonNull
+    private CollectionSnapshot<T> replace(final int start, final int end, @NonNull final Object[] items) {
+        final int chunkCount = mChunks.length;
+        final int size = size();
+        // Затронутые блоки: от блока с первым заменяемым элементом до блока с последним.
+        // Соседние мелкие блоки присоединяются, чтобы частые вставки не дробили снимок
+        int firstChunk = start < size ? findChunk(start) : Math.max(chunkCount - 1, 0);
+        int lastChunk = end > start ? findChunk(end - 1) : firstChunk;
+        if (firstChunk > 0 && mChunks[firstChunk - 1].length < CHUNK_SIZE / 2) {
+            --firstChunk;
+        }
+        if (lastChunk + 1 < chunkCount && mChunks[lastChunk + 1].length < CHUNK_SIZE / 2) {
+            ++lastChunk;
+        }
+        final int regionStart = chunkCount > 0 ? mOffsets[firstChunk] : 0;
+        final int regionEnd = chunkCount > 0 ? mOffsets[lastChunk + 1] : 0;
+        final int regionSize = regionEnd - regionStart - (end - start) + items.length;
+        final Object[] region = new Object[regionSize];
+        copyItems(regionStart, start, region, 0);
+        System.arraycopy(items, 0, region, start - regionStart, items.length);
+        copyItems(end, regionEnd, region, start - regionStart + items.length);
+        // Собираем блоки: неизмененные до участка, перестроенные, неизмененные после участка
+        final int tailChunks = chunkCount > 0 ? chunkCount - lastChunk - 1 : 0;
+        final int regionChunks = (regionSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final int newChunkCount = firstChunk + regionChunks + tailChunks;
+        final Object[][] chunks = new Object[newChunkCount][];
+        final int[] offsets = new int[newChunkCount + 1];
+        System.arraycopy(mChunks, 0, chunks, 0, firstChunk);
+        System.arraycopy(mOffsets, 0, offsets, 0, firstChunk);
+        splitIntoChunks(region, 0, regionSize, chunks, offsets, firstChunk, regionStart);
+        final int shift = items.length - (end - start);
+        for (int i = 0; i < tailChunks; ++i) {
+            chunks[firstChunk + regionChunks + i] = mChunks[lastChunk + 1 + i];
+            offsets[firstChunk + regionChunks + i] = mOffsets[lastChunk + 1 + i] + shift;
+        }
+        offsets[newChunkCount] = size + shift;
+        return new CollectionSnapshot<>(chunks, offsets, this, start, end, start + items.length);
+    }
+
+    // endregion
+
+    /**
+     * Разбить элементы на блоки по {@link #CHUNK_SIZE} элементов.
+     */
+    private static void splitIntoChunks(@NonNull final Object[] items, final int from, final int to,
+                                        @NonNull final Object[][] chunks, @NonNull final int[] offsets,
+                                        final int firstChunk, final int firstOffset) {
+        int chunk = firstChunk;
+        for (int i = from; i < to; i += CHUNK_SIZE) {
+            chunks[chunk] = Arrays.copyOfRange(items, i, Math.min(i + CHUNK_SIZE, to));
+            offsets[chunk] = firstOffset + i - from;
+            ++chunk;
+        }
+    }
+
+    /**
+     * Скопировать элементы диапазона в массив.
+     *
+     * @param from      - позиция первого элемента
+     * @param to        - позиция после последнего элемента
+     * @param dest      - массив назначения
+     * @param destPos   - позиция в массиве назначения
+     */
+    private void copyItems(final int from, final int to, @NonNull final Object[] dest, final int destPos) {
+        int position = from;
+        int target = destPos;
+        while (position < to) {
+            final int chunk = findChunk(position);
+            final int offset = position - mOffsets[chunk];
+            final int count = Math.min(mChunks[chunk].length - offset, to - position);
+            System.arraycopy(mChunks[chunk], offset, dest, target, count);
+            position += count;
+            target += count;
+        }
+    }
+
+    /**
+     * Найти блок, содержащий элемент на указанной позиции.
+     */
+    private int findChunk(final int index) {
+        final int found = Arrays.binarySearch(mOffsets, 0, mChunks.length, index);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private void checkIndex(final int index, final int max) {
+        if (index < 0 || index > max) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size() + ".");
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.acelost.collectionadapter;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Адаптивная политика размера стеша {@link CollectionAdapter}. Запоминает несколько последних
+ * значений количества элементов коллекции и количества элементов каждого типа вью и держит
+ * в стеше столько вью-холдеров, сколько нужно, чтобы покрыть недавние колебания без удаления
+ * и добавления дочерних вью. Колебания учитываются по типам: если коллекция не изменила размер,
+ * но элементы одного типа сменились элементами другого, стеш вмещает вью-холдеры обоих типов.
+ * Размер стеша ограничен сверху, чтобы не удерживать лишнюю память.
+ * Политика также считает попадания и промахи стеша при росте коллекции.
+ *
+ * @see CollectionAdapter#setStashPolicy(CollectionStashPolicy)
+ */
+public class CollectionStashPolicy {
+
+    /**
+     * Количество запоминаемых значений размера коллекции по умолчанию.
+     */
+    private static final int DEFAULT_HISTORY_SIZE = 8;
+
+    /**
+     * Минимальный размер стеша по умолчанию.
+     */
+    private static final int DEFAULT_MIN_STASH_SIZE = 3;
+
+    /**
+     * Максимальный размер стеша по умолчанию.
+     */
+    private static final int DEFAULT_MAX_STASH_SIZE = 16;
+
+    /**
+     * Последние значения размера коллекции.
+     */
+    @NonNull
+    private final History mHistory;
+
+    /**
+     * Последние значения количества элементов по типам вью.
+     */
+    @NonNull
+    private final SparseArray<History> mTypeHistories = new SparseArray<>();
+
+    private final int mHistorySize;
+
+    private final int mMinStashSize;
+
+    private final int mMaxStashSize;
+
+    private long mHitCount;
+
+    private long mMissCount;
+
+    public CollectionStashPolicy() {
+        this(DEFAULT_HISTORY_SIZE, DEFAULT_MIN_STASH_SIZE, DEFAULT_MAX_STASH_SIZE);
+    }
+
+    /**
+     * @param historySize   - количество запоминаемых значений размера коллекции
+     * @param minStashSize  - минимальный размер стеша
+     * @param maxStashSize  - максимальный размер стеша
+     */
+    public CollectionStashPolicy(final int historySize, final int minStashSize, final int maxStashSize) {
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("History size must be positive.");
+        }
+        if (minStashSize < 0 || maxStashSize < minStashSize) {
+            throw new IllegalArgumentException("Invalid stash size bounds [" + minStashSize + ", " + maxStashSize + "].");
+        }
+        mHistory = new History(historySize);
+        mHistorySize = historySize;
+        mMinStashSize = minStashSize;
+        mMaxStashSize = maxStashSize;
+    }
+
+    /**
+     * Запомнить новое значение размера коллекции. Повторяющиеся подряд значения не запоминаются.
+     *
+     * @param count - количество элементов коллекции
+     */
+    void onItemCountChanged(final int count) {
+        mHistory.add(count);
+    }
+
+    /**
+     * Запомнить новое количество элементов каждого типа вью. Типы, отсутствующие
+     * в переданном наборе, считаются отсутствующими в коллекции.
+     *
+     * @param counts - количество элементов коллекции по типам вью
+     */
+    void onViewTypeCountsChanged(@NonNull final SparseIntArray counts) {
+        for (int i = 0; i < mTypeHistories.size(); ++i) {
+            if (counts.indexOfKey(mTypeHistories.keyAt(i)) < 0) {
+                mTypeHistories.valueAt(i).add(0);
+            }
+        }
+        for (int i = 0; i < counts.size(); ++i) {
+            final int viewType = counts.keyAt(i);
+            History history = mTypeHistories.get(viewType);
+            if (history == null) {
+                history = new History(mHistorySize);
+                mTypeHistories.put(viewType, history);
+            }
+            history.add(counts.valueAt(i));
+        }
+    }
+
+    /**
+     * Получить размер стеша для коллекции указанного размера в пределах заданных ограничений:
+     * наибольшее из разницы между недавним максимумом размера коллекции и текущим размером
+     * и суммы таких разниц по типам вью.
+     *
+     * @param count - количество элементов коллекции
+     * @return количество вью-холдеров, которые можно держать в стеше
+     */
+    public int getStashSize(final int count) {
+        int size = Math.max(0, mHistory.getMax() - count);
+        int typesSize = 0;
+        for (int i = 0; i < mTypeHistories.size(); ++i) {
+            final History history = mTypeHistories.valueAt(i);
+            typesSize += history.getMax() - history.getLast();
+        }
+        size = Math.max(size, typesSize);
+        return Math.max(mMinStashSize, Math.min(mMaxStashSize, size));
+    }
+
+    /**
+     * Учесть результат подбора вью-холдеров из стеша при росте коллекции.
+     *
+     * @param hits      - количество попаданий
+     * @param misses    - количество промахов
+     */
+    void onStashLookup(final int hits, final int misses) {
+        mHitCount += hits;
+        mMissCount += misses;
+    }
+
+    /**
+     * Получить количество позиций, для которых при росте коллекции
+     * нашелся спрятанный вью-холдер подходящего типа.
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Получить количество позиций, для которых при росте коллекции
+     * пришлось брать вью-холдер из пула или создавать новый.
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Сбросить счетчики попаданий и промахов.
+     */
+    public void resetStats() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    /**
+     * Кольцевой буфер последних различных значений счетчика.
+     */
+    private static final class History {
+
+        @NonNull
+        private final int[] mValues;
+
+        /**
+         * Количество значений в {@link #mValues}.
+         */
+        private int mCount;
+
+        /**
+         * Индекс, по которому будет записано следующее значение.
+         */
+        private int mIndex;
+
+        History(final int size) {
+            mValues = new int[size];
+        }
+
+        /**
+         * Запомнить значение. Повторяющиеся подряд значения не запоминаются.
+         */
+        void add(final int value) {
+            if (mCount > 0 && getLast() == value) {
+                return;
+            }
+            mValues[mIndex] = value;
+            mIndex = (mIndex + 1) % mValues.length;
+            if (mCount < mValues.length) {
+                ++mCount;
+            }
+        }
+
+        /**
+         * Получить последнее значение или 0, если значений нет.
+         */
+        int getLast() {
+            return mCount > 0 ? mValues[(mIndex + mValues.length - 1) % mValues.length] : 0;
+        }
+
+        /**
+         * Получить наибольшее из запомненных значений или 0, если значений нет.
+         */
+        int getMax() {
+            int max = 0;
+            for (int i = 0; i < mCount; ++i) {
+                max = Math.max(max, mValues[i]);
+            }
+            return max;
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.acelost.collectionadapter;
+
+import android.os.Trace;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Секции {@link Trace} для операций {@link CollectionAdapter}. Секции отображаются в
+ * Systrace/Perfetto рядом с секциями RecyclerView. Имена секций для каждого типа вью
+ * формируются один раз и переиспользуются, поэтому трассировка не выделяет память
+ * на каждую операцию. Все методы вызываются в главном потоке.
+ */
+final class CollectionTrace {
+
+    static final String DATA_CHANGED = "CA notifyDataChanged";
+
+    static final String ADD_VIEWS = "CA AddViews";
+
+    static final String REMOVE_VIEWS = "CA RemoveViews";
+
+    private static final String CREATE_VIEW_PREFIX = "CA OnCreateView type=";
+
+    private static final String BIND_VIEW_PREFIX = "CA OnBindView type=";
+
+    /**
+     * Имена секций создания вью-холдеров по типам вью.
+     */
+    @NonNull
+    private static final SparseArray<String> sCreateSectionNames = new SparseArray<>();
+
+    /**
+     * Имена секций привязки данных по типам вью.
+     */
+    @NonNull
+    private static final SparseArray<String> sBindSectionNames = new SparseArray<>();
+
+    private CollectionTrace() {
+        // utility class
+    }
+
+    /**
+     * Начать секцию с указанным именем.
+     */
+    static void begin(@NonNull final String sectionName) {
+        Trace.beginSection(sectionName);
+    }
+
+    /**
+     * Начать секцию создания вью-холдера указанного типа.
+     */
+    static void beginCreate(final int viewType) {
+        Trace.beginSection(getSectionName(sCreateSectionNames, CREATE_VIEW_PREFIX, viewType));
+    }
+
+    /**
+     * Начать секцию привязки данных к вью-холдеру указанного типа.
+     */
+    static void beginBind(final int viewType) {
+        Trace.beginSection(getSectionName(sBindSectionNames, BIND_VIEW_PREFIX, viewType));
+    }
+
+    /**
+     * Завершить последнюю начатую секцию.
+     */
+    static void end() {
+        Trace.endSection();
+    }
+
+    @NonNull
+    private static String getSectionName(@NonNull final SparseArray<String> cache,
+                                         @NonNull final String prefix, final int viewType) {
+        String name = cache.get(viewType);
+        if (name == null) {
+            name = prefix + viewType;
+            cache.put(viewType, name);
+        }
+        return name;
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Получатель операций обновления коллекции. Позиции во всех методах
+ * указываются с учетом всех ранее переданных операций.
+ */
+public interface CollectionUpdateCallback {
+
+    /**
+     * Элементы были вставлены в коллекцию.
+     *
+     * @param position  - позиция первого вставленного элемента
+     * @param count     - количество вставленных элементов
+     */
+    void onInserted(int position, int count);
+
+    /**
+     * Элементы были удалены из коллекции.
+     *
+     * @param position  - позиция первого удаленного элемента
+     * @param count     - количество удаленных элементов
+     */
+    void onRemoved(int position, int count);
+
+    /**
+     * Элемент был перемещен внутри коллекции.
+     *
+     * @param fromPosition  - исходная позиция элемента
+     * @param toPosition    - новая позиция элемента
+     */
+    void onMoved(int fromPosition, int toPosition);
+
+    /**
+     * Содержимое элементов коллекции было изменено.
+     *
+     * @param position  - позиция первого измененного элемента
+     * @param count     - количество измененных элементов
+     * @param payload   - описание изменения для частичной перепривязки или null для полной перепривязки
+     */
+    void onChanged(int position, int count, @Nullable Object payload);
+
+}
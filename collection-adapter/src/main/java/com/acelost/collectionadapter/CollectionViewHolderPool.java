@@ -1,15 +1,33 @@
 package com.acelost.collectionadapter;
 
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 /**
  * Пул для переиспользованных вью-холдеров элементов коллекции.
+ * Помимо ограничения количества вью-холдеров каждого типа пул может иметь общую
+ * вместимость (см. {@link #setCapacity(int)}), при превышении которой вытесняются
+ * вью-холдеры наиболее давно использовавшихся типов. Пул реагирует на нехватку памяти,
+ * если зарегистрировать его через {@link android.content.Context#registerComponentCallbacks}.
  */
-public class CollectionViewHolderPool {
+public class CollectionViewHolderPool implements ComponentCallbacks2 {
+
+    /**
+     * Значение общей вместимости, при котором пул ограничен только количеством вью-холдеров каждого типа.
+     */
+    public static final int UNLIMITED_CAPACITY = 0;
 
     /**
      * Максимальное количество вью-холдеров одного типа, которые
@@ -17,6 +35,52 @@ public class CollectionViewHolderPool {
      */
     private static final int DEFAULT_MAX_SCRAP = 5;
 
+    /**
+     * Время, которое по умолчанию может быть потрачено на создание
+     * вью-холдеров за одно простаивание главного потока.
+     */
+    private static final long DEFAULT_PREWARM_BUDGET_NS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    /**
+     * Первый тип вью, выдаваемый изолированным типам (см. {@link #obtainIsolatedViewType(Object, int)}).
+     * Следует сразу за {@link PlaceholderViewHolder#VIEW_TYPE}.
+     */
+    private static final int FIRST_ISOLATED_VIEW_TYPE = PlaceholderViewHolder.VIEW_TYPE + 1;
+
+    /**
+     * Фабрика вью-холдеров для предварительного наполнения пула.
+     */
+    public interface ViewHolderFactory {
+
+        /**
+         * Создать новый вью-холдер указанного типа.
+         *
+         * @param viewType - тип вью
+         * @return экземпляр вью-холдера, {@link ChildViewHolder#getViewType()} которого равен viewType
+         */
+        @NonNull
+        ChildViewHolder createViewHolder(int viewType);
+    }
+
+    /**
+     * Задача предварительного наполнения пула вью-холдерами одного типа.
+     */
+    private static class PrewarmTask {
+
+        final int mViewType;
+
+        final int mTargetCount;
+
+        @NonNull
+        final ViewHolderFactory mFactory;
+
+        PrewarmTask(final int viewType, final int targetCount, @NonNull final ViewHolderFactory factory) {
+            mViewType = viewType;
+            mTargetCount = targetCount;
+            mFactory = factory;
+        }
+    }
+
     /**
      * Данные о хранящихся в пуле вью-холдерах конкретного типа.
      */
@@ -30,6 +94,14 @@ public class CollectionViewHolderPool {
          * Максимальное количество вью-холдеров в пуле.
          */
         int mMaxScrap = DEFAULT_MAX_SCRAP;
+        /**
+         * Задано ли максимальное количество явно через {@link #setMaxRecycledViews(int, int)}.
+         */
+        boolean mMaxScrapExplicit;
+        /**
+         * Момент последнего обращения к вью-холдерам этого типа по счетчику {@link #mUseCounter}.
+         */
+        long mLastUsed;
     }
 
     /**
@@ -39,6 +111,90 @@ public class CollectionViewHolderPool {
     @NonNull
     private final SparseArray<ScrapData> mScrap = new SparseArray<>();
 
+    /**
+     * Общая вместимость пула или {@link #UNLIMITED_CAPACITY}.
+     */
+    private int mCapacity = UNLIMITED_CAPACITY;
+
+    /**
+     * Количество вью-холдеров всех типов в пуле.
+     */
+    private int mRecycledCount;
+
+    /**
+     * Счетчик обращений к пулу для определения давно использовавшихся типов.
+     */
+    private long mUseCounter;
+
+    /**
+     * Незавершенные задачи предварительного наполнения пула.
+     */
+    @NonNull
+    private final ArrayList<PrewarmTask> mPrewarmTasks = new ArrayList<>();
+
+    /**
+     * Обработчик простаивания главного потока, создающий вью-холдеры для {@link #mPrewarmTasks}.
+     */
+    @NonNull
+    private final MessageQueue.IdleHandler mPrewarmIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            final boolean hasMore = runPrewarm(mPrewarmBudgetNs);
+            if (!hasMore) {
+                mPrewarmScheduled = false;
+            }
+            return hasMore;
+        }
+    };
+
+    /**
+     * Зарегистрирован ли {@link #mPrewarmIdleHandler}.
+     */
+    private boolean mPrewarmScheduled;
+
+    /**
+     * Время, которое может быть потрачено на создание вью-холдеров за одно простаивание главного потока.
+     */
+    private long mPrewarmBudgetNs = DEFAULT_PREWARM_BUDGET_NS;
+
+    /**
+     * Типы вью пула, выданные изолированным типам: по пространству имен -
+     * ассоциативный массив, где ключ - это тип вью адаптера, а значение - тип вью пула.
+     */
+    @NonNull
+    private final HashMap<Object, SparseIntArray> mIsolatedViewTypes = new HashMap<>();
+
+    /**
+     * Следующий тип вью пула для изолированного типа.
+     */
+    private int mNextIsolatedViewType = FIRST_ISOLATED_VIEW_TYPE;
+
+    /**
+     * Получить тип вью пула для типа вью из указанного пространства имен. Одинаковые типы
+     * вью из разных пространств имен получают разные типы вью пула, поэтому адаптеры,
+     * использующие общий пул, не получают вью-холдеры друг друга. Выданный тип не меняется
+     * за время жизни пула.
+     *
+     * @param namespace - пространство имен, например класс адаптера
+     * @param viewType  - тип вью в пространстве имен
+     * @return тип вью пула
+     */
+    @MainThread
+    int obtainIsolatedViewType(@NonNull final Object namespace, final int viewType) {
+        SparseIntArray types = mIsolatedViewTypes.get(namespace);
+        if (types == null) {
+            types = new SparseIntArray();
+            mIsolatedViewTypes.put(namespace, types);
+        }
+        final int index = types.indexOfKey(viewType);
+        if (index >= 0) {
+            return types.valueAt(index);
+        }
+        final int poolViewType = mNextIsolatedViewType++;
+        types.put(viewType, poolViewType);
+        return poolViewType;
+    }
+
     /**
      * Удалить все вью-холдеры из пула.
      */
@@ -47,6 +203,96 @@ public class CollectionViewHolderPool {
             final ScrapData data = mScrap.valueAt(i);
             data.mScrapHeap.clear();
         }
+        mRecycledCount = 0;
+    }
+
+    /**
+     * Задать общую вместимость пула для вью-холдеров всех типов. При превышении вместимости
+     * вытесняются самые старые вью-холдеры наиболее давно использовавшегося типа. Пока
+     * вместимость задана, количество вью-холдеров отдельного типа ограничивается только
+     * значением, явно заданным через {@link #setMaxRecycledViews(int, int)}.
+     *
+     * @param capacity - общая вместимость или {@link #UNLIMITED_CAPACITY}
+     */
+    public void setCapacity(final int capacity) {
+        mCapacity = Math.max(capacity, UNLIMITED_CAPACITY);
+        if (mCapacity != UNLIMITED_CAPACITY) {
+            trimToSize(mCapacity);
+        }
+    }
+
+    /**
+     * Получить общую вместимость пула.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Получить количество вью-холдеров всех типов в пуле.
+     */
+    public int getRecycledViewCount() {
+        return mRecycledCount;
+    }
+
+    /**
+     * Вытеснять вью-холдеры наиболее давно использовавшихся типов,
+     * пока в пуле не останется не больше указанного количества.
+     *
+     * @param size - допустимое количество вью-холдеров в пуле
+     */
+    public void trimToSize(final int size) {
+        trimToSize(size, false);
+    }
+
+    /**
+     * Вытеснять вью-холдеры наиболее давно использовавшихся типов,
+     * пока в пуле не останется не больше указанного количества.
+     *
+     * @param size      - допустимое количество вью-холдеров в пуле
+     * @param overflow  - вызвано ли вытеснение превышением вместимости пула
+     */
+    private void trimToSize(final int size, final boolean overflow) {
+        final CollectionMetricsListener metrics = overflow ? CollectionAdapterEnvironment.getMetricsListener() : null;
+        while (mRecycledCount > size) {
+            ScrapData eldest = null;
+            for (int i = 0; i < mScrap.size(); i++) {
+                final ScrapData data = mScrap.valueAt(i);
+                if (!data.mScrapHeap.isEmpty() && (eldest == null || data.mLastUsed < eldest.mLastUsed)) {
+                    eldest = data;
+                }
+            }
+            if (eldest == null) {
+                mRecycledCount = 0;
+                return;
+            }
+            final ChildViewHolder evicted = eldest.mScrapHeap.remove(0);
+            --mRecycledCount;
+            if (metrics != null) {
+                metrics.onPoolOverflow(evicted.getViewType());
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(final int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            cancelPrewarm();
+            clear();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(mRecycledCount / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        cancelPrewarm();
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull final Configuration newConfig) {
+        // do nothing
     }
 
     /**
@@ -58,9 +304,11 @@ public class CollectionViewHolderPool {
     public void setMaxRecycledViews(final int viewType, final int max) {
         final ScrapData scrapData = getScrapDataForType(viewType);
         scrapData.mMaxScrap = max;
+        scrapData.mMaxScrapExplicit = true;
         final ArrayList<ChildViewHolder> scrapHeap = scrapData.mScrapHeap;
         while (scrapHeap.size() > max) {
             scrapHeap.remove(scrapHeap.size() - 1);
+            --mRecycledCount;
         }
     }
 
@@ -80,33 +328,185 @@ public class CollectionViewHolderPool {
      */
     @Nullable
     public ChildViewHolder getRecycledView(final int viewType) {
+        final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
         final ScrapData scrapData = mScrap.get(viewType);
         if (scrapData != null && !scrapData.mScrapHeap.isEmpty()) {
             final ArrayList<ChildViewHolder> scrapHeap = scrapData.mScrapHeap;
+            scrapData.mLastUsed = ++mUseCounter;
+            --mRecycledCount;
+            if (metrics != null) {
+                metrics.onPoolHit(viewType);
+            }
             return scrapHeap.remove(scrapHeap.size() - 1);
         }
+        if (metrics != null) {
+            metrics.onPoolMiss(viewType);
+        }
         return null;
     }
 
     /**
      * Добавить вью-холдер в пул для переиспользования.
      * Если пул полон для указанного типа вью, вью-холдер будет сразу удален.
+     * Если превышена общая вместимость пула, будут вытеснены вью-холдеры
+     * наиболее давно использовавшихся типов.
      *
      * @param scrap - вью-холдер для переиспользования
      */
     public void putRecycledView(@NonNull final ChildViewHolder scrap) {
+        addRecycledView(scrap);
+        if (mCapacity != UNLIMITED_CAPACITY && mRecycledCount > mCapacity) {
+            trimToSize(mCapacity, true);
+        }
+    }
+
+    /**
+     * Добавить вью-холдеры в пул для переиспользования одним пакетом. Равносильно
+     * последовательным вызовам {@link #putRecycledView(ChildViewHolder)}, но общая
+     * вместимость пула проверяется один раз, после добавления всех вью-холдеров.
+     *
+     * @param scrap - вью-холдеры для переиспользования
+     */
+    public void putRecycledViews(@NonNull final List<? extends ChildViewHolder> scrap) {
+        final int size = scrap.size();
+        for (int i = 0; i < size; ++i) {
+            addRecycledView(scrap.get(i));
+        }
+        if (mCapacity != UNLIMITED_CAPACITY && mRecycledCount > mCapacity) {
+            trimToSize(mCapacity, true);
+        }
+    }
+
+    /**
+     * Добавить вью-холдер в пул без проверки общей вместимости.
+     *
+     * @param scrap - вью-холдер для переиспользования
+     */
+    private void addRecycledView(@NonNull final ChildViewHolder scrap) {
         final int viewType = scrap.getViewType();
-        final ArrayList<ChildViewHolder> scrapHeap = getScrapDataForType(viewType).mScrapHeap;
-        if (mScrap.get(viewType).mMaxScrap <= scrapHeap.size()) {
+        final ScrapData scrapData = getScrapDataForType(viewType);
+        final ArrayList<ChildViewHolder> scrapHeap = scrapData.mScrapHeap;
+        scrapData.mLastUsed = ++mUseCounter;
+        if (getMaxScrap(scrapData) <= scrapHeap.size()) {
+            CollectionAdapterEnvironment.logEvent(CollectionEventLog.EVENT_POOL_OVERFLOW, viewType, this);
             if (CollectionAdapterEnvironment.LOGGING_ENABLED) {
                 CollectionAdapterEnvironment.log("View holder of type " + viewType + " removed because pool " + this + " is full.");
             }
+            final CollectionMetricsListener metrics = CollectionAdapterEnvironment.getMetricsListener();
+            if (metrics != null) {
+                metrics.onPoolOverflow(viewType);
+            }
             return;
         }
         if (CollectionAdapterEnvironment.DEBUG && scrapHeap.contains(scrap)) {
             throw new IllegalArgumentException("this scrap item already exists");
         }
         scrapHeap.add(scrap);
+        ++mRecycledCount;
+    }
+
+    /**
+     * Получить действующее ограничение количества вью-холдеров для {@link ScrapData}.
+     */
+    private int getMaxScrap(@NonNull final ScrapData scrapData) {
+        if (mCapacity != UNLIMITED_CAPACITY && !scrapData.mMaxScrapExplicit) {
+            return mCapacity;
+        }
+        return scrapData.mMaxScrap;
+    }
+
+    /**
+     * Предварительно наполнить пул вью-холдерами указанного типа. Вью-холдеры создаются
+     * в главном потоке в моменты его простаивания, не дольше {@link #setPrewarmBudget(long)}
+     * за одно простаивание, пока в пуле не окажется count вью-холдеров этого типа.
+     * Количество ограничено значением {@link #setMaxRecycledViews(int, int)} и общей вместимостью пула.
+     *
+     * @param viewType  - тип вью
+     * @param count     - желаемое количество вью-холдеров этого типа в пуле
+     * @param factory   - фабрика вью-холдеров
+     */
+    @MainThread
+    public void prewarm(final int viewType, final int count, @NonNull final ViewHolderFactory factory) {
+        if (count <= 0) {
+            return;
+        }
+        mPrewarmTasks.add(new PrewarmTask(viewType, count, factory));
+        if (!mPrewarmScheduled) {
+            mPrewarmScheduled = true;
+            Looper.myQueue().addIdleHandler(mPrewarmIdleHandler);
+        }
+    }
+
+    /**
+     * Отменить незавершенное предварительное наполнение пула вью-холдерами указанного типа.
+     * Уже созданные вью-холдеры остаются в пуле.
+     *
+     * @param viewType - тип вью
+     */
+    @MainThread
+    public void cancelPrewarm(final int viewType) {
+        for (int i = mPrewarmTasks.size() - 1; i >= 0; --i) {
+            if (mPrewarmTasks.get(i).mViewType == viewType) {
+                mPrewarmTasks.remove(i);
+            }
+        }
+        if (mPrewarmTasks.isEmpty()) {
+            cancelPrewarm();
+        }
+    }
+
+    /**
+     * Отменить все незавершенные задачи предварительного наполнения пула.
+     * Уже созданные вью-холдеры остаются в пуле.
+     */
+    @MainThread
+    public void cancelPrewarm() {
+        mPrewarmTasks.clear();
+        if (mPrewarmScheduled) {
+            mPrewarmScheduled = false;
+            Looper.myQueue().removeIdleHandler(mPrewarmIdleHandler);
+        }
+    }
+
+    /**
+     * Задать время, которое может быть потрачено на создание
+     * вью-холдеров за одно простаивание главного потока.
+     *
+     * @param budgetNs - время в наносекундах
+     */
+    public void setPrewarmBudget(final long budgetNs) {
+        mPrewarmBudgetNs = budgetNs;
+    }
+
+    /**
+     * Создавать вью-холдеры для незавершенных задач предварительного наполнения,
+     * пока не истечет отведенное время. Хотя бы один вью-холдер создается всегда.
+     *
+     * @param budgetNs - отведенное время в наносекундах
+     * @return true, если остались незавершенные задачи
+     */
+    private boolean runPrewarm(final long budgetNs) {
+        final long start = System.nanoTime();
+        while (!mPrewarmTasks.isEmpty()) {
+            final PrewarmTask task = mPrewarmTasks.get(0);
+            final ScrapData scrapData = getScrapDataForType(task.mViewType);
+            final int target = Math.min(task.mTargetCount, getMaxScrap(scrapData));
+            if (scrapData.mScrapHeap.size() >= target
+                    || (mCapacity != UNLIMITED_CAPACITY && mRecycledCount >= mCapacity)) {
+                mPrewarmTasks.remove(0);
+                continue;
+            }
+            final ChildViewHolder holder = task.mFactory.createViewHolder(task.mViewType);
+            CollectionAdapterEnvironment.logEvent(CollectionEventLog.EVENT_PREWARMED, task.mViewType, this);
+            if (CollectionAdapterEnvironment.LOGGING_ENABLED) {
+                CollectionAdapterEnvironment.log("View holder of type " + task.mViewType + " prewarmed in pool " + this + ".");
+            }
+            putRecycledView(holder);
+            if (System.nanoTime() - start >= budgetNs) {
+                break;
+            }
+        }
+        return !mPrewarmTasks.isEmpty();
     }
 
     /**
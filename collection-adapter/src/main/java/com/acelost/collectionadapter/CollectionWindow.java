@@ -0,0 +1,169 @@
+package com.acelost.collectionadapter;
+
+/**
+ * Окно позиций коллекции {@link CollectionAdapter}: видимый диапазон, о котором сообщает
+ * родительская вью, расширенный на несколько позиций в обе стороны. Пока видимый диапазон
+ * неизвестен, видимыми считаются все позиции. Окно также хранит оценку размера заглушки
+ * для позиций за его пределами.
+ *
+ * @see CollectionAdapter#setWindowingEnabled(boolean)
+ */
+final class CollectionWindow {
+
+    /**
+     * Количество элементов до и после видимого диапазона, которые по умолчанию
+     * материализуются в оконном режиме.
+     */
+    private static final int DEFAULT_PREFETCH_MARGIN = 3;
+
+    /**
+     * Включен ли оконный режим.
+     */
+    private boolean mEnabled;
+
+    /**
+     * Сообщен ли видимый диапазон.
+     */
+    private boolean mVisibleRangeKnown;
+
+    /**
+     * Первая видимая позиция коллекции по данным родительской вью.
+     */
+    private int mVisibleFirst;
+
+    /**
+     * Последняя видимая позиция коллекции по данным родительской вью.
+     */
+    private int mVisibleLast;
+
+    /**
+     * Количество материализуемых элементов до и после видимого диапазона.
+     */
+    private int mPrefetchMargin = DEFAULT_PREFETCH_MARGIN;
+
+    /**
+     * Оценка ширины заглушки: размер последней вью элемента, вышедшего из окна.
+     */
+    private int mEstimatedExtentWidth;
+
+    /**
+     * Оценка высоты заглушки: размер последней вью элемента, вышедшего из окна.
+     */
+    private int mEstimatedExtentHeight;
+
+    /**
+     * Включен ли оконный режим.
+     */
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Включить или выключить оконный режим.
+     *
+     * @return true, если режим изменился
+     */
+    boolean setEnabled(final boolean enabled) {
+        if (mEnabled == enabled) {
+            return false;
+        }
+        mEnabled = enabled;
+        return true;
+    }
+
+    /**
+     * Задать количество элементов до и после видимого диапазона.
+     *
+     * @return true, если количество изменилось
+     */
+    boolean setPrefetchMargin(final int margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Prefetch margin must not be negative.");
+        }
+        if (mPrefetchMargin == margin) {
+            return false;
+        }
+        mPrefetchMargin = margin;
+        return true;
+    }
+
+    /**
+     * Задать видимый диапазон.
+     *
+     * @return true, если диапазон изменился
+     */
+    boolean setVisibleRange(final int firstVisible, final int lastVisible) {
+        if (mVisibleRangeKnown && mVisibleFirst == firstVisible && mVisibleLast == lastVisible) {
+            return false;
+        }
+        mVisibleRangeKnown = true;
+        mVisibleFirst = firstVisible;
+        mVisibleLast = lastVisible;
+        return true;
+    }
+
+    /**
+     * Сбросить видимый диапазон.
+     *
+     * @return true, если диапазон был известен
+     */
+    boolean clearVisibleRange() {
+        if (!mVisibleRangeKnown) {
+            return false;
+        }
+        mVisibleRangeKnown = false;
+        return true;
+    }
+
+    /**
+     * Находится ли позиция внутри окна. Без оконного режима внутри окна все позиции.
+     *
+     * @param position - позиция элемента в коллекции
+     */
+    boolean contains(final int position) {
+        return !mEnabled || isInPrefetchRange(position);
+    }
+
+    /**
+     * Находится ли позиция в видимом диапазоне, расширенном на {@link #mPrefetchMargin}.
+     *
+     * @param position - позиция элемента в коллекции
+     */
+    boolean isInPrefetchRange(final int position) {
+        return position >= getPrefetchStart() && position < getPrefetchEnd(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Получить первую позицию видимого диапазона, расширенного на {@link #mPrefetchMargin}.
+     */
+    int getPrefetchStart() {
+        return mVisibleRangeKnown ? (int) Math.max((long) mVisibleFirst - mPrefetchMargin, 0) : 0;
+    }
+
+    /**
+     * Получить позицию, следующую за видимым диапазоном, расширенным на {@link #mPrefetchMargin}.
+     *
+     * @param limit - наибольшее возвращаемое значение
+     */
+    int getPrefetchEnd(final int limit) {
+        return mVisibleRangeKnown
+                ? (int) Math.max(Math.min((long) mVisibleLast + mPrefetchMargin + 1, limit), 0)
+                : limit;
+    }
+
+    /**
+     * Запомнить размер вью элемента, вышедшего из окна, как оценку размера заглушки.
+     */
+    void setEstimatedExtent(final int width, final int height) {
+        mEstimatedExtentWidth = width;
+        mEstimatedExtentHeight = height;
+    }
+
+    int getEstimatedExtentWidth() {
+        return mEstimatedExtentWidth;
+    }
+
+    int getEstimatedExtentHeight() {
+        return mEstimatedExtentHeight;
+    }
+}
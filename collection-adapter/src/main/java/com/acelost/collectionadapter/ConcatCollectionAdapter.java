@@ -0,0 +1,422 @@
+package com.acelost.collectionadapter;
+
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Составной адаптер, который размещает дочерние вью нескольких {@link CollectionAdapter}
+ * в одной {@link CollectionParent} друг за другом, без промежуточных {@link android.view.ViewGroup}.
+ * Каждый адаптер-секция управляет своим диапазоном дочерних вью: изменение данных секции
+ * согласует только ее диапазон, а смещения остальных секций пересчитываются по индексу
+ * количества дочерних вью секций за O(log k), где k - количество секций.
+ * <p>
+ * Секции используют общий {@link CollectionViewHolderPool}. По умолчанию типы вью секций
+ * изолированы в пуле по классу адаптера ({@link CollectionAdapter#getViewTypeNamespace()}), поэтому
+ * секции разных классов могут использовать одинаковые типы вью, а {@link ChildViewHolder#getViewType()}
+ * вью-холдеров секций возвращает тип вью пула. Секции одного класса делят вью-холдеры одинаковых
+ * типов; если они создают для одного типа разные вью, секция должна переопределить
+ * {@link CollectionAdapter#getViewTypeNamespace()}. Собственные смещения секций ({@link CollectionAdapter#getChildStartOffset()},
+ * {@link CollectionAdapter#getChildEndOffset()}) должны быть нулевыми, кроме вью "показать еще"
+ * {@link PagedCollectionAdapter}, которую секция учитывает сама.
+ */
+public class ConcatCollectionAdapter implements CollectionLayout.AttachedAdapter {
+
+    /**
+     * Секции в порядке расположения их дочерних вью.
+     */
+    @NonNull
+    private final List<CollectionAdapter<?>> mAdapters = new ArrayList<>();
+
+    /**
+     * Количество дочерних вью каждой секции в родительской вью.
+     */
+    @NonNull
+    private int[] mChildCounts = new int[0];
+
+    /**
+     * Дерево Фенвика по {@link #mChildCounts} для вычисления смещений секций за O(log k).
+     * Элемент i (с единицы) хранит сумму количеств секций (i - (i &amp; -i), i].
+     */
+    @NonNull
+    private int[] mTree = new int[1];
+
+    /**
+     * Количество дочерних вью всех секций.
+     */
+    private int mTotalChildCount;
+
+    private final boolean mIsolateViewTypes;
+
+    @Nullable
+    private CollectionViewHolderPool mRecycledPool;
+
+    @Nullable
+    private CollectionParent mParent;
+
+    /**
+     * Родительская вью, от которой адаптер был отсоединен последний раз. В ней могут
+     * оставаться дочерние вью секций, сохраняющих вью при отсоединении.
+     */
+    @Nullable
+    private CollectionParent mDetachedParent;
+
+    public ConcatCollectionAdapter() {
+        this(true);
+    }
+
+    /**
+     * @param isolateViewTypes - изолировать ли типы вью секций в общем пуле. Если false,
+     *                         секции должны использовать непересекающиеся типы вью.
+     */
+    public ConcatCollectionAdapter(final boolean isolateViewTypes) {
+        mIsolateViewTypes = isolateViewTypes;
+    }
+
+    // region Sections
+
+    /**
+     * Добавить секцию в конец.
+     *
+     * @param adapter - адаптер секции
+     */
+    @MainThread
+    public void addAdapter(@NonNull final CollectionAdapter<?> adapter) {
+        addAdapter(mAdapters.size(), adapter);
+    }
+
+    /**
+     * Добавить секцию на указанную позицию. Адаптер не должен быть присоединен
+     * к {@link CollectionParent} или быть секцией другого составного адаптера.
+     * Если составной адаптер присоединен, секция сразу присоединяется к его родительской вью.
+     *
+     * @param index     - позиция секции
+     * @param adapter   - адаптер секции
+     */
+    @MainThread
+    public void addAdapter(final int index, @NonNull final CollectionAdapter<?> adapter) {
+        if (index < 0 || index > mAdapters.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (adapter.isConcatSection()) {
+            throw new IllegalStateException("Adapter is already added to a concat adapter.");
+        }
+        if (adapter.isAttached()) {
+            throw new IllegalStateException("Adapter must be detached before adding to the concat adapter.");
+        }
+        adapter.releaseRetainedViews();
+        mAdapters.add(index, adapter);
+        final int[] counts = new int[mAdapters.size()];
+        System.arraycopy(mChildCounts, 0, counts, 0, index);
+        System.arraycopy(mChildCounts, index, counts, index + 1, mChildCounts.length - index);
+        mChildCounts = counts;
+        onSectionsChanged();
+        adapter.setRecycledViewPool(getRecycledViewPool());
+        adapter.setViewTypesIsolated(mIsolateViewTypes);
+        if (mParent != null) {
+            adapter.attachToParent(mParent);
+        }
+    }
+
+    /**
+     * Удалить секцию. Дочерние вью секции удаляются из родительской вью.
+     *
+     * @param adapter - адаптер секции
+     * @return true, если секция была удалена
+     */
+    @MainThread
+    public boolean removeAdapter(@NonNull final CollectionAdapter<?> adapter) {
+        final int index = mAdapters.indexOf(adapter);
+        if (index < 0) {
+            return false;
+        }
+        adapter.detachFromParent();
+        adapter.releaseRetainedViews();
+        mAdapters.remove(index);
+        final int[] counts = new int[mAdapters.size()];
+        System.arraycopy(mChildCounts, 0, counts, 0, index);
+        System.arraycopy(mChildCounts, index + 1, counts, index, counts.length - index);
+        mChildCounts = counts;
+        adapter.setConcatSection(null, 0);
+        adapter.setViewTypesIsolated(false);
+        onSectionsChanged();
+        return true;
+    }
+
+    /**
+     * Получить секции в порядке расположения.
+     */
+    @NonNull
+    public List<CollectionAdapter<?>> getAdapters() {
+        return Collections.unmodifiableList(mAdapters);
+    }
+
+    /**
+     * Получить количество элементов всех секций.
+     */
+    public int getItemCount() {
+        int count = 0;
+        final int size = mAdapters.size();
+        for (int i = 0; i < size; ++i) {
+            count += mAdapters.get(i).getItemCount();
+        }
+        return count;
+    }
+
+    /**
+     * Найти секцию, которой принадлежит дочерняя вью. Выполняется за O(log k).
+     *
+     * @param childIndex - позиция дочерней вью внутри {@link CollectionParent}
+     * @return адаптер секции или null, если дочерняя вью не принадлежит секциям
+     */
+    @Nullable
+    public CollectionAdapter<?> findAdapterForChild(final int childIndex) {
+        final int section = findSection(childIndex - getChildStartOffset());
+        return section >= 0 ? mAdapters.get(section) : null;
+    }
+
+    /**
+     * Обновить номера секций и индекс после добавления или удаления секции.
+     */
+    private void onSectionsChanged() {
+        final int size = mAdapters.size();
+        for (int i = 0; i < size; ++i) {
+            mAdapters.get(i).setConcatSection(this, i);
+        }
+        final int[] tree = new int[size + 1];
+        int total = 0;
+        for (int i = 1; i <= size; ++i) {
+            tree[i] += mChildCounts[i - 1];
+            total += mChildCounts[i - 1];
+            final int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+        mTree = tree;
+        mTotalChildCount = total;
+    }
+
+    // endregion
+
+    // region Offset index
+
+    /**
+     * Получить количество дочерних вью в родительской до дочерних вью секции.
+     *
+     * @param section - номер секции
+     */
+    int getSectionStart(final int section) {
+        return getChildStartOffset() + prefixChildCount(section);
+    }
+
+    /**
+     * Получить количество дочерних вью в родительской после дочерних вью секции.
+     *
+     * @param section - номер секции
+     */
+    int getSectionEnd(final int section) {
+        return getChildEndOffset() + mTotalChildCount - prefixChildCount(section + 1);
+    }
+
+    /**
+     * Учесть изменение количества дочерних вью секции.
+     *
+     * @param section   - номер секции
+     * @param delta     - изменение количества дочерних вью
+     */
+    void onSectionChildCountChanged(final int section, final int delta) {
+        mChildCounts[section] += delta;
+        mTotalChildCount += delta;
+        final int[] tree = mTree;
+        for (int i = section + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Получить количество дочерних вью первых count секций.
+     */
+    private int prefixChildCount(final int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Найти секцию, которой принадлежит дочерняя вью, спуском по дереву Фенвика.
+     *
+     * @param index - позиция дочерней вью относительно начала первой секции
+     * @return номер секции или -1
+     */
+    private int findSection(final int index) {
+        if (index < 0 || index >= mTotalChildCount) {
+            return -1;
+        }
+        final int[] tree = mTree;
+        int position = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    // endregion
+
+    /**
+     * Получить смещение первой секции от начала {@link CollectionParent}.
+     *
+     * @see CollectionAdapter#getChildStartOffset()
+     */
+    protected int getChildStartOffset() {
+        return 0;
+    }
+
+    /**
+     * Получить смещение последней секции от конца {@link CollectionParent}.
+     *
+     * @see CollectionAdapter#getChildEndOffset()
+     */
+    protected int getChildEndOffset() {
+        return 0;
+    }
+
+    // region Attach/Detach logic
+
+    /**
+     * Присоединить секции к {@link CollectionParent}.
+     *
+     * @param parent - экземпляр {@link CollectionParent}
+     */
+    @MainThread
+    public void attachToParent(@NonNull final CollectionParent parent) {
+        if (mParent == parent) {
+            return;
+        }
+        if (mParent != null) {
+            detachFromParent();
+        }
+        if (mDetachedParent != parent) {
+            // Сохраненные в другой родительской вью дочерние вью сбили бы смещения секций
+            releaseRetainedViews();
+        }
+        mDetachedParent = null;
+        mParent = parent;
+        if (parent instanceof CollectionLayout) {
+            ((CollectionLayout) parent).setAttachedAdapter(this);
+        }
+        final int size = mAdapters.size();
+        for (int i = 0; i < size; ++i) {
+            mAdapters.get(i).attachToParent(parent);
+        }
+    }
+
+    /**
+     * Отсоединить секции от {@link CollectionParent}.
+     */
+    @MainThread
+    public void detachFromParent() {
+        final CollectionParent parent = mParent;
+        if (parent == null) {
+            return;
+        }
+        // С конца, чтобы удаление дочерних вью секции не сдвигало вью еще не отсоединенных секций
+        boolean retained = false;
+        for (int i = mAdapters.size() - 1; i >= 0; --i) {
+            final CollectionAdapter<?> adapter = mAdapters.get(i);
+            adapter.detachFromParent();
+            retained |= adapter.isRetainViewsOnDetach();
+        }
+        if (parent instanceof CollectionLayout) {
+            ((CollectionLayout) parent).setAttachedAdapter(null);
+        }
+        mParent = null;
+        mDetachedParent = retained ? parent : null;
+    }
+
+    /**
+     * Освободить дочерние вью секций, сохраненные при отсоединении
+     * (см. {@link CollectionAdapter#setRetainViewsOnDetach(boolean)}).
+     */
+    @MainThread
+    public void releaseRetainedViews() {
+        for (int i = mAdapters.size() - 1; i >= 0; --i) {
+            mAdapters.get(i).releaseRetainedViews();
+        }
+    }
+
+    // endregion
+
+    /**
+     * Измерить дочернюю вью силами секции, которой она принадлежит, с учетом кеша размеров секции.
+     *
+     * @see CollectionAdapter#measureChild(int, View, int, int)
+     */
+    @MainThread
+    @Override
+    public boolean measureChild(final int childIndex, @NonNull final View child,
+                                final int widthMeasureSpec, final int heightMeasureSpec) {
+        final CollectionAdapter<?> adapter = findAdapterForChild(childIndex);
+        if (adapter == null) {
+            child.measure(widthMeasureSpec, heightMeasureSpec);
+            return false;
+        }
+        return adapter.measureChild(childIndex, child, widthMeasureSpec, heightMeasureSpec);
+    }
+
+    /**
+     * Сообщить видимый диапазон дочерних вью всем секциям. Каждая секция переводит его
+     * в свои позиции, поэтому секции выше и ниже видимой области получают диапазон
+     * за пределами своих позиций и материализуют только элементы в пределах отступа.
+     *
+     * @see CollectionAdapter#onVisibleChildrenChanged(int, int)
+     */
+    @MainThread
+    @Override
+    public void onVisibleChildrenChanged(final int firstChild, final int lastChild) {
+        final int size = mAdapters.size();
+        for (int i = 0; i < size; ++i) {
+            mAdapters.get(i).onVisibleChildrenChanged(firstChild, lastChild);
+        }
+    }
+
+    /**
+     * Получить общий пул секций.
+     */
+    @NonNull
+    public CollectionViewHolderPool getRecycledViewPool() {
+        if (mRecycledPool == null) {
+            mRecycledPool = new CollectionViewHolderPool();
+        }
+        return mRecycledPool;
+    }
+
+    /**
+     * Задать общий пул секций. Вызывается до присоединения к {@link CollectionParent}.
+     */
+    @MainThread
+    public void setRecycledViewPool(@Nullable final CollectionViewHolderPool pool) {
+        mRecycledPool = pool;
+        final CollectionViewHolderPool sharedPool = getRecycledViewPool();
+        final int size = mAdapters.size();
+        for (int i = 0; i < size; ++i) {
+            final CollectionAdapter<?> adapter = mAdapters.get(i);
+            adapter.setRecycledViewPool(sharedPool);
+            adapter.setViewTypesIsolated(mIsolateViewTypes);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.acelost.collectionadapter;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Планировщик отложенной привязки {@link CollectionAdapter}. Хранит непривязанные вью-холдеры
+ * и привязывает их при простаивании главного потока, не тратя на одно простаивание
+ * больше отведенного времени.
+ *
+ * @param <VH> - тип вью-холдера
+ * @see CollectionAdapter#setDeferredBindingEnabled(boolean)
+ */
+final class DeferredBindScheduler<VH extends ChildViewHolder> {
+
+    /**
+     * Время, которое по умолчанию может быть потрачено на отложенную
+     * привязку за одно простаивание главного потока.
+     */
+    private static final long DEFAULT_BUDGET_NS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    /**
+     * Исполнитель отложенной привязки.
+     *
+     * @param <VH> - тип вью-холдера
+     */
+    interface Host<VH extends ChildViewHolder> {
+
+        /**
+         * Согласованы ли позиции вью-холдеров с данными. Пока не согласованы,
+         * отложенная привязка не выполняется.
+         */
+        boolean isReadyToBind();
+
+        /**
+         * Привязать данные к отложенному вью-холдеру, если он все еще ожидает привязки.
+         *
+         * @param holder - вью-холдер
+         * @return true, если данные привязаны
+         */
+        boolean bindDeferredViewHolder(@NonNull VH holder);
+
+        /**
+         * Вызывается после привязки части отложенных вью-холдеров.
+         */
+        void onDeferredViewHoldersBound();
+    }
+
+    @NonNull
+    private final Host<VH> mHost;
+
+    /**
+     * Включена ли отложенная привязка.
+     */
+    private boolean mEnabled;
+
+    /**
+     * Непривязанные вью-холдеры, ожидающие отложенной привязки.
+     */
+    @NonNull
+    private final ArrayList<VH> mHolders = new ArrayList<>();
+
+    /**
+     * Обработчик простаивания главного потока, выполняющий отложенную привязку.
+     */
+    @NonNull
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            final boolean hasMore = run(mBudgetNs);
+            if (!hasMore) {
+                mScheduled = false;
+            }
+            return hasMore;
+        }
+    };
+
+    /**
+     * Зарегистрирован ли {@link #mIdleHandler}.
+     */
+    private boolean mScheduled;
+
+    /**
+     * Время, которое может быть потрачено на отложенную привязку за одно простаивание главного потока.
+     */
+    private long mBudgetNs = DEFAULT_BUDGET_NS;
+
+    DeferredBindScheduler(@NonNull final Host<VH> host) {
+        mHost = host;
+    }
+
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Включить или выключить отложенную привязку.
+     *
+     * @return true, если режим изменился
+     */
+    boolean setEnabled(final boolean enabled) {
+        if (mEnabled == enabled) {
+            return false;
+        }
+        mEnabled = enabled;
+        return true;
+    }
+
+    void setBudget(final long budgetNs) {
+        mBudgetNs = budgetNs;
+    }
+
+    /**
+     * Есть ли вью-холдеры, ожидающие отложенной привязки.
+     */
+    boolean hasPending() {
+        return !mHolders.isEmpty();
+    }
+
+    /**
+     * Отложить привязку вью-холдера до простаивания главного потока.
+     *
+     * @param holder - непривязанный вью-холдер
+     */
+    @MainThread
+    void defer(@NonNull final VH holder) {
+        mHolders.add(holder);
+        if (!mScheduled) {
+            mScheduled = true;
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    }
+
+    /**
+     * Привязывать данные к отложенным вью-холдерам, пока не истечет отведенное время.
+     *
+     * @param budgetNs - отведенное время в наносекундах
+     * @return true, если остались отложенные вью-холдеры
+     */
+    @MainThread
+    boolean run(final long budgetNs) {
+        if (mHolders.isEmpty() || !mHost.isReadyToBind()) {
+            return !mHolders.isEmpty();
+        }
+        final long start = System.nanoTime();
+        int index = 0;
+        boolean bound = false;
+        final int size = mHolders.size();
+        while (index < size) {
+            if (!mHost.bindDeferredViewHolder(mHolders.get(index++))) {
+                continue;
+            }
+            bound = true;
+            if (System.nanoTime() - start >= budgetNs) {
+                break;
+            }
+        }
+        mHolders.subList(0, index).clear();
+        if (bound) {
+            mHost.onDeferredViewHoldersBound();
+        }
+        return !mHolders.isEmpty();
+    }
+
+    /**
+     * Забыть отложенные вью-холдеры, не снимая обработчик простаивания.
+     * Вызывается перед полной перепривязкой, которая заново откладывает привязку.
+     */
+    void clear() {
+        mHolders.clear();
+    }
+
+    /**
+     * Отменить отложенную привязку.
+     */
+    void cancel() {
+        mHolders.clear();
+        if (mScheduled) {
+            mScheduled = false;
+            Looper.myQueue().removeIdleHandler(mIdleHandler);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * {@link CollectionLayout}, располагающая дочерние вью слева направо с переносом
+ * на новую строку, когда вью не помещается в ширину, аналог FlexboxLayout с flexWrap="wrap".
+ */
+public class FlowCollectionLayout extends CollectionLayout {
+
+    /**
+     * Расстояние между соседними дочерними вью в строке.
+     */
+    private int mHorizontalSpacing;
+
+    /**
+     * Расстояние между строками.
+     */
+    private int mVerticalSpacing;
+
+    public FlowCollectionLayout(@NonNull final Context context) {
+        super(context);
+    }
+
+    public FlowCollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public FlowCollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs,
+                                final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Задать расстояния между дочерними вью.
+     *
+     * @param horizontalSpacing - расстояние между соседними вью в строке в пикселях
+     * @param verticalSpacing   - расстояние между строками в пикселях
+     */
+    public void setSpacing(final int horizontalSpacing, final int verticalSpacing) {
+        if (mHorizontalSpacing != horizontalSpacing || mVerticalSpacing != verticalSpacing) {
+            mHorizontalSpacing = horizontalSpacing;
+            mVerticalSpacing = verticalSpacing;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Получить расстояние между соседними дочерними вью в строке.
+     */
+    public int getHorizontalSpacing() {
+        return mHorizontalSpacing;
+    }
+
+    /**
+     * Получить расстояние между строками.
+     */
+    public int getVerticalSpacing() {
+        return mVerticalSpacing;
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+        final int paddingHorizontal = getPaddingLeft() + getPaddingRight();
+        final int paddingVertical = getPaddingTop() + getPaddingBottom();
+        final int maxLineWidth = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? Integer.MAX_VALUE : MeasureSpec.getSize(widthMeasureSpec) - paddingHorizontal;
+        final int count = getChildCount();
+        int lineTop = getPaddingTop();
+        int lineWidth = 0;
+        int lineHeight = 0;
+        int maxWidth = 0;
+        boolean lineEmpty = true;
+        for (int i = 0; i < count; ++i) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams params = (LayoutParams) child.getLayoutParams();
+            final int marginHorizontal = params.leftMargin + params.rightMargin;
+            final int marginVertical = params.topMargin + params.bottomMargin;
+            measureCollectionChild(i, child,
+                    getChildMeasureSpec(widthMeasureSpec, paddingHorizontal + marginHorizontal, params.width),
+                    getMainAxisChildMeasureSpec(heightMeasureSpec, paddingVertical + marginVertical, params.height));
+            final int childWidth = child.getMeasuredWidth() + marginHorizontal;
+            final int childHeight = child.getMeasuredHeight() + marginVertical;
+            if (!lineEmpty && lineWidth + mHorizontalSpacing + childWidth > maxLineWidth) {
+                // Переносим вью на новую строку
+                lineTop += lineHeight + mVerticalSpacing;
+                lineWidth = 0;
+                lineHeight = 0;
+                lineEmpty = true;
+            }
+            if (!lineEmpty) {
+                lineWidth += mHorizontalSpacing;
+            }
+            params.mLeft = getPaddingLeft() + lineWidth + params.leftMargin;
+            params.mTop = lineTop + params.topMargin;
+            lineWidth += childWidth;
+            lineHeight = Math.max(lineHeight, childHeight);
+            maxWidth = Math.max(maxWidth, lineWidth);
+            lineEmpty = false;
+        }
+        setMeasuredDimension(resolveSize(maxWidth + paddingHorizontal, widthMeasureSpec),
+                resolveSize(lineTop + lineHeight + getPaddingBottom(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(final boolean changed, final int left, final int top, final int right, final int bottom) {
+        layoutMeasuredChildren();
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * {@link CollectionLayout}, располагающая дочерние вью сеткой с заданным количеством
+ * столбцов одинаковой ширины. Высота строки равна высоте самой высокой вью в ней.
+ */
+public class GridCollectionLayout extends CollectionLayout {
+
+    private static final int DEFAULT_SPAN_COUNT = 2;
+
+    /**
+     * Количество столбцов.
+     */
+    private int mSpanCount = DEFAULT_SPAN_COUNT;
+
+    /**
+     * Расстояние между соседними столбцами.
+     */
+    private int mHorizontalSpacing;
+
+    /**
+     * Расстояние между соседними строками.
+     */
+    private int mVerticalSpacing;
+
+    public GridCollectionLayout(@NonNull final Context context) {
+        super(context);
+    }
+
+    public GridCollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public GridCollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs,
+                                final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Задать количество столбцов.
+     *
+     * @param spanCount - количество столбцов, не меньше 1
+     */
+    public void setSpanCount(final int spanCount) {
+        if (spanCount < 1) {
+            throw new IllegalArgumentException("Span count must be positive.");
+        }
+        if (mSpanCount != spanCount) {
+            mSpanCount = spanCount;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Получить количество столбцов.
+     */
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    /**
+     * Задать расстояния между ячейками.
+     *
+     * @param horizontalSpacing - расстояние между столбцами в пикселях
+     * @param verticalSpacing   - расстояние между строками в пикселях
+     */
+    public void setSpacing(final int horizontalSpacing, final int verticalSpacing) {
+        if (mHorizontalSpacing != horizontalSpacing || mVerticalSpacing != verticalSpacing) {
+            mHorizontalSpacing = horizontalSpacing;
+            mVerticalSpacing = verticalSpacing;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Получить расстояние между столбцами.
+     */
+    public int getHorizontalSpacing() {
+        return mHorizontalSpacing;
+    }
+
+    /**
+     * Получить расстояние между строками.
+     */
+    public int getVerticalSpacing() {
+        return mVerticalSpacing;
+    }
+
+    @Override
+    protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+        final int paddingHorizontal = getPaddingLeft() + getPaddingRight();
+        final int paddingVertical = getPaddingTop() + getPaddingBottom();
+        final int spanCount = mSpanCount;
+        final int spacing = mHorizontalSpacing * (spanCount - 1);
+        final int count = getChildCount();
+        final int cellWidthSpec;
+        final int cellWidth;
+        if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+            // Ширина не ограничена: ячейки занимают ширину самой широкой вью. Собственная ширина
+            // запоминается отдельно, поэтому не изменившиеся вью не измеряются повторно
+            int maxWidth = 0;
+            for (int i = 0; i < count; ++i) {
+                final View child = getChildAt(i);
+                if (child.getVisibility() == GONE) {
+                    continue;
+                }
+                final LayoutParams params = (LayoutParams) child.getLayoutParams();
+                final int marginHorizontal = params.leftMargin + params.rightMargin;
+                final int marginVertical = params.topMargin + params.bottomMargin;
+                final int childWidth = measureCollectionChildWidth(i, child,
+                        getChildMeasureSpec(widthMeasureSpec, marginHorizontal, params.width),
+                        getMainAxisChildMeasureSpec(heightMeasureSpec, paddingVertical + marginVertical, params.height));
+                maxWidth = Math.max(maxWidth, childWidth + marginHorizontal);
+            }
+            cellWidth = maxWidth;
+        } else {
+            cellWidth = Math.max(MeasureSpec.getSize(widthMeasureSpec) - paddingHorizontal - spacing, 0) / spanCount;
+        }
+        cellWidthSpec = MeasureSpec.makeMeasureSpec(cellWidth, MeasureSpec.EXACTLY);
+        int rowTop = getPaddingTop();
+        int rowHeight = 0;
+        int column = 0;
+        for (int i = 0; i < count; ++i) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams params = (LayoutParams) child.getLayoutParams();
+            final int marginHorizontal = params.leftMargin + params.rightMargin;
+            final int marginVertical = params.topMargin + params.bottomMargin;
+            measureCollectionChild(i, child,
+                    getChildMeasureSpec(cellWidthSpec, marginHorizontal, params.width),
+                    getMainAxisChildMeasureSpec(heightMeasureSpec, paddingVertical + marginVertical, params.height));
+            if (column == spanCount) {
+                // Переходим на следующую строку
+                rowTop += rowHeight + mVerticalSpacing;
+                rowHeight = 0;
+                column = 0;
+            }
+            params.mLeft = getPaddingLeft() + column * (cellWidth + mHorizontalSpacing) + params.leftMargin;
+            params.mTop = rowTop + params.topMargin;
+            rowHeight = Math.max(rowHeight, child.getMeasuredHeight() + marginVertical);
+            ++column;
+        }
+        final int width = cellWidth * spanCount + spacing + paddingHorizontal;
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec),
+                resolveSize(rowTop + rowHeight + getPaddingBottom(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(final boolean changed, final int left, final int top, final int right, final int bottom) {
+        layoutMeasuredChildren();
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.acelost.collectionadapter;
+
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Планировщик постепенного обновления {@link CollectionAdapter}. Распределяет согласование
+ * позиций коллекции по кадрам {@link Choreographer}, тратя на каждый кадр не больше отведенного
+ * времени. Позиции приоритетного диапазона (обычно видимого) согласуются в первую очередь.
+ *
+ * @see CollectionAdapter#setIncrementalUpdatesEnabled(boolean)
+ */
+final class IncrementalUpdateScheduler {
+
+    /**
+     * Время, которое по умолчанию может быть потрачено на постепенное обновление за один кадр.
+     */
+    private static final long DEFAULT_FRAME_BUDGET_NS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    /**
+     * Исполнитель постепенного обновления.
+     */
+    interface Host {
+
+        /**
+         * Можно ли продолжать обновление. Пока нельзя, обновление приостановлено.
+         */
+        boolean isReadyToReconcile();
+
+        /**
+         * Согласовать вью-холдер позиции с данными.
+         *
+         * @param position - позиция элемента в коллекции
+         */
+        void reconcilePosition(int position);
+
+        /**
+         * Вызывается, когда часть обновления выполнена, а остаток перенесен на следующий кадр.
+         */
+        void onIncrementalUpdateSuspended();
+
+        /**
+         * Вызывается, когда все позиции согласованы.
+         *
+         * @param count     - количество элементов коллекции
+         * @param elapsedNs - время, потраченное на обновление за все кадры
+         */
+        void onIncrementalUpdateCompleted(int count, long elapsedNs);
+    }
+
+    @NonNull
+    private final Host mHost;
+
+    /**
+     * Включено ли постепенное обновление.
+     */
+    private boolean mEnabled;
+
+    /**
+     * Время, которое может быть потрачено на постепенное обновление за один кадр.
+     */
+    private long mFrameBudgetNs = DEFAULT_FRAME_BUDGET_NS;
+
+    /**
+     * Выполняется ли постепенное обновление.
+     */
+    private boolean mRunning;
+
+    /**
+     * Количество элементов коллекции, с которым согласуются дочерние вью.
+     */
+    private int mItemCount;
+
+    /**
+     * Следующая позиция, которая будет согласована.
+     */
+    private int mPosition;
+
+    /**
+     * Начало диапазона позиций, согласуемых в первую очередь.
+     */
+    private int mPriorityStart;
+
+    /**
+     * Конец (не включительно) диапазона позиций, согласуемых в первую очередь.
+     */
+    private int mPriorityEnd;
+
+    /**
+     * Следующая позиция приоритетного диапазона, которая будет согласована.
+     */
+    private int mPriorityPosition;
+
+    /**
+     * Время, потраченное на текущее обновление.
+     */
+    private long mElapsedNs;
+
+    /**
+     * Обработчик кадра, продолжающий обновление.
+     */
+    @NonNull
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(final long frameTimeNanos) {
+            mFrameScheduled = false;
+            run(mFrameBudgetNs);
+        }
+    };
+
+    /**
+     * Запланировано ли продолжение обновления.
+     */
+    private boolean mFrameScheduled;
+
+    IncrementalUpdateScheduler(@NonNull final Host host) {
+        mHost = host;
+    }
+
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Включить или выключить постепенное обновление.
+     *
+     * @return true, если режим изменился
+     */
+    boolean setEnabled(final boolean enabled) {
+        if (mEnabled == enabled) {
+            return false;
+        }
+        mEnabled = enabled;
+        return true;
+    }
+
+    void setFrameBudget(final long budgetNs) {
+        mFrameBudgetNs = budgetNs;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Начать обновление и выполнить первую часть в текущем кадре.
+     *
+     * @param count         - количество элементов коллекции
+     * @param priorityStart - начало приоритетного диапазона
+     * @param priorityEnd   - конец (не включительно) приоритетного диапазона
+     * @param elapsedNs     - время, уже потраченное на подготовку обновления
+     */
+    @MainThread
+    void start(final int count, final int priorityStart, final int priorityEnd, final long elapsedNs) {
+        mRunning = true;
+        mItemCount = count;
+        mPosition = 0;
+        mElapsedNs = elapsedNs;
+        mPriorityStart = priorityStart;
+        mPriorityEnd = priorityEnd;
+        mPriorityPosition = priorityStart;
+        run(mFrameBudgetNs);
+    }
+
+    /**
+     * Продолжить обновление, пока не истечет отведенное время.
+     * Если обновление не завершено, его продолжение планируется на следующий кадр.
+     *
+     * @param budgetNs - отведенное время в наносекундах
+     */
+    @MainThread
+    void run(final long budgetNs) {
+        if (!mRunning || !mHost.isReadyToReconcile()) {
+            return;
+        }
+        CollectionTrace.begin(CollectionTrace.DATA_CHANGED);
+        final long startNs = System.nanoTime();
+        final int count = mItemCount;
+        boolean exhausted = false;
+        // Сначала согласуем приоритетный диапазон
+        while (mPriorityPosition < mPriorityEnd && !exhausted) {
+            mHost.reconcilePosition(mPriorityPosition++);
+            exhausted = System.nanoTime() - startNs >= budgetNs;
+        }
+        while (mPosition < count && !exhausted) {
+            if (mPosition == mPriorityStart && mPriorityStart < mPriorityEnd) {
+                // Приоритетный диапазон уже согласован
+                mPosition = mPriorityEnd;
+                continue;
+            }
+            mHost.reconcilePosition(mPosition++);
+            exhausted = System.nanoTime() - startNs >= budgetNs;
+        }
+        mElapsedNs += System.nanoTime() - startNs;
+        if (mPosition >= count && mPriorityPosition >= mPriorityEnd) {
+            mRunning = false;
+            mHost.onIncrementalUpdateCompleted(count, mElapsedNs);
+        } else {
+            mHost.onIncrementalUpdateSuspended();
+            if (!mFrameScheduled) {
+                mFrameScheduled = true;
+                Choreographer.getInstance().postFrameCallback(mFrameCallback);
+            }
+        }
+        CollectionTrace.end();
+    }
+
+    /**
+     * Отменить обновление.
+     */
+    void cancel() {
+        mRunning = false;
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+}
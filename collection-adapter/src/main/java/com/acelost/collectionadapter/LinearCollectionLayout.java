@@ -0,0 +1,148 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * {@link CollectionLayout}, располагающая дочерние вью друг за другом
+ * в одну строку или один столбец, аналог LinearLayout без весов.
+ */
+public class LinearCollectionLayout extends CollectionLayout {
+
+    public static final int HORIZONTAL = 0;
+
+    public static final int VERTICAL = 1;
+
+    /**
+     * Направление, в котором следуют дочерние вью.
+     */
+    private int mOrientation = VERTICAL;
+
+    /**
+     * Расстояние между соседними дочерними вью.
+     */
+    private int mSpacing;
+
+    public LinearCollectionLayout(@NonNull final Context context) {
+        super(context);
+    }
+
+    public LinearCollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public LinearCollectionLayout(@NonNull final Context context, @Nullable final AttributeSet attrs,
+                                  final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Задать направление, в котором следуют дочерние вью.
+     *
+     * @param orientation - {@link #HORIZONTAL} или {@link #VERTICAL}
+     */
+    public void setOrientation(final int orientation) {
+        if (orientation != HORIZONTAL && orientation != VERTICAL) {
+            throw new IllegalArgumentException("Unknown orientation " + orientation + ".");
+        }
+        if (mOrientation != orientation) {
+            mOrientation = orientation;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Получить направление, в котором следуют дочерние вью.
+     */
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * Задать расстояние между соседними дочерними вью.
+     *
+     * @param spacing - расстояние в пикселях
+     */
+    public void setSpacing(final int spacing) {
+        if (mSpacing != spacing) {
+            mSpacing = spacing;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Получить расстояние между соседними дочерними вью.
+     */
+    public int getSpacing() {
+        return mSpacing;
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return mOrientation == VERTICAL
+                ? new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT)
+                : new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+        final boolean vertical = mOrientation == VERTICAL;
+        final int paddingHorizontal = getPaddingLeft() + getPaddingRight();
+        final int paddingVertical = getPaddingTop() + getPaddingBottom();
+        final int count = getChildCount();
+        // Положение следующей вью вдоль основной оси и наибольший размер вдоль поперечной
+        int offset = vertical ? getPaddingTop() : getPaddingLeft();
+        int crossSize = 0;
+        boolean first = true;
+        for (int i = 0; i < count; ++i) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            final LayoutParams params = (LayoutParams) child.getLayoutParams();
+            final int marginHorizontal = params.leftMargin + params.rightMargin;
+            final int marginVertical = params.topMargin + params.bottomMargin;
+            if (vertical) {
+                measureCollectionChild(i, child,
+                        getChildMeasureSpec(widthMeasureSpec, paddingHorizontal + marginHorizontal, params.width),
+                        getMainAxisChildMeasureSpec(heightMeasureSpec, paddingVertical + marginVertical, params.height));
+            } else {
+                measureCollectionChild(i, child,
+                        getMainAxisChildMeasureSpec(widthMeasureSpec, paddingHorizontal + marginHorizontal, params.width),
+                        getChildMeasureSpec(heightMeasureSpec, paddingVertical + marginVertical, params.height));
+            }
+            if (!first) {
+                offset += mSpacing;
+            }
+            first = false;
+            if (vertical) {
+                params.mLeft = getPaddingLeft() + params.leftMargin;
+                params.mTop = offset + params.topMargin;
+                offset += child.getMeasuredHeight() + marginVertical;
+                crossSize = Math.max(crossSize, child.getMeasuredWidth() + marginHorizontal);
+            } else {
+                params.mLeft = offset + params.leftMargin;
+                params.mTop = getPaddingTop() + params.topMargin;
+                offset += child.getMeasuredWidth() + marginHorizontal;
+                crossSize = Math.max(crossSize, child.getMeasuredHeight() + marginVertical);
+            }
+        }
+        if (vertical) {
+            setMeasuredDimension(resolveSize(crossSize + paddingHorizontal, widthMeasureSpec),
+                    resolveSize(offset + getPaddingBottom(), heightMeasureSpec));
+        } else {
+            setMeasuredDimension(resolveSize(offset + getPaddingRight(), widthMeasureSpec),
+                    resolveSize(crossSize + paddingVertical, heightMeasureSpec));
+        }
+    }
+
+    @Override
+    protected void onLayout(final boolean changed, final int left, final int top, final int right, final int bottom) {
+        layoutMeasuredChildren();
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Базовая реализация {@link CollectionAdapter}, моделью данных которой является массив
+ * значений long (идентификаторы, отметки времени). Значения хранятся в примитивных
+ * массивах без упаковки, а {@link #set(long[])} сравнивает новый и старый перечни
+ * без выделения памяти и уведомляет адаптер только об изменившихся диапазонах.
+ *
+ * @param <VH> - тип вью холдера
+ * @see IntCollectionAdapter
+ */
+public abstract class LongCollectionAdapter<VH extends ChildViewHolder> extends CollectionAdapter<VH> {
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * Текущие значения. Действительны первые {@link #mCount} значений.
+     */
+    @NonNull
+    private long[] mItems = EMPTY;
+
+    /**
+     * Запасной буфер, в который записываются новые значения, пока старые сравниваются с ними.
+     */
+    @NonNull
+    private long[] mSpare = EMPTY;
+
+    /**
+     * Количество значений.
+     */
+    private int mCount;
+
+    @Override
+    public int getItemCount() {
+        return mCount;
+    }
+
+    /**
+     * Получить значение на указанной позиции.
+     *
+     * @param position - позиция элемента
+     * @return значение элемента
+     */
+    public long getItem(final int position) {
+        if (position < 0 || position >= mCount) {
+            throw new IndexOutOfBoundsException();
+        }
+        return mItems[position];
+    }
+
+    /**
+     * Задать значения элементов коллекции.
+     *
+     * @param items - новые значения или null для пустой коллекции
+     * @see #set(long[], int, int)
+     */
+    @MainThread
+    public void set(@Nullable final long[] items) {
+        set(items != null ? items : EMPTY, 0, items != null ? items.length : 0);
+    }
+
+    /**
+     * Задать значения элементов коллекции из диапазона массива. Значения копируются,
+     * поэтому массив можно изменять после вызова. Новые значения сравниваются со старыми:
+     * совпадающие начало и конец перечня не затрагиваются, в середине перепривязываются
+     * только изменившиеся значения, а разница в количестве применяется вставкой или удалением.
+     * Память выделяется, только если количество значений превысило прежний максимум.
+     *
+     * @param items     - массив новых значений
+     * @param offset    - позиция первого значения в массиве
+     * @param count     - количество значений
+     */
+    @MainThread
+    public void set(@NonNull final long[] items, final int offset, final int count) {
+        if (offset < 0 || count < 0 || offset + count > items.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        final long[] old = mItems;
+        final int oldCount = mCount;
+        final int minCount = Math.min(oldCount, count);
+        int prefix = 0;
+        while (prefix < minCount && old[prefix] == items[offset + prefix]) {
+            ++prefix;
+        }
+        if (prefix == oldCount && oldCount == count) {
+            return;
+        }
+        int suffix = 0;
+        while (suffix < minCount - prefix
+                && old[oldCount - 1 - suffix] == items[offset + count - 1 - suffix]) {
+            ++suffix;
+        }
+        // Старые значения остаются в прежнем буфере до конца сравнения
+        long[] next = mSpare;
+        if (next.length < count) {
+            next = new long[count];
+        }
+        System.arraycopy(items, offset, next, 0, count);
+        mSpare = old;
+        mItems = next;
+        mCount = count;
+        final int oldEnd = oldCount - suffix;
+        final int newEnd = count - suffix;
+        final int common = Math.min(oldEnd, newEnd);
+        beginBatch();
+        int changedStart = CollectionParent.NO_POSITION;
+        for (int i = prefix; i < common; ++i) {
+            if (old[i] != next[i]) {
+                if (changedStart == CollectionParent.NO_POSITION) {
+                    changedStart = i;
+                }
+            } else if (changedStart != CollectionParent.NO_POSITION) {
+                notifyItemRangeChanged(changedStart, i - changedStart);
+                changedStart = CollectionParent.NO_POSITION;
+            }
+        }
+        if (changedStart != CollectionParent.NO_POSITION) {
+            notifyItemRangeChanged(changedStart, common - changedStart);
+        }
+        if (newEnd > oldEnd) {
+            notifyItemRangeInserted(common, newEnd - oldEnd);
+        } else if (oldEnd > newEnd) {
+            notifyItemRangeRemoved(common, oldEnd - newEnd);
+        }
+        endBatch();
+    }
+
+    @Override
+    protected final void onBindViewHolder(@NonNull final VH holder, final int position) {
+        onBindViewHolder(holder, getItem(position), position);
+    }
+
+    /**
+     * Привязать значение элемента к вью-холдеру.
+     *
+     * @param holder    - вью-холдер
+     * @param item      - значение элемента
+     * @param position  - позиция элемента в коллекции
+     */
+    protected abstract void onBindViewHolder(@NonNull final VH holder, final long item, final int position);
+
+}
@@ -0,0 +1,202 @@
+package com.acelost.collectionadapter;
+
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поддержка коллекций, вложенных в строки {@link RecyclerView}. Адаптеры вложенных коллекций,
+ * привязанные методом {@link #bind(RecyclerView, RecyclerView.ViewHolder, CollectionParent,
+ * AbstractCollectionAdapter, List)}:
+ * <ul>
+ * <li>перепривязываются к данным строки без сравнения перечней, переиспользуя дочерние вью
+ * по типу (см. {@link AbstractCollectionAdapter#rebind(CollectionParent, List)});</li>
+ * <li>используют общий для {@link RecyclerView} пул вью-холдеров (см. {@link #getSharedPool(RecyclerView)}),
+ * в котором типы вью изолированы по классу адаптера (см. {@link CollectionAdapter#getViewTypeNamespace()})
+ * и который ограничен общей вместимостью, а не количеством вью-холдеров каждого типа;</li>
+ * <li>отдают свои вью-холдеры в общий пул одним пакетом, когда {@link RecyclerView}
+ * отправляет строку на переиспользование.</li>
+ * </ul>
+ * Библиотека не зависит от RecyclerView во время выполнения, поэтому класс можно
+ * использовать, только если в приложение подключен androidx.recyclerview версии 1.2.0 и выше.
+ */
+public final class NestedCollectionAdapters {
+
+    /**
+     * Общая вместимость пула, создаваемого {@link #getSharedPool(RecyclerView)}. Вью-холдеры
+     * строки возвращаются в пул одним пакетом, поэтому ограничение в 5 вью-холдеров каждого
+     * типа по умолчанию отбрасывало бы большую часть пакета. Вместимость рассчитана на вложенные
+     * коллекции нескольких строк.
+     */
+    public static final int DEFAULT_SHARED_POOL_CAPACITY = 64;
+
+    /**
+     * Возвращает вью-холдеры вложенных коллекций строки в общий пул при переиспользовании строки.
+     */
+    private static final RecyclerView.RecyclerListener ROW_RECYCLER_LISTENER = new RecyclerView.RecyclerListener() {
+        @Override
+        public void onViewRecycled(@NonNull final RecyclerView.ViewHolder holder) {
+            recycle(holder);
+        }
+    };
+
+    private NestedCollectionAdapters() {
+        // no instances
+    }
+
+    /**
+     * Получить общий пул вью-холдеров вложенных коллекций указанного {@link RecyclerView}.
+     * Если пул не задан методом {@link #setSharedPool(RecyclerView, CollectionViewHolderPool)},
+     * он создается при первом обращении с вместимостью {@link #DEFAULT_SHARED_POOL_CAPACITY}.
+     * Пул хранится в самом {@link RecyclerView}, поэтому живет столько же, сколько он.
+     * <p>
+     * Чтобы пул освобождал вью-холдеры при нехватке памяти, зарегистрируйте его через
+     * {@link android.content.Context#registerComponentCallbacks} и отмените регистрацию
+     * через {@link android.content.Context#unregisterComponentCallbacks}, когда RecyclerView
+     * больше не нужен, иначе контекст будет удерживать пул и его вью.
+     *
+     * @param recyclerView - внешний RecyclerView
+     * @return общий пул вью-холдеров
+     */
+    @MainThread
+    @NonNull
+    public static CollectionViewHolderPool getSharedPool(@NonNull final RecyclerView recyclerView) {
+        final Object tag = recyclerView.getTag(R.id.collection_adapter_shared_pool);
+        if (tag instanceof CollectionViewHolderPool) {
+            return (CollectionViewHolderPool) tag;
+        }
+        final CollectionViewHolderPool pool = new CollectionViewHolderPool();
+        pool.setCapacity(DEFAULT_SHARED_POOL_CAPACITY);
+        setSharedPool(recyclerView, pool);
+        return pool;
+    }
+
+    /**
+     * Задать общий пул вью-холдеров вложенных коллекций указанного {@link RecyclerView},
+     * например с другой вместимостью или ограничениями по типам вью. Вызывается до первой
+     * привязки вложенных коллекций. Про регистрацию пула для реакции на нехватку памяти
+     * см. {@link #getSharedPool(RecyclerView)}.
+     *
+     * @param recyclerView  - внешний RecyclerView
+     * @param pool          - общий пул вью-холдеров
+     */
+    @MainThread
+    public static void setSharedPool(@NonNull final RecyclerView recyclerView,
+                                     @NonNull final CollectionViewHolderPool pool) {
+        if (!(recyclerView.getTag(R.id.collection_adapter_shared_pool) instanceof CollectionViewHolderPool)) {
+            recyclerView.addRecyclerListener(ROW_RECYCLER_LISTENER);
+        }
+        recyclerView.setTag(R.id.collection_adapter_shared_pool, pool);
+    }
+
+    /**
+     * Привязать вложенную коллекцию строки к новым данным. Вызывается из onBindViewHolder
+     * внешнего адаптера вместо {@link CollectionAdapter#attachToParent(CollectionParent)}
+     * и {@link AbstractCollectionAdapter#set(List)}.
+     *
+     * @param recyclerView  - внешний RecyclerView
+     * @param row           - вью-холдер строки внешнего RecyclerView
+     * @param parent        - родительская вью вложенной коллекции внутри строки
+     * @param adapter       - адаптер вложенной коллекции
+     * @param items         - элементы вложенной коллекции, список не должен изменяться после передачи
+     * @param <T>           - тип элементов вложенной коллекции
+     */
+    @MainThread
+    public static <T> void bind(@NonNull final RecyclerView recyclerView,
+                                @NonNull final RecyclerView.ViewHolder row,
+                                @NonNull final CollectionParent parent,
+                                @NonNull final AbstractCollectionAdapter<T, ?> adapter,
+                                @Nullable final List<T> items) {
+        final CollectionViewHolderPool pool = getSharedPool(recyclerView);
+        if (adapter.getRecycledViewPool() != pool) {
+            // Вью-холдеры с неизолированными типами вью остаются в прежнем пуле
+            adapter.detachFromParent();
+            adapter.releaseRetainedViews();
+            adapter.setRecycledViewPool(pool);
+            adapter.setViewTypesIsolated(true);
+        }
+        getRowAdapters(row.itemView, true).put(adapter, parent);
+        adapter.rebind(parent, items);
+    }
+
+    /**
+     * Отсоединить адаптеры вложенных коллекций строки и отдать их вью-холдеры в общий пул.
+     * Адаптеры, которые после привязки к строке были привязаны к другой строке, не отсоединяются.
+     * Вызывается автоматически, когда {@link RecyclerView} отправляет строку на переиспользование,
+     * но может быть вызван и явно, например из onViewRecycled внешнего адаптера.
+     *
+     * @param row - вью-холдер строки внешнего RecyclerView
+     */
+    @MainThread
+    public static void recycle(@NonNull final RecyclerView.ViewHolder row) {
+        final RowAdapters adapters = getRowAdapters(row.itemView, false);
+        if (adapters == null) {
+            return;
+        }
+        final int size = adapters.mAdapters.size();
+        for (int i = 0; i < size; ++i) {
+            final CollectionAdapter<?> adapter = adapters.mAdapters.get(i);
+            if (adapter.isAttachedTo(adapters.mParents.get(i))) {
+                adapter.detachFromParent();
+                adapter.releaseRetainedViews();
+            }
+        }
+        adapters.clear();
+    }
+
+    /**
+     * Получить адаптеры вложенных коллекций, привязанные к строке.
+     *
+     * @param itemView  - вью строки внешнего RecyclerView
+     * @param create    - создать ли перечень, если его нет
+     * @return перечень адаптеров или null, если его нет и create = false
+     */
+    @Nullable
+    private static RowAdapters getRowAdapters(@NonNull final View itemView, final boolean create) {
+        final Object tag = itemView.getTag(R.id.collection_adapter_nested_adapters);
+        if (tag != null || !create) {
+            return (RowAdapters) tag;
+        }
+        final RowAdapters adapters = new RowAdapters();
+        itemView.setTag(R.id.collection_adapter_nested_adapters, adapters);
+        return adapters;
+    }
+
+    /**
+     * Адаптеры вложенных коллекций строки без повторов и родительские вью,
+     * к которым они были привязаны в этой строке.
+     */
+    private static final class RowAdapters {
+
+        @NonNull
+        final ArrayList<CollectionAdapter<?>> mAdapters = new ArrayList<>();
+
+        @NonNull
+        final ArrayList<CollectionParent> mParents = new ArrayList<>();
+
+        /**
+         * Запомнить адаптер, привязанный к родительской вью строки.
+         */
+        void put(@NonNull final CollectionAdapter<?> adapter, @NonNull final CollectionParent parent) {
+            final int index = mAdapters.indexOf(adapter);
+            if (index >= 0) {
+                mParents.set(index, parent);
+            } else {
+                mAdapters.add(adapter);
+                mParents.add(parent);
+            }
+        }
+
+        void clear() {
+            mAdapters.clear();
+            mParents.clear();
+        }
+    }
+
+}
@@ -0,0 +1,386 @@
+package com.acelost.collectionadapter;
+
+import android.view.View;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Базовая реализация {@link CollectionAdapter}, которая получает элементы постранично
+ * от {@link PageLoader}. Загрузка страницы выполняется на указанном executor-е, а загруженная
+ * страница добавляется в конец коллекции вставкой, без перепривязки уже показанных элементов.
+ * Адаптер хранит и привязывает только загруженные элементы, поэтому память и время привязки
+ * зависят от показанной части данных, а не от их общего объема.
+ * <p>
+ * Первая страница загружается при присоединении к {@link CollectionParent}, следующие -
+ * методом {@link #loadMore()} или автоматически при привязке последних элементов
+ * (см. {@link #setPrefetchDistance(int)}). Пока есть незагруженные страницы, после элементов
+ * коллекции показывается вью "показать еще" (см. {@link #onCreateLoadMoreView(CollectionParent)}),
+ * которая учитывается в {@link #getChildEndOffset()}.
+ *
+ * @param <T>  - тип элементов коллекции
+ * @param <VH> - тип вью холдера
+ */
+public abstract class PagedCollectionAdapter<T, VH extends ChildViewHolder> extends CollectionAdapter<VH> {
+
+    /**
+     * Источник страниц элементов.
+     *
+     * @param <T> - тип элементов
+     */
+    public interface PageLoader<T> {
+
+        /**
+         * Загрузить страницу элементов. Вызывается в потоке executor-а адаптера.
+         *
+         * @param offset    - позиция первого элемента страницы
+         * @param count     - размер страницы
+         * @return элементы страницы; если их меньше count, страница считается последней
+         * @throws Exception при ошибке загрузки, передается в {@link #onLoadError(Throwable)}
+         */
+        @WorkerThread
+        @NonNull
+        List<T> loadPage(int offset, int count) throws Exception;
+    }
+
+    @NonNull
+    private final PageLoader<T> mLoader;
+
+    @NonNull
+    private final Executor mExecutor;
+
+    private final int mPageSize;
+
+    /**
+     * Загруженные элементы.
+     */
+    @NonNull
+    private final List<T> mItems = new ArrayList<>();
+
+    /**
+     * Поколение загрузки. Увеличивается при {@link #refresh()}, чтобы результаты
+     * загрузок, начатых до сброса, не применялись.
+     */
+    private int mGeneration;
+
+    private boolean mLoading;
+
+    private boolean mEndReached;
+
+    /**
+     * Количество последних элементов, привязка которых запускает загрузку следующей страницы.
+     */
+    private int mPrefetchDistance;
+
+    /**
+     * Вью "показать еще" или null, если она еще не создана либо не используется.
+     */
+    @Nullable
+    private View mLoadMoreView;
+
+    /**
+     * Родительская вью, к которой присоединен адаптер, или null.
+     */
+    @Nullable
+    private CollectionParent mAttachedParent;
+
+    /**
+     * Родительская вью, в которую добавлена вью "показать еще", или null.
+     */
+    @Nullable
+    private CollectionParent mLoadMoreParent;
+
+    /**
+     * @param loader    - источник страниц
+     * @param executor  - executor для загрузки страниц
+     * @param pageSize  - размер страницы
+     */
+    public PagedCollectionAdapter(@NonNull final PageLoader<T> loader,
+                                  @NonNull final Executor executor,
+                                  final int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        mLoader = loader;
+        mExecutor = executor;
+        mPageSize = pageSize;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    /**
+     * Получить загруженный элемент.
+     *
+     * @param position - позиция элемента
+     * @return элемент коллекции
+     */
+    @NonNull
+    public T getItem(final int position) {
+        if (position < 0 || position >= mItems.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return mItems.get(position);
+    }
+
+    /**
+     * Загружается ли страница.
+     */
+    public boolean isLoading() {
+        return mLoading;
+    }
+
+    /**
+     * Загружены ли все страницы.
+     */
+    public boolean isEndReached() {
+        return mEndReached;
+    }
+
+    /**
+     * Задать количество последних загруженных элементов, привязка которых запускает загрузку
+     * следующей страницы. По умолчанию 0 - страницы загружаются только методом {@link #loadMore()}.
+     * Автоматическую загрузку имеет смысл включать вместе с окном привязки
+     * (см. {@link #setWindowingEnabled(boolean)}), иначе все страницы загрузятся подряд.
+     *
+     * @param distance - количество элементов
+     */
+    @MainThread
+    public void setPrefetchDistance(final int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Prefetch distance must not be negative.");
+        }
+        mPrefetchDistance = distance;
+    }
+
+    /**
+     * Загрузить следующую страницу. Ничего не делает, если страница уже загружается
+     * или загружены все страницы.
+     */
+    @MainThread
+    public void loadMore() {
+        if (mLoading || mEndReached) {
+            return;
+        }
+        mLoading = true;
+        bindLoadMoreView();
+        final int generation = mGeneration;
+        final int offset = mItems.size();
+        final int count = mPageSize;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> page = null;
+                Throwable error = null;
+                try {
+                    page = mLoader.loadPage(offset, count);
+                } catch (Exception e) {
+                    error = e;
+                }
+                final List<T> loadedPage = page;
+                final Throwable loadError = error;
+                AbstractCollectionAdapter.getMainHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            onPageLoaded(offset, count, loadedPage, loadError);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Сбросить загруженные элементы и загрузить первую страницу заново.
+     * Результаты начатых ранее загрузок отбрасываются.
+     */
+    @MainThread
+    public void refresh() {
+        ++mGeneration;
+        mLoading = false;
+        mEndReached = false;
+        final int count = mItems.size();
+        if (count > 0) {
+            mItems.clear();
+            notifyItemRangeRemoved(0, count);
+        }
+        if (mAttachedParent != null) {
+            loadMore();
+        }
+        updateLoadMoreView();
+    }
+
+    /**
+     * Применить результат загрузки страницы.
+     */
+    private void onPageLoaded(final int offset, final int count,
+                              @Nullable final List<T> page, @Nullable final Throwable error) {
+        mLoading = false;
+        if (error != null || page == null) {
+            bindLoadMoreView();
+            onLoadError(error != null ? error : new NullPointerException("Loaded page is null."));
+            return;
+        }
+        if (page.size() < count) {
+            mEndReached = true;
+        }
+        if (!page.isEmpty()) {
+            mItems.addAll(page);
+            notifyItemRangeInserted(offset, page.size());
+        }
+        updateLoadMoreView();
+    }
+
+    /**
+     * Обработать ошибку загрузки страницы. Вызывается в главном потоке. Повторить
+     * загрузку можно методом {@link #loadMore()}. Реализация по умолчанию ничего не делает.
+     *
+     * @param error - ошибка, брошенная {@link PageLoader#loadPage(int, int)}
+     */
+    @MainThread
+    protected void onLoadError(@NonNull final Throwable error) {
+        // no-op
+    }
+
+    // region Load more view
+
+    /**
+     * Создать вью "показать еще", которая показывается после элементов коллекции, пока
+     * загружены не все страницы. Реализация по умолчанию возвращает null - вью не показывается.
+     * Обычно по нажатию на вью вызывается {@link #loadMore()}.
+     *
+     * @param parent - родительская вью
+     * @return вью "показать еще" или null
+     */
+    @Nullable
+    protected View onCreateLoadMoreView(@NonNull final CollectionParent parent) {
+        return null;
+    }
+
+    /**
+     * Привязать состояние загрузки к вью "показать еще", например показать прогресс
+     * или количество оставшихся элементов. Реализация по умолчанию ничего не делает.
+     *
+     * @param view      - вью "показать еще"
+     * @param loading   - загружается ли страница
+     */
+    protected void onBindLoadMoreView(@NonNull final View view, final boolean loading) {
+        // no-op
+    }
+
+    /**
+     * Учитывает вью "показать еще", если она показана. Наследники, добавляющие свои
+     * вью после коллекции, должны прибавлять их количество к значению этого метода.
+     */
+    @Override
+    protected int getChildEndOffset() {
+        return mLoadMoreParent != null ? 1 : 0;
+    }
+
+    /**
+     * Добавить или удалить вью "показать еще" в соответствии с состоянием загрузки.
+     */
+    private void updateLoadMoreView() {
+        final CollectionParent parent = mLoadMoreParent;
+        if (parent != null && mEndReached) {
+            removeLoadMoreView();
+        } else if (parent == null && !mEndReached && mAttachedParent != null) {
+            addLoadMoreView(mAttachedParent);
+        }
+        bindLoadMoreView();
+    }
+
+    private void addLoadMoreView(@NonNull final CollectionParent parent) {
+        View view = mLoadMoreView;
+        if (view == null) {
+            view = onCreateLoadMoreView(parent);
+            if (view == null) {
+                return;
+            }
+            mLoadMoreView = view;
+        }
+        // Вью добавляется сразу после дочерних вью коллекции, до вью, учтенных наследниками
+        parent.addItemInLayout(view, parent.getChildCount() - resolveChildEndOffset());
+        mLoadMoreParent = parent;
+        onChildCountChanged(1);
+        parent.requestLayout();
+    }
+
+    private void removeLoadMoreView() {
+        final CollectionParent parent = mLoadMoreParent;
+        final View view = mLoadMoreView;
+        if (parent == null || view == null) {
+            return;
+        }
+        parent.removeViewInLayout(view);
+        mLoadMoreParent = null;
+        onChildCountChanged(-1);
+        parent.requestLayout();
+    }
+
+    private void bindLoadMoreView() {
+        final View view = mLoadMoreView;
+        if (view != null && mLoadMoreParent != null) {
+            onBindLoadMoreView(view, mLoading);
+        }
+    }
+
+    // endregion
+
+    // region Attach/Detach logic
+
+    @MainThread
+    @CallSuper
+    @Override
+    public void attachToParent(@NonNull final CollectionParent parent) {
+        if (mLoadMoreParent != null && mLoadMoreParent != parent) {
+            removeLoadMoreView();
+        }
+        super.attachToParent(parent);
+        mAttachedParent = parent;
+        if (mItems.isEmpty() && !mEndReached) {
+            loadMore();
+        }
+        updateLoadMoreView();
+    }
+
+    @MainThread
+    @CallSuper
+    @Override
+    public void detachFromParent() {
+        // Вью "показать еще" удаляется первой, чтобы отсоединение не приняло ее за дочернюю вью коллекции
+        removeLoadMoreView();
+        mAttachedParent = null;
+        super.detachFromParent();
+    }
+
+    // endregion
+
+    @Override
+    protected final void onBindViewHolder(@NonNull final VH holder, final int position) {
+        onBindViewHolder(holder, getItem(position), position);
+        if (mPrefetchDistance > 0 && position >= mItems.size() - mPrefetchDistance) {
+            loadMore();
+        }
+    }
+
+    /**
+     * Привязать элемент к вью-холдеру.
+     *
+     * @param holder    - вью-холдер
+     * @param item      - элемент коллекции
+     * @param position  - позиция элемента в коллекции
+     */
+    protected abstract void onBindViewHolder(@NonNull final VH holder, @NonNull final T item, final int position);
+
+}
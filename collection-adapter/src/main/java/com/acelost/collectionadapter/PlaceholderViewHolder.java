@@ -0,0 +1,76 @@
+package com.acelost.collectionadapter;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Вью-холдер заглушки, которая занимает место элемента за пределами окна
+ * в оконном режиме {@link CollectionAdapter}. Заглушка ничего не отображает и только
+ * сохраняет размер элемента, поэтому прокрутка и макет родительской вью
+ * не меняются при переходе элемента из окна и обратно.
+ *
+ * @see CollectionAdapter#setWindowingEnabled(boolean)
+ */
+public final class PlaceholderViewHolder extends ChildViewHolder {
+
+    /**
+     * Тип вью заглушек. Не должен использоваться адаптерами для элементов.
+     */
+    public static final int VIEW_TYPE = Integer.MIN_VALUE;
+
+    /**
+     * Вью заглушки фиксированного размера.
+     */
+    private static final class PlaceholderView extends View {
+
+        int mExtentWidth;
+
+        int mExtentHeight;
+
+        PlaceholderView(@NonNull final Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+            setMeasuredDimension(resolveSize(mExtentWidth, widthMeasureSpec),
+                    resolveSize(mExtentHeight, heightMeasureSpec));
+        }
+    }
+
+    PlaceholderViewHolder(@NonNull final Context context) {
+        super(new PlaceholderView(context));
+        setViewType(VIEW_TYPE);
+    }
+
+    /**
+     * Задать размер, который занимает заглушка.
+     *
+     * @param width     - ширина в пикселях
+     * @param height    - высота в пикселях
+     */
+    public void setExtent(final int width, final int height) {
+        final PlaceholderView view = (PlaceholderView) this.view;
+        if (view.mExtentWidth != width || view.mExtentHeight != height) {
+            view.mExtentWidth = width;
+            view.mExtentHeight = height;
+            view.requestLayout();
+        }
+    }
+
+    /**
+     * Задан ли размер заглушки.
+     */
+    public boolean hasExtent() {
+        final PlaceholderView view = (PlaceholderView) this.view;
+        return view.mExtentWidth > 0 || view.mExtentHeight > 0;
+    }
+
+    @Override
+    public void onRecycle() {
+        setExtent(0, 0);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.acelost.collectionadapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Реестр вью-холдеров дочерних вью коллекции, упорядоченных по позиции.
+ * Вью-холдеры хранятся в плотном массиве, индекс в котором совпадает с позицией вью
+ * среди дочерних элементов коллекции, поэтому получение вью-холдера по позиции
+ * выполняется за O(1), а вставка и удаление диапазонов - одним сдвигом массива.
+ * При сдвиге реестр поддерживает актуальными {@link ChildViewHolder#getAdapterPosition()}
+ * всех не спрятанных вью-холдеров.
+ *
+ * @param <VH> - тип вью-холдера
+ */
+final class ViewHolderRegistry<VH extends ChildViewHolder> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    @NonNull
+    private ChildViewHolder[] mHolders = new ChildViewHolder[MIN_CAPACITY];
+
+    private int mSize;
+
+    /**
+     * Получить количество позиций в реестре.
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Получить вью-холдер на указанной позиции.
+     *
+     * @param position - позиция вью-холдера
+     * @return вью-холдер или null, если позиция за пределами реестра или не занята
+     */
+    @Nullable
+    VH get(final int position) {
+        if (position < 0 || position >= mSize) {
+            return null;
+        }
+        // Массив заполняется только методом set(), принимающим VH
+        @SuppressWarnings("unchecked")
+        final VH holder = (VH) mHolders[position];
+        return holder;
+    }
+
+    /**
+     * Поместить вью-холдер на указанную позицию. Позиция должна находиться
+     * в пределах реестра или непосредственно за его концом.
+     *
+     * @param position  - позиция вью-холдера
+     * @param holder    - вью-холдер
+     */
+    void set(final int position, @NonNull final VH holder) {
+        if (position < 0 || position > mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of registry bounds [0, " + mSize + "].");
+        }
+        if (position == mSize) {
+            ensureCapacity(mSize + 1);
+            ++mSize;
+        }
+        mHolders[position] = holder;
+    }
+
+    /**
+     * Освободить место для вставки: сдвинуть вью-холдеры, начиная с указанной
+     * позиции, на count позиций вперед. Освобожденные позиции остаются незанятыми
+     * до вызова {@link #set(int, ChildViewHolder)}.
+     *
+     * @param position  - позиция первой освобождаемой позиции
+     * @param count     - количество освобождаемых позиций
+     */
+    void insertRange(final int position, final int count) {
+        if (count <= 0 || position >= mSize) {
+            return;
+        }
+        ensureCapacity(mSize + count);
+        System.arraycopy(mHolders, position, mHolders, position + count, mSize - position);
+        Arrays.fill(mHolders, position, position + count, null);
+        mSize += count;
+        updatePositions(position + count, mSize);
+    }
+
+    /**
+     * Убрать из реестра диапазон позиций и сдвинуть последующие вью-холдеры назад.
+     *
+     * @param position  - первая убираемая позиция
+     * @param count     - количество убираемых позиций
+     */
+    void removeRange(final int position, final int count) {
+        if (count <= 0 || position >= mSize) {
+            return;
+        }
+        final int end = Math.min(position + count, mSize);
+        System.arraycopy(mHolders, end, mHolders, position, mSize - end);
+        final int newSize = mSize - (end - position);
+        Arrays.fill(mHolders, newSize, mSize, null);
+        mSize = newSize;
+        updatePositions(position, mSize);
+    }
+
+    /**
+     * Переместить вью-холдер с одной позиции на другую, сдвинув вью-холдеры между ними.
+     * Позиция самого перемещаемого вью-холдера не обновляется.
+     *
+     * @param fromPosition  - исходная позиция вью-холдера
+     * @param toPosition    - новая позиция вью-холдера
+     */
+    void move(final int fromPosition, final int toPosition) {
+        if (fromPosition == toPosition) {
+            return;
+        }
+        final ChildViewHolder holder = mHolders[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(mHolders, fromPosition + 1, mHolders, fromPosition, toPosition - fromPosition);
+            mHolders[toPosition] = holder;
+            updatePositions(fromPosition, toPosition);
+        } else {
+            System.arraycopy(mHolders, toPosition, mHolders, toPosition + 1, fromPosition - toPosition);
+            mHolders[toPosition] = holder;
+            updatePositions(toPosition + 1, fromPosition + 1);
+        }
+    }
+
+    /**
+     * Убрать из реестра все позиции, начиная с указанной.
+     *
+     * @param size - новое количество позиций в реестре
+     */
+    void truncate(final int size) {
+        if (size >= mSize) {
+            return;
+        }
+        Arrays.fill(mHolders, size, mSize, null);
+        mSize = size;
+    }
+
+    /**
+     * Очистить реестр.
+     */
+    void clear() {
+        truncate(0);
+    }
+
+    /**
+     * Задать не спрятанным вью-холдерам в диапазоне [start, end) позиции, совпадающие с их индексами.
+     */
+    private void updatePositions(final int start, final int end) {
+        for (int i = start; i < end; ++i) {
+            final ChildViewHolder holder = mHolders[i];
+            if (holder != null && !holder.isInStash()) {
+                holder.setAdapterPosition(i);
+            }
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > mHolders.length) {
+            mHolders = Arrays.copyOf(mHolders, Math.max(capacity, mHolders.length * 2));
+        }
+    }
+
+}